@@ -0,0 +1,63 @@
+package com.github.wpik.httpsource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.wpik.httpsource.model.Person;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.integration.support.MessageBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * {@code validPerson.json} test fixture with last name padded to the requested length, in all forms consumed by
+ * the stages: request body, parsed tree, deserialized {@link Person} and request context carrying them.
+ */
+@State(Scope.Benchmark)
+public class PersonPayload {
+
+    @Param({"8", "1024", "65536"})
+    public int lastnameLength;
+
+    public ObjectMapper objectMapper;
+
+    public String json;
+
+    public byte[] bytes;
+
+    public JsonNode jsonNode;
+
+    public Person person;
+
+    public IngestionContext context;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = new ObjectMapper();
+        ObjectNode node = (ObjectNode) objectMapper.readTree(readResource("/testdata/validPerson.json"));
+        char[] lastname = new char[lastnameLength];
+        Arrays.fill(lastname, 'k');
+        node.put("lastname", new String(lastname));
+
+        json = objectMapper.writeValueAsString(node);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+        jsonNode = objectMapper.readTree(json);
+        person = objectMapper.treeToValue(jsonNode, Person.class);
+        context = new IngestionContext(MessageBuilder.withPayload(json).build());
+        context.setJsonNode(jsonNode);
+        context.setDeserializedObject(person);
+    }
+
+    public static String readResource(String name) throws IOException {
+        try (InputStream stream = PersonPayload.class.getResourceAsStream(name)) {
+            return IOUtils.toString(stream, StandardCharsets.UTF_8);
+        }
+    }
+}
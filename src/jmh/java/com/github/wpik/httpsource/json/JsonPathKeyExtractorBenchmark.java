@@ -0,0 +1,58 @@
+package com.github.wpik.httpsource.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares per request JSON Path evaluation using raw expression string with precompiled {@link JsonPathKeyExtractor}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonPathKeyExtractorBenchmark {
+
+    private static final String KEY_EXPRESSION = "$.address.city";
+
+    private JsonNode payload;
+
+    private Configuration configuration;
+
+    private JsonPathKeyExtractor extractor;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (InputStream stream = getClass().getResourceAsStream("/testdata/validPerson.json")) {
+            payload = objectMapper.readTree(IOUtils.toString(stream, StandardCharsets.UTF_8));
+        }
+        configuration = Configuration.builder()
+                .jsonProvider(new JacksonJsonNodeJsonProvider(objectMapper))
+                .mappingProvider(new JacksonMappingProvider(objectMapper))
+                .build();
+        extractor = new JsonPathKeyExtractor(KEY_EXPRESSION, objectMapper);
+    }
+
+    @Benchmark
+    public Object expressionParsedPerRequest() {
+        return JsonPath.using(configuration).parse(payload).read(KEY_EXPRESSION);
+    }
+
+    @Benchmark
+    public byte[] precompiledExpression() {
+        return extractor.extract(payload);
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.wpik.httpsource.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.wpik.httpsource.IngestionContext;
+import com.github.wpik.httpsource.IngestionStage;
+import com.github.wpik.httpsource.PersonPayload;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.integration.support.MessageBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON stages of the pipeline: parsing, JSON Schema validation against {@code person-schema.json} and JSON Path key
+ * extraction from the tree and while streaming.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonStagesBenchmark {
+
+    private IngestionStage jsonValidator;
+
+    private JsonPathKeyExtractor jsonPathKeyExtractor;
+
+    private IngestionContext unparsedContext;
+
+    @Setup
+    public void setup(PersonPayload payload) throws IOException {
+        JsonNode schema = payload.objectMapper.readTree(PersonPayload.readResource("/schema/person-schema.json"));
+        jsonValidator = new JsonSchemaValidatorConfig().jsonValidator(new CompiledJsonSchemaValidator(schema, false));
+        jsonPathKeyExtractor = new JsonPathKeyExtractor("$.address.city", payload.objectMapper);
+        unparsedContext = new IngestionContext(MessageBuilder.withPayload(payload.bytes).build());
+    }
+
+    @Benchmark
+    public JsonNode parseString(PersonPayload payload) throws IOException {
+        return payload.objectMapper.readTree(payload.json);
+    }
+
+    @Benchmark
+    public JsonNode parseBytes(PersonPayload payload) throws IOException {
+        return payload.objectMapper.readTree(payload.bytes);
+    }
+
+    @Benchmark
+    public void validateJsonSchema(PersonPayload payload) {
+        jsonValidator.process(payload.context);
+    }
+
+    @Benchmark
+    public byte[] extractJsonPathKeyFromTree(PersonPayload payload) {
+        return jsonPathKeyExtractor.extract(payload.context);
+    }
+
+    @Benchmark
+    public byte[] extractJsonPathKeyWhileStreaming() {
+        return jsonPathKeyExtractor.extract(unparsedContext);
+    }
+}
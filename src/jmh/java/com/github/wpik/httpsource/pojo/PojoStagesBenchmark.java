@@ -0,0 +1,63 @@
+package com.github.wpik.httpsource.pojo;
+
+import com.github.wpik.httpsource.IngestionStage;
+import com.github.wpik.httpsource.PersonPayload;
+import com.github.wpik.httpsource.model.Person;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.expression.spel.SpelCompilerMode;
+
+import javax.validation.Validation;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POJO stages of the pipeline for the {@link Person} model: deserialization, JSR 380 validation and SpEL key
+ * extraction in each compiler mode.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PojoStagesBenchmark {
+
+    private PojoDeserializer pojoDeserializer;
+
+    private IngestionStage pojoValidator;
+
+    @State(Scope.Benchmark)
+    public static class KeyExtractor {
+
+        @Param({"OFF", "IMMEDIATE"})
+        public SpelCompilerMode keyCompilerMode;
+
+        private PojoKeyExtractor pojoKeyExtractor;
+
+        @Setup
+        public void setup() {
+            pojoKeyExtractor = new PojoKeyExtractor("address.city", keyCompilerMode);
+        }
+    }
+
+    @Setup
+    public void setup(PersonPayload payload) {
+        pojoDeserializer = new PojoDeserializer(Person.class, payload.objectMapper);
+        pojoValidator = new PojoValidatorConfig()
+                .pojoValidator(Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @Benchmark
+    public Object deserializePojo(PersonPayload payload) {
+        return pojoDeserializer.deserialize(payload.jsonNode);
+    }
+
+    @Benchmark
+    public void validatePojo(PersonPayload payload) {
+        pojoValidator.process(payload.context);
+    }
+
+    @Benchmark
+    public byte[] extractPojoKey(PersonPayload payload, KeyExtractor keyExtractor) {
+        return keyExtractor.pojoKeyExtractor.extract(payload.person);
+    }
+}
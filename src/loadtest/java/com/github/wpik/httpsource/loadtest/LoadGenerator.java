@@ -0,0 +1,115 @@
+package com.github.wpik.httpsource.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Recorder;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator: requests are scheduled at constant arrival rate, regardless of how fast the service
+ * responds, and latency is measured from the intended start of each request. Requests waiting for a free connection
+ * are therefore included in the latency, so saturation of the service is not hidden by coordinated omission.
+ */
+@Slf4j
+class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final String url;
+
+    private final PayloadMix payloads;
+
+    private final int rate;
+
+    private final int concurrency;
+
+    LoadGenerator(String url, PayloadMix payloads, int rate, int concurrency) {
+        this.url = url;
+        this.payloads = payloads;
+        this.rate = rate;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Generates load for the warmup period, discarding results, then for the measurement period.
+     */
+    LoadReport run(Duration warmup, Duration duration) throws InterruptedException, IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try (CloseableHttpClient client = HttpClients.custom()
+                .setMaxConnTotal(concurrency)
+                .setMaxConnPerRoute(concurrency)
+                .build()) {
+            if (!warmup.isZero()) {
+                log.info("Warming up for {}", warmup);
+                generate(client, executor, warmup, new Recorder(HIGHEST_TRACKABLE_LATENCY_NANOS, 3),
+                        new ConcurrentHashMap<>());
+            }
+            log.info("Measuring for {} at {} requests/s", duration, rate);
+            Recorder recorder = new Recorder(HIGHEST_TRACKABLE_LATENCY_NANOS, 3);
+            Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+            long start = System.nanoTime();
+            long sent = generate(client, executor, duration, recorder, statuses);
+            executor.shutdown();
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                int dropped = executor.shutdownNow().size();
+                log.warn("Requests didn't complete within 1 minute after the measurement, report is missing "
+                        + "{} requests not sent yet and those still in flight", dropped);
+            }
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            return new LoadReport(sent, elapsed, recorder.getIntervalHistogram(), statuses);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long generate(CloseableHttpClient client, ExecutorService executor, Duration duration,
+                          Recorder recorder, Map<Integer, LongAdder> statuses) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long count = 0;
+        for (long intended = start; intended < end; intended += intervalNanos) {
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            long intendedStart = intended;
+            byte[] payload = payloads.next();
+            executor.execute(() -> send(client, payload, intendedStart, recorder, statuses));
+            count++;
+        }
+        return count;
+    }
+
+    private void send(CloseableHttpClient client, byte[] payload, long intendedStart, Recorder recorder,
+                      Map<Integer, LongAdder> statuses) {
+        HttpPost request = new HttpPost(url);
+        request.setEntity(new ByteArrayEntity(payload, ContentType.APPLICATION_JSON));
+        int status;
+        try {
+            HttpResponse response = client.execute(request);
+            status = response.getStatusLine().getStatusCode();
+            EntityUtils.consume(response.getEntity());
+        } catch (IOException e) {
+            status = LoadReport.CONNECTION_ERROR;
+        }
+        long latency = System.nanoTime() - intendedStart;
+        recorder.recordValue(Math.min(latency, HIGHEST_TRACKABLE_LATENCY_NANOS));
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+}
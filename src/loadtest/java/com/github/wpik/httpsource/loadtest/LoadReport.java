@@ -0,0 +1,64 @@
+package com.github.wpik.httpsource.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Summary of the measurement: throughput, latency percentiles and response statuses.
+ */
+class LoadReport {
+
+    static final int CONNECTION_ERROR = -1;
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long sent;
+
+    private final Duration elapsed;
+
+    private final Histogram latency;
+
+    private final Map<Integer, LongAdder> statuses;
+
+    LoadReport(long sent, Duration elapsed, Histogram latency, Map<Integer, LongAdder> statuses) {
+        this.sent = sent;
+        this.elapsed = elapsed;
+        this.latency = latency;
+        this.statuses = statuses;
+    }
+
+    void print(PrintStream out) {
+        double seconds = elapsed.toNanos() / 1e9;
+        out.printf("Requests:    %d in %.1f s (%.0f requests/s)%n", sent, seconds, latency.getTotalCount() / seconds);
+        out.printf("Statuses:    %s%n", new TreeMap<>(statuses).toString().replace(CONNECTION_ERROR + "=",
+                "connection error="));
+        out.printf("Latency ms:  p50 %.3f, p90 %.3f, p99 %.3f, p99.9 %.3f, max %.3f%n",
+                millis(latency.getValueAtPercentile(50)),
+                millis(latency.getValueAtPercentile(90)),
+                millis(latency.getValueAtPercentile(99)),
+                millis(latency.getValueAtPercentile(99.9)),
+                millis(latency.getMaxValue()));
+    }
+
+    /**
+     * Writes full latency distribution in milliseconds, in HdrHistogram percentile format (.hgrm), which can be
+     * plotted with HdrHistogram plotter.
+     */
+    void writeDistribution(String file) throws IOException {
+        try (PrintStream out = new PrintStream(new FileOutputStream(file))) {
+            latency.outputPercentileDistribution(out, NANOS_PER_MILLI);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
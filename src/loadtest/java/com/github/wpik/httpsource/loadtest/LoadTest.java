@@ -0,0 +1,92 @@
+package com.github.wpik.httpsource.loadtest;
+
+import com.github.wpik.httpsource.HttpSourceApplication;
+import com.github.wpik.httpsource.HttpSourceProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.cloud.stream.messaging.Source;
+import org.springframework.cloud.stream.test.binder.MessageCollector;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.CommandLinePropertySource;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.messaging.Message;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Load test harness. Unless {@code --load.url} points to already running service, boots {@link HttpSourceApplication}
+ * on random port with the test binder, whose collected messages are discarded, and measures it with
+ * {@link LoadGenerator}. Options:
+ * <ul>
+ * <li>{@code --load.url} - URL of the tested service, by default the booted application,</li>
+ * <li>{@code --load.rate} - requests per second, by default 1000,</li>
+ * <li>{@code --load.concurrency} - maximum number of concurrent requests, by default 64,</li>
+ * <li>{@code --load.warmup} - warmup duration, by default 10s,</li>
+ * <li>{@code --load.duration} - measurement duration, by default 30s,</li>
+ * <li>{@code --load.payloads} - payload mix, see {@link PayloadMix}, by default {@code /testdata/validPerson.json},</li>
+ * <li>{@code --load.report} - file to write latency distribution to, in HdrHistogram .hgrm format.</li>
+ * </ul>
+ * Other arguments configure the booted application, e.g. {@code --http.json.schema-location=/schema/person-schema.json}.
+ * Asynchronous acknowledgements and reactive mode require Kafka, so test them against service started separately.
+ */
+@Slf4j
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        CommandLinePropertySource<?> options = new SimpleCommandLinePropertySource(args);
+        PayloadMix payloads = new PayloadMix(option(options, "load.payloads", "/testdata/validPerson.json"));
+        int rate = Integer.parseInt(option(options, "load.rate", "1000"));
+        int concurrency = Integer.parseInt(option(options, "load.concurrency", "64"));
+        Duration warmup = DurationStyle.detectAndParse(option(options, "load.warmup", "10s"));
+        Duration duration = DurationStyle.detectAndParse(option(options, "load.duration", "30s"));
+
+        ConfigurableApplicationContext context = null;
+        String url = options.getProperty("load.url");
+        if (url == null) {
+            context = new SpringApplicationBuilder(HttpSourceApplication.class)
+                    .properties("server.port=0", "logging.level.com.github.wpik=info")
+                    .run(args);
+            discardSentMessages(context);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            url = "http://localhost:" + port + context.getBean(HttpSourceProperties.class).getUriPath();
+        }
+
+        try {
+            log.info("Sending {} to {}", payloads, url);
+            LoadReport report = new LoadGenerator(url, payloads, rate, concurrency).run(warmup, duration);
+            report.print(System.out);
+            String reportFile = options.getProperty("load.report");
+            if (reportFile != null) {
+                report.writeDistribution(reportFile);
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static String option(CommandLinePropertySource<?> options, String name, String defaultValue) {
+        String value = options.getProperty(name);
+        return value == null ? defaultValue : value;
+    }
+
+    private static void discardSentMessages(ConfigurableApplicationContext context) {
+        BlockingQueue<Message<?>> sent = context.getBean(MessageCollector.class)
+                .forChannel(context.getBean(Source.class).output());
+        Thread drainer = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    sent.take();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "sent-messages-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.wpik.httpsource.loadtest;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Request bodies chosen randomly with given weights. Defined as comma separated list of {@code location:weight},
+ * e.g. {@code /testdata/validPerson.json:9,/testdata/invalidPerson-age.json:1}. Locations are read from classpath,
+ * or from file system when not found there.
+ */
+class PayloadMix {
+
+    private final List<byte[]> payloads = new ArrayList<>();
+
+    private final List<Integer> cumulativeWeights = new ArrayList<>();
+
+    private int totalWeight;
+
+    PayloadMix(String definition) throws IOException {
+        for (String entry : definition.split(",")) {
+            String[] parts = entry.trim().split(":");
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Payload weight must be positive: " + entry);
+            }
+            payloads.add(read(parts[0]));
+            totalWeight += weight;
+            cumulativeWeights.add(totalWeight);
+        }
+    }
+
+    byte[] next() {
+        int value = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (int i = 0; i < cumulativeWeights.size(); i++) {
+            if (value < cumulativeWeights.get(i)) {
+                return payloads.get(i);
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    private static byte[] read(String location) throws IOException {
+        try (InputStream stream = PayloadMix.class.getResourceAsStream(location)) {
+            if (stream != null) {
+                return IOUtils.toByteArray(stream);
+            }
+        }
+        return Files.readAllBytes(Paths.get(location));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d payloads, %d bytes on average", payloads.size(),
+                payloads.stream().mapToInt(p -> p.length).sum() / Math.max(payloads.size(), 1));
+    }
+}
@@ -1,6 +1,9 @@
 package com.github.wpik.httpsource;
 
 public class Headers {
-    public static final String DESERIALIZED_OBJECT = "deserializedObject";
+    public static final String JSON_NODE = "jsonNode";
     public static final String KEY_BYTES = "keyBytes";
+    public static final String SEND_SEQUENCE = "sendSequence";
+    public static final String IDEMPOTENCY_ID = "idempotencyId";
+    public static final String DESTINATION = "destination";
 }
@@ -0,0 +1,68 @@
+package com.github.wpik.httpsource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(HttpSourceAdmissionProperties.PREFIX)
+@Validated
+@Data
+public class HttpSourceAdmissionProperties {
+
+    static final String PREFIX = "http.admission";
+
+    public static final String HTTP_ADMISSION_ENABLED = PREFIX + ".enabled";
+
+    /**
+     * Whether the number of concurrently handled requests should be limited, adapting the limit to observed latency.
+     */
+    private boolean enabled;
+
+    /**
+     * Concurrency limit used until latency is observed.
+     */
+    @Min(1)
+    private int initialLimit = 100;
+
+    /**
+     * Lower bound of the concurrency limit.
+     */
+    @Min(1)
+    private int minLimit = 10;
+
+    /**
+     * Upper bound of the concurrency limit.
+     */
+    @Min(1)
+    private int maxLimit = 1000;
+
+    /**
+     * How much latency may grow above the long-term average before the limit is lowered, e.g. 2.0 tolerates twice
+     * the average latency.
+     */
+    private double latencyTolerance = 2.0;
+
+    /**
+     * Request header selecting priority class of the request.
+     */
+    private String priorityHeader;
+
+    /**
+     * Share of the concurrency limit available to each priority class, e.g. bulk: 0.5. Requests of a class are
+     * rejected with HTTP 429 once its share is used, leaving capacity for other classes. Requests without
+     * the header, or of classes not listed, may use the whole limit.
+     */
+    private Map<String, Double> priorities = new LinkedHashMap<>();
+
+    /**
+     * Value of Retry-After header of rejected requests.
+     */
+    @NotNull
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
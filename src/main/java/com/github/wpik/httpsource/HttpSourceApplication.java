@@ -1,26 +1,30 @@
 package com.github.wpik.httpsource;
 
+import com.github.wpik.httpsource.cache.ValidationCache;
+import com.github.wpik.httpsource.dedup.IdempotencyIdExtractorConfig;
+import com.github.wpik.httpsource.json.JsonParserConfig;
 import com.github.wpik.httpsource.json.JsonPathKeyExtractorConfig;
 import com.github.wpik.httpsource.json.JsonSchemaValidatorConfig;
+import com.github.wpik.httpsource.metrics.PipelineMetrics;
+import com.github.wpik.httpsource.partition.PartitionerConfig;
 import com.github.wpik.httpsource.pojo.PojoDeserializerConfig;
 import com.github.wpik.httpsource.pojo.PojoKeyExtractorConfig;
 import com.github.wpik.httpsource.pojo.PojoValidatorConfig;
+import com.github.wpik.httpsource.producer.Outputs;
+import com.github.wpik.httpsource.producer.ProducerAcknowledgements;
+import com.github.wpik.httpsource.ratelimit.RateLimitConfig;
+import com.github.wpik.httpsource.route.ContentRoutingConfig;
+import com.github.wpik.httpsource.spool.Spool;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.stream.annotation.EnableBinding;
 import org.springframework.cloud.stream.messaging.Source;
 import org.springframework.context.annotation.Bean;
-import org.springframework.http.MediaType;
-import org.springframework.integration.dsl.HeaderEnricherSpec;
 import org.springframework.integration.dsl.IntegrationFlow;
-import org.springframework.integration.dsl.IntegrationFlows;
-import org.springframework.integration.expression.ValueExpression;
-import org.springframework.integration.handler.GenericHandler;
-import org.springframework.integration.http.dsl.Http;
-
-import java.util.function.Consumer;
 
 @SpringBootApplication
 @EnableConfigurationProperties({HttpSourceProperties.class})
@@ -32,39 +36,53 @@ public class HttpSourceApplication {
     }
 
     @Bean
-    public IntegrationFlow httpInbound(
-            HttpSourceProperties properties,
+    public IngestionPipeline ingestionPipeline(
+            @Qualifier(RateLimitConfig.RATE_LIMITER_BEAN_NAME)
+                    IngestionStage rateLimiter,
+            @Qualifier(JsonParserConfig.JSON_PARSER_BEAN_NAME)
+                    IngestionStage jsonParser,
             @Qualifier(PojoDeserializerConfig.POJO_DESERIALIZER_BEAN_NAME)
-                    Consumer<HeaderEnricherSpec> pojoDeserializer,
+                    IngestionStage pojoDeserializer,
             @Qualifier(PojoValidatorConfig.POJO_VALIDATOR_BEAN_NAME)
-                    GenericHandler<?> pojoValidator,
+                    IngestionStage pojoValidator,
             @Qualifier(PojoKeyExtractorConfig.POJO_KEY_EXTRACTOR_BEAN_NAME)
-                    Consumer<HeaderEnricherSpec> pojoKeyExtractor,
+                    IngestionStage pojoKeyExtractor,
             @Qualifier(JsonSchemaValidatorConfig.JSON_SCHEMA_VALIDATOR_BEAN_NAME)
-                    GenericHandler<?> jsonValidator,
+                    IngestionStage jsonValidator,
             @Qualifier(JsonPathKeyExtractorConfig.JSON_PATH_KEY_EXTRACTOR_BEAN_NAME)
-                    Consumer<HeaderEnricherSpec> jsonPathKeyExtractor
+                    IngestionStage jsonPathKeyExtractor,
+            @Qualifier(ContentRoutingConfig.DESTINATION_ROUTER_BEAN_NAME)
+                    IngestionStage destinationRouter,
+            @Qualifier(IdempotencyIdExtractorConfig.BODY_ID_EXTRACTOR_BEAN_NAME)
+                    IngestionStage bodyIdempotencyIdExtractor,
+            @Qualifier(IdempotencyIdExtractorConfig.REQUEST_ID_EXTRACTOR_BEAN_NAME)
+                    IngestionStage requestIdempotencyIdExtractor,
+            @Qualifier(PartitionerConfig.PARTITIONER_BEAN_NAME)
+                    IngestionStage partitioner,
+            PipelineMetrics metrics,
+            ObjectProvider<ValidationCache> validationCacheProvider
             ) {
-        return IntegrationFlows.from(
-                Http.inboundChannelAdapter(properties.getUriPath())
-                        .requestMapping(mapping ->
-                                mapping
-                                        .methods(properties.getHttpMethods())
-                                        .consumes(MediaType.APPLICATION_JSON_VALUE))
-                        .requestPayloadType(String.class)
-                        .mappedRequestHeaders(properties.getMappedRequestHeaders())
-                        .statusCodeExpression(new ValueExpression<>(properties.getResponseStatus()))
-                        .crossOrigin(crossOrigin ->
-                                crossOrigin
-                                        .origin(properties.getCors().getAllowedOrigins())
-                                        .allowedHeaders(properties.getCors().getAllowedHeaders())
-                                        .allowCredentials(properties.getCors().getAllowCredentials())))
-                .handle(jsonValidator)
-                .enrichHeaders(pojoDeserializer)
-                .handle(pojoValidator)
-                .enrichHeaders(jsonPathKeyExtractor)
-                .enrichHeaders(pojoKeyExtractor)
-                .channel(Source.OUTPUT)
-                .get();
+        return new IngestionPipeline(rateLimiter, jsonParser, jsonValidator, pojoDeserializer, pojoValidator,
+                jsonPathKeyExtractor, pojoKeyExtractor, destinationRouter, bodyIdempotencyIdExtractor,
+                requestIdempotencyIdExtractor, partitioner, metrics, validationCacheProvider.getIfAvailable());
+    }
+
+    @ConditionalOnProperty(name = HttpSourceProperties.HTTP_MODE, havingValue = "servlet", matchIfMissing = true)
+    @Bean
+    public ServletInboundFlows servletInboundFlows(HttpSourceProperties properties,
+                                                   PipelineMetrics metrics,
+                                                   Outputs outputs,
+                                                   ObjectProvider<ProducerAcknowledgements> acknowledgementsProvider,
+                                                   ObjectProvider<Spool> spoolProvider) {
+        return new ServletInboundFlows(properties, metrics, outputs, acknowledgementsProvider.getIfAvailable(),
+                spoolProvider.getIfAvailable());
+    }
+
+    @ConditionalOnProperty(name = HttpSourceProperties.HTTP_MODE, havingValue = "servlet", matchIfMissing = true)
+    @Bean
+    public IntegrationFlow httpInbound(HttpSourceProperties properties,
+                                       IngestionPipeline pipeline,
+                                       ServletInboundFlows servletInboundFlows) {
+        return servletInboundFlows.flow(properties.getUriPath(), pipeline, null);
     }
 }
@@ -0,0 +1,21 @@
+package com.github.wpik.httpsource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(HttpSourceBatchProperties.PREFIX)
+@Validated
+@Data
+public class HttpSourceBatchProperties {
+
+    static final String PREFIX = "http.batch";
+
+    public static final String HTTP_BATCH_URI_PATH = PREFIX + ".uri-path";
+
+    /**
+     * URI path where batch requests (JSON array or newline delimited JSON) should be handled.
+     * By default batch requests are not handled.
+     */
+    private String uriPath;
+}
@@ -0,0 +1,72 @@
+package com.github.wpik.httpsource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+@ConfigurationProperties(HttpSourceDedupProperties.PREFIX)
+@Validated
+@Data
+public class HttpSourceDedupProperties {
+
+    static final String PREFIX = "http.dedup";
+
+    public static final String HTTP_DEDUP_ID_SOURCE = PREFIX + ".id-source";
+
+    public static final String HTTP_DEDUP_EXPRESSION = PREFIX + ".expression";
+
+    public enum IdSource {
+        /**
+         * Value of the request header.
+         */
+        HEADER,
+        /**
+         * JSON Path expression evaluated against the request body.
+         */
+        JSON_PATH,
+        /**
+         * SpEL expression evaluated against the deserialized request body. Requires http.pojo.class-name.
+         */
+        POJO,
+        /**
+         * Hash (SHA-256, truncated to 128 bits) of the request body.
+         */
+        CONTENT
+    }
+
+    /**
+     * Source of the request identity used to suppress duplicates: header, json-path, pojo or content.
+     * By default duplicates are not suppressed.
+     */
+    private IdSource idSource;
+
+    /**
+     * Name of the request header holding the request identity, when id-source is header. The header must be mapped,
+     * see http.mapped-request-headers.
+     */
+    @NotEmpty
+    private String headerName = "Idempotency-Key";
+
+    /**
+     * JSON Path or SpEL expression extracting request identity, when id-source is json-path or pojo.
+     */
+    private String expression;
+
+    /**
+     * Minimum time the request identity is remembered for.
+     */
+    @NotNull
+    private Duration window = Duration.ofMinutes(10);
+
+    /**
+     * Number of identities remembered within the window. When more arrive within the window, the oldest are forgotten
+     * before the window passes. Each takes about 64 bytes of memory.
+     */
+    @Min(1)
+    private int capacity = 100000;
+}
@@ -0,0 +1,163 @@
+package com.github.wpik.httpsource;
+
+import com.github.wpik.httpsource.producer.ProducerAckConfig;
+import com.github.wpik.httpsource.producer.ProducerMetricsReporter;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Adjusts Spring Boot and Kafka binder configuration required by selected {@link HttpSourceMode} and
+ * {@link HttpSourceProducerProperties.Mode}:
+ * <ul>
+ * <li>reactive mode runs reactive web application,</li>
+ * <li>throughput producer mode awaits Kafka acknowledgements asynchronously and tunes batching and compression of
+ * Kafka producer, unless they are configured explicitly,</li>
+ * <li>when Kafka acknowledgements are awaited asynchronously (reactive mode, async producer ack or throughput producer
+ * mode), Kafka producer must not be synchronous, and must report send results to
+ * {@link ProducerAckConfig#RECORD_METADATA_CHANNEL_BEAN_NAME} and the error channel.</li>
+ * </ul>
+ * Producer settings apply to the output, to bindings of destinations of {@link HttpSourceProperties#getRoutes()} and
+ * of {@link HttpSourceRoutingProperties#getDestinations()}, and, when destinations selected by routing expression are
+ * not known in advance, to default producer properties.
+ */
+public class HttpSourceEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String PROPERTY_SOURCE_NAME = "httpSourceMode";
+
+    private static final String WEB_APPLICATION_TYPE = "spring.main.web-application-type";
+
+    private static final String OUTPUT_BINDING = "output";
+
+    private static final String ROUTE_DESTINATION = "destination";
+
+    private static final String ROUTING_DESTINATIONS = HttpSourceRoutingProperties.PREFIX + ".destinations";
+
+    private static final String DEFAULT_PRODUCER = "spring.cloud.stream.default.producer.";
+
+    private static final String KAFKA_DEFAULT_PRODUCER = "spring.cloud.stream.kafka.default.producer.";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        boolean reactive = HttpSourceMode.REACTIVE.name()
+                .equalsIgnoreCase(environment.getProperty(HttpSourceProperties.HTTP_MODE, ""));
+        HttpSourceProducerProperties producer = Binder.get(environment)
+                .bind(HttpSourceProducerProperties.PREFIX, HttpSourceProducerProperties.class)
+                .orElseGet(HttpSourceProducerProperties::new);
+        boolean throughput = producer.getMode() == HttpSourceProducerProperties.Mode.THROUGHPUT;
+        boolean asyncProducerAck = reactive || throughput
+                || environment.getProperty(HttpSourceProperties.HTTP_ASYNC_PRODUCER_ACK, Boolean.class, false);
+
+        Map<String, Object> properties = new HashMap<>();
+        if (reactive && !environment.containsProperty(WEB_APPLICATION_TYPE)) {
+            properties.put(WEB_APPLICATION_TYPE, "reactive");
+        }
+        if (throughput && !reactive) {
+            properties.put(HttpSourceProperties.HTTP_ASYNC_PRODUCER_ACK, true);
+        }
+        if (asyncProducerAck) {
+            for (Map.Entry<String, String> producerPrefixes : producerPrefixes(environment).entrySet()) {
+                configureAsyncProducerAck(environment, properties, producerPrefixes.getKey(),
+                        producerPrefixes.getValue());
+                if (throughput) {
+                    configureThroughput(environment, properties, producerPrefixes.getValue(), producer);
+                }
+            }
+        }
+        if (!properties.isEmpty()) {
+            environment.getPropertySources().addFirst(new MapPropertySource(PROPERTY_SOURCE_NAME, properties));
+        }
+    }
+
+    /**
+     * @return prefixes of common and Kafka producer properties of all bindings messages may be sent to
+     */
+    private static Map<String, String> producerPrefixes(ConfigurableEnvironment environment) {
+        Set<String> bindings = new LinkedHashSet<>();
+        bindings.add(OUTPUT_BINDING);
+        bindings.addAll(routeDestinations(environment));
+        Map<String, String> routingDestinations = routingDestinations(environment);
+        bindings.addAll(routingDestinations.values());
+
+        Map<String, String> prefixes = new LinkedHashMap<>();
+        for (String binding : bindings) {
+            prefixes.put("spring.cloud.stream.bindings." + binding + ".producer.",
+                    "spring.cloud.stream.kafka.bindings." + binding + ".producer.");
+        }
+        if (environment.containsProperty(HttpSourceRoutingProperties.HTTP_ROUTING_EXPRESSION)
+                && routingDestinations.isEmpty()) {
+            prefixes.put(DEFAULT_PRODUCER, KAFKA_DEFAULT_PRODUCER);
+        }
+        return prefixes;
+    }
+
+    private static void configureAsyncProducerAck(ConfigurableEnvironment environment,
+                                                  Map<String, Object> properties,
+                                                  String bindingProducer,
+                                                  String kafkaBindingProducer) {
+        properties.put(kafkaBindingProducer + "sync", false);
+        properties.put(kafkaBindingProducer + "record-metadata-channel",
+                ProducerAckConfig.RECORD_METADATA_CHANNEL_BEAN_NAME);
+        properties.put(bindingProducer + "error-channel-enabled", true);
+        if (!environment.containsProperty(kafkaBindingProducer + "header-patterns")) {
+            properties.put(kafkaBindingProducer + "header-patterns", "!" + Headers.SEND_SEQUENCE + ",*");
+        }
+    }
+
+    private static void configureThroughput(ConfigurableEnvironment environment,
+                                            Map<String, Object> properties,
+                                            String kafkaBindingProducer,
+                                            HttpSourceProducerProperties producer) {
+        String configuration = kafkaBindingProducer + "configuration.";
+        putIfMissing(environment, properties, configuration + ProducerConfig.LINGER_MS_CONFIG,
+                producer.getLinger().toMillis());
+        putIfMissing(environment, properties, configuration + ProducerConfig.BATCH_SIZE_CONFIG,
+                producer.getBatchSize().toBytes());
+        putIfMissing(environment, properties, configuration + ProducerConfig.COMPRESSION_TYPE_CONFIG,
+                producer.getCompression());
+        putIfMissing(environment, properties, configuration + ProducerConfig.METRIC_REPORTER_CLASSES_CONFIG,
+                ProducerMetricsReporter.class.getName());
+    }
+
+    private static void putIfMissing(ConfigurableEnvironment environment, Map<String, Object> properties,
+                                     String name, Object value) {
+        if (!environment.containsProperty(name)) {
+            properties.put(name, value);
+        }
+    }
+
+    /**
+     * Routes are bound as plain maps, without converting their class names to classes this early.
+     */
+    private static Set<String> routeDestinations(ConfigurableEnvironment environment) {
+        ResolvableType routeType = ResolvableType.forClassWithGenerics(Map.class, String.class, String.class);
+        Bindable<Map<String, Map<String, String>>> routes = Bindable.of(ResolvableType.forClassWithGenerics(
+                Map.class, ResolvableType.forClass(String.class), routeType));
+        Set<String> destinations = new LinkedHashSet<>();
+        Binder.get(environment).bind(HttpSourceProperties.HTTP_ROUTES, routes).ifBound(bound ->
+                bound.values().stream()
+                        .map(route -> route.get(ROUTE_DESTINATION))
+                        .filter(Objects::nonNull)
+                        .forEach(destinations::add));
+        return destinations;
+    }
+
+    private static Map<String, String> routingDestinations(ConfigurableEnvironment environment) {
+        return Binder.get(environment)
+                .bind(ROUTING_DESTINATIONS, Bindable.mapOf(String.class, String.class))
+                .orElseGet(Collections::emptyMap);
+    }
+}
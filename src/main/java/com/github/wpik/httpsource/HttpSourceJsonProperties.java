@@ -4,6 +4,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
+
 @ConfigurationProperties(HttpSourceJsonProperties.PREFIX)
 @Validated
 @Data
@@ -15,10 +17,22 @@ public class HttpSourceJsonProperties {
     public static final String HTTP_JSON_KEY_EXPRESSION = PREFIX + ".key-expression";
 
     /**
-     * Classpath location of the JSON Schema to be used to validate the HTTP request body.
+     * Location of the JSON Schema to be used to validate the HTTP request body, e.g. classpath:/schema.json or
+     * file:///path/to/schema.json. Locations without prefix are resolved on classpath.
      */
     private String schemaLocation;
 
+    /**
+     * How often the JSON Schema location is checked for modifications. Modified schema is reloaded without restart.
+     * By default the schema is loaded once, at startup.
+     */
+    private Duration schemaReloadInterval;
+
+    /**
+     * Whether JSON Schema validation should stop at the first violation, instead of reporting all of them.
+     */
+    private boolean failFast;
+
     /**
      * JSON Path expression used to extract key from the HTTP request body.
      */
@@ -0,0 +1,14 @@
+package com.github.wpik.httpsource;
+
+public enum HttpSourceMode {
+    /**
+     * Blocking servlet container with Spring Integration HTTP inbound channel adapter.
+     */
+    SERVLET,
+
+    /**
+     * Netty with Spring Integration WebFlux inbound gateway. The response is completed when Kafka acknowledges the
+     * message.
+     */
+    REACTIVE
+}
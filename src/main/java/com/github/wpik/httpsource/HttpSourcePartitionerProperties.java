@@ -0,0 +1,55 @@
+package com.github.wpik.httpsource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties(HttpSourcePartitionerProperties.PREFIX)
+@Validated
+@Data
+public class HttpSourcePartitionerProperties {
+
+    static final String PREFIX = "http.partitioner";
+
+    public static final String HTTP_PARTITIONER_ENABLED = PREFIX + ".enabled";
+
+    /**
+     * Whether partition of each message should be computed by the source, from the extracted key, the same way
+     * Kafka producer does it (murmur2 hash of the key modulo partition count).
+     * By default: false
+     */
+    private boolean enabled;
+
+    /**
+     * Partition count of the output's destination. By default it is read from Kafka topic metadata.
+     */
+    @Min(1)
+    private Integer partitionCount;
+
+    /**
+     * Partition counts of destinations of routes and content-based routing, by destination name. Counts of other
+     * destinations are read from Kafka topic metadata.
+     */
+    @NotNull
+    private Map<String, @Min(1) Integer> partitionCounts = new HashMap<>();
+
+    /**
+     * How often partition counts are read again from Kafka topic metadata.
+     * By default: 1m
+     */
+    @NotNull
+    private Duration metadataRefreshInterval = Duration.ofMinutes(1);
+
+    /**
+     * Number of consecutive messages without key sent to the same partition, before moving to the next one.
+     * By default 0: partition of messages without key is left to Kafka producer.
+     */
+    @Min(0)
+    private int stickyBatchSize;
+}
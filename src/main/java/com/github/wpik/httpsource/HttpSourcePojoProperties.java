@@ -2,8 +2,11 @@ package com.github.wpik.httpsource;
 
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.expression.spel.SpelCompilerMode;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.constraints.NotNull;
+
 @ConfigurationProperties(HttpSourcePojoProperties.PREFIX)
 @Validated
 @Data
@@ -24,4 +27,11 @@ public class HttpSourcePojoProperties {
      * Expression evaluated against deserialized HTTP request to extract key. Requires http.pojo.className to be set.
      */
     private String keyExpression;
+
+    /**
+     * SpEL compiler mode used for key expression: off, immediate or mixed.
+     * By default: OFF
+     */
+    @NotNull
+    private SpelCompilerMode keyCompilerMode = SpelCompilerMode.OFF;
 }
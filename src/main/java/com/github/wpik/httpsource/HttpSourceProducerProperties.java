@@ -0,0 +1,60 @@
+package com.github.wpik.httpsource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+@ConfigurationProperties(HttpSourceProducerProperties.PREFIX)
+@Validated
+@Data
+public class HttpSourceProducerProperties {
+
+    static final String PREFIX = "http.producer";
+
+    public static final String HTTP_PRODUCER_MODE = PREFIX + ".mode";
+
+    public enum Mode {
+        /**
+         * Kafka producer is configured by Kafka binder properties only.
+         */
+        DEFAULT,
+        /**
+         * Kafka acknowledgements are awaited asynchronously, so that messages of concurrent requests share producer
+         * batches, which are lingered for and compressed.
+         */
+        THROUGHPUT
+    }
+
+    /**
+     * Kafka producer mode.
+     * By default: DEFAULT
+     */
+    @NotNull
+    private Mode mode = Mode.DEFAULT;
+
+    /**
+     * How long Kafka producer waits for more messages before sending a batch, in throughput mode (linger.ms).
+     * By default: 5ms
+     */
+    @NotNull
+    private Duration linger = Duration.ofMillis(5);
+
+    /**
+     * Maximum size of Kafka producer batch, per partition, in throughput mode (batch.size).
+     * By default: 256KB
+     */
+    @NotNull
+    private DataSize batchSize = DataSize.ofKilobytes(256);
+
+    /**
+     * Compression of Kafka producer batches in throughput mode (compression.type): none, gzip, snappy, lz4 or zstd.
+     * By default: lz4
+     */
+    @NotEmpty
+    private String compression = "lz4";
+}
@@ -6,16 +6,39 @@ import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.integration.http.support.DefaultHttpHeaderMapper;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-@ConfigurationProperties("http")
+@ConfigurationProperties(HttpSourceProperties.PREFIX)
 @Validated
 @Data
 public class HttpSourceProperties {
 
+    static final String PREFIX = "http";
+
+    public static final String HTTP_MODE = PREFIX + ".mode";
+
+    public static final String HTTP_ASYNC_PRODUCER_ACK = PREFIX + ".async-producer-ack";
+
+    public static final String HTTP_MAX_BODY_SIZE = PREFIX + ".max-body-size";
+
+    public static final String HTTP_ROUTES = PREFIX + ".routes";
+
+    /**
+     * Whether requests are handled by blocking servlet container or reactively, by Netty.
+     * By default: SERVLET
+     */
+    @NotNull
+    private HttpSourceMode mode = HttpSourceMode.SERVLET;
+
     /**
      * URI path where requests should be handled.
      * By default: /
@@ -43,6 +66,57 @@ public class HttpSourceProperties {
     @NotNull
     private HttpStatus responseStatus = HttpStatus.ACCEPTED;
 
+    /**
+     * Whether HTTP request body should be passed to the output as raw bytes, instead of being decoded into String.
+     * By default: false
+     */
+    private boolean rawPayload;
+
+    /**
+     * Maximum size of HTTP request body. Larger requests are rejected with HTTP 413 before the body is buffered.
+     * By default not limited.
+     */
+    private DataSize maxBodySize;
+
+    /**
+     * Whether, in servlet mode, HTTP response should be deferred until Kafka acknowledges the message, without
+     * blocking request thread. Reactive mode always works this way.
+     * By default: false
+     */
+    private boolean asyncProducerAck;
+
+    /**
+     * How long to wait for Kafka acknowledgement before failing the request, when acknowledgements are received
+     * asynchronously (reactive mode or async producer ack).
+     * By default: 30s
+     */
+    @NotNull
+    private Duration producerAckTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Maximum number of requests awaiting Kafka acknowledgement, when acknowledgements are received asynchronously.
+     * Further requests are rejected with HTTP 503.
+     * By default: 10000
+     */
+    @Min(1)
+    private int maxInFlight = 10000;
+
+    /**
+     * Routes served next to the main URI path, by name, each with its own validation, key extraction and
+     * destination.
+     */
+    @Valid
+    private Map<String, HttpSourceRouteProperties> routes = new LinkedHashMap<>();
+
+    @NestedConfigurationProperty
+    private HttpSourceRoutingProperties routing = new HttpSourceRoutingProperties();
+
+    @NestedConfigurationProperty
+    private HttpSourcePartitionerProperties partitioner = new HttpSourcePartitionerProperties();
+
+    @NestedConfigurationProperty
+    private HttpSourceProducerProperties producer = new HttpSourceProducerProperties();
+
     @NestedConfigurationProperty
     private HttpSourceCorsProperties cors = new HttpSourceCorsProperties();
 
@@ -51,4 +125,22 @@ public class HttpSourceProperties {
 
     @NestedConfigurationProperty
     private HttpSourceJsonProperties json = new HttpSourceJsonProperties();
+
+    @NestedConfigurationProperty
+    private HttpSourceBatchProperties batch = new HttpSourceBatchProperties();
+
+    @NestedConfigurationProperty
+    private HttpSourceValidationCacheProperties validationCache = new HttpSourceValidationCacheProperties();
+
+    @NestedConfigurationProperty
+    private HttpSourceDedupProperties dedup = new HttpSourceDedupProperties();
+
+    @NestedConfigurationProperty
+    private HttpSourceSpoolProperties spool = new HttpSourceSpoolProperties();
+
+    @NestedConfigurationProperty
+    private HttpSourceAdmissionProperties admission = new HttpSourceAdmissionProperties();
+
+    @NestedConfigurationProperty
+    private HttpSourceRateLimitProperties rateLimit = new HttpSourceRateLimitProperties();
 }
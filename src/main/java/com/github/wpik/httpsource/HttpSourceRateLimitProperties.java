@@ -0,0 +1,88 @@
+package com.github.wpik.httpsource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(HttpSourceRateLimitProperties.PREFIX)
+@Validated
+@Data
+public class HttpSourceRateLimitProperties {
+
+    static final String PREFIX = "http.rate-limit";
+
+    public static final String HTTP_RATE_LIMIT_KEY_SOURCE = PREFIX + ".key-source";
+
+    public static final String HTTP_RATE_LIMIT_EXPRESSION = PREFIX + ".expression";
+
+    public enum KeySource {
+        /**
+         * Value of the request header.
+         */
+        HEADER,
+        /**
+         * IP address of the client.
+         */
+        CLIENT_IP,
+        /**
+         * JSON Path expression evaluated against the request body while streaming, without parsing it.
+         */
+        JSON_PATH
+    }
+
+    /**
+     * Source of the client key requests are rate limited by: header, client-ip or json-path.
+     * By default requests are not rate limited.
+     */
+    private KeySource keySource;
+
+    /**
+     * Name of the request header holding the client key, when key-source is header.
+     */
+    @NotEmpty
+    private String headerName = "X-Client-Id";
+
+    /**
+     * JSON Path expression extracting the client key, when key-source is json-path. Has to be a simple chain of
+     * properties, e.g. $.tenant.id.
+     */
+    private String expression;
+
+    /**
+     * Requests per second allowed for each client.
+     */
+    @Positive
+    private double rate = 100;
+
+    /**
+     * Number of requests each client can send at once, above the rate.
+     */
+    @Min(1)
+    private int burst = 100;
+
+    /**
+     * Requests per second allowed for particular clients, by client key.
+     */
+    private Map<String, Double> clientRates = new LinkedHashMap<>();
+
+    /**
+     * How long state of an idle client is kept.
+     */
+    @NotNull
+    private Duration idleTimeout = Duration.ofMinutes(5);
+
+    /**
+     * Maximum number of clients tracked at once. Above it, new clients share a single limit until idle clients are
+     * evicted.
+     */
+    @Min(1)
+    private int maxClients = 100000;
+}
@@ -0,0 +1,42 @@
+package com.github.wpik.httpsource;
+
+import lombok.Data;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotEmpty;
+
+/**
+ * Route served next to the main URI path, with its own validation, key extraction and destination. Other settings
+ * (HTTP methods, headers, CORS, JSON Schema fail fast and reload, SpEL compiler mode) are shared with the main path.
+ */
+@Validated
+@Data
+public class HttpSourceRouteProperties {
+
+    /**
+     * URI path where requests of the route are handled.
+     */
+    @NotEmpty
+    private String uriPath;
+
+    /**
+     * Location of the JSON Schema used to validate requests of the route, e.g. classpath:/schema.json.
+     */
+    private String schemaLocation;
+
+    /**
+     * Name of the class used to deserialize and validate requests of the route.
+     */
+    private Class<?> className;
+
+    /**
+     * Expression extracting key from requests of the route: SpEL evaluated against deserialized request when
+     * class name is set, JSON Path otherwise.
+     */
+    private String keyExpression;
+
+    /**
+     * Destination (Kafka topic) of the route. By default messages are sent to the output.
+     */
+    private String destination;
+}
@@ -0,0 +1,32 @@
+package com.github.wpik.httpsource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(HttpSourceRoutingProperties.PREFIX)
+@Validated
+@Data
+public class HttpSourceRoutingProperties {
+
+    static final String PREFIX = "http.routing";
+
+    public static final String HTTP_ROUTING_EXPRESSION = PREFIX + ".expression";
+
+    public static final String HTTP_ROUTING_DESTINATIONS = PREFIX + ".destinations";
+
+    /**
+     * Expression selecting destination (Kafka topic) of each request: SpEL evaluated against deserialized request
+     * when http.pojo.class-name is set, JSON Path otherwise. Requests for which it yields null are sent to the output.
+     */
+    private String expression;
+
+    /**
+     * Destinations by value of the expression, required with the expression. Requests with other values are sent to
+     * the output; values coming from request bodies never name destinations directly.
+     */
+    private Map<String, String> destinations = new LinkedHashMap<>();
+}
@@ -0,0 +1,57 @@
+package com.github.wpik.httpsource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+@ConfigurationProperties(HttpSourceSpoolProperties.PREFIX)
+@Validated
+@Data
+public class HttpSourceSpoolProperties {
+
+    static final String PREFIX = "http.spool";
+
+    public static final String HTTP_SPOOL_DIRECTORY = PREFIX + ".directory";
+
+    /**
+     * Local directory of the spool, where messages are written when sending them to Kafka fails.
+     * By default spool is disabled.
+     */
+    private String directory;
+
+    /**
+     * Size of each memory mapped spool segment file. Single message can't be larger.
+     */
+    @NotNull
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Maximum size of messages awaiting in the spool. When exceeded, requests fail as they would without spool.
+     */
+    @NotNull
+    private DataSize maxSize = DataSize.ofGigabytes(1);
+
+    /**
+     * Maximum age of spooled message. Older messages are dropped instead of being sent to Kafka.
+     */
+    @NotNull
+    private Duration maxAge = Duration.ofHours(24);
+
+    /**
+     * Delay between attempts to send spooled messages to Kafka.
+     */
+    @NotNull
+    private Duration drainInterval = Duration.ofSeconds(1);
+
+    /**
+     * Threads spooling messages of asynchronous sends, so that Kafka producer and event loop threads don't wait for
+     * the disk. Threads syncing concurrently share a single sync.
+     */
+    @Min(1)
+    private int syncThreads = 4;
+}
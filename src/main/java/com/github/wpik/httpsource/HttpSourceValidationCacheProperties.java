@@ -0,0 +1,36 @@
+package com.github.wpik.httpsource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+@ConfigurationProperties(HttpSourceValidationCacheProperties.PREFIX)
+@Validated
+@Data
+public class HttpSourceValidationCacheProperties {
+
+    static final String PREFIX = "http.validation-cache";
+
+    public static final String HTTP_VALIDATION_CACHE_ENABLED = PREFIX + ".enabled";
+
+    /**
+     * Whether outcome of validation and key extraction should be cached for repeated request bodies.
+     */
+    private boolean enabled;
+
+    /**
+     * Maximum number of cached outcomes.
+     */
+    @Min(1)
+    private long maximumSize = 100000;
+
+    /**
+     * How long outcome is cached.
+     */
+    @NotNull
+    private Duration ttl = Duration.ofMinutes(10);
+}
@@ -0,0 +1,70 @@
+package com.github.wpik.httpsource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+
+/**
+ * State of a request passing the {@link IngestionStage stages}: parsed tree and deserialized object shared by the
+ * stages, and values they extract. Created once per request and turned into the outbound message once, after the
+ * last stage, by {@link #toMessage()}; the tree and the deserialized object never become message headers.
+ * <p>
+ * Values already carried by the request as headers, e.g. tree of batch request element or destination of a route,
+ * are taken over by the context.
+ */
+@Getter
+@Setter
+public class IngestionContext {
+
+    private final Message<?> request;
+
+    private JsonNode jsonNode;
+
+    private Object deserializedObject;
+
+    private byte[] keyBytes;
+
+    private String destination;
+
+    private String idempotencyId;
+
+    private Integer partition;
+
+    public IngestionContext(Message<?> request) {
+        this.request = request;
+        MessageHeaders headers = request.getHeaders();
+        this.jsonNode = headers.get(Headers.JSON_NODE, JsonNode.class);
+        this.keyBytes = headers.get(Headers.KEY_BYTES, byte[].class);
+        this.destination = headers.get(Headers.DESTINATION, String.class);
+        this.idempotencyId = headers.get(Headers.IDEMPOTENCY_ID, String.class);
+    }
+
+    public Object getPayload() {
+        return request.getPayload();
+    }
+
+    public MessageHeaders getHeaders() {
+        return request.getHeaders();
+    }
+
+    /**
+     * @return request message with headers of the extracted values: {@link Headers#KEY_BYTES},
+     * {@link Headers#DESTINATION}, {@link Headers#IDEMPOTENCY_ID} and {@link KafkaHeaders#PARTITION_ID}
+     */
+    public Message<?> toMessage() {
+        MessageBuilder<?> builder = MessageBuilder.fromMessage(request);
+        if (request.getHeaders().containsKey(Headers.JSON_NODE)) {
+            builder.removeHeader(Headers.JSON_NODE);
+        }
+        return builder
+                .setHeader(Headers.KEY_BYTES, keyBytes)
+                .setHeader(Headers.DESTINATION, destination)
+                .setHeader(Headers.IDEMPOTENCY_ID, idempotencyId)
+                .setHeader(KafkaHeaders.PARTITION_ID, partition)
+                .build();
+    }
+}
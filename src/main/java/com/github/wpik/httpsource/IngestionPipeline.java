@@ -0,0 +1,163 @@
+package com.github.wpik.httpsource;
+
+import com.github.wpik.httpsource.cache.ValidationCache;
+import com.github.wpik.httpsource.metrics.PipelineMetrics;
+import org.springframework.integration.dsl.IntegrationFlowBuilder;
+import org.springframework.integration.transformer.MessageTransformationException;
+import org.springframework.integration.transformer.MessageTransformingHandler;
+import org.springframework.messaging.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stages applied to each HTTP request between inbound endpoint and the output: rate limiting, parsing, validation,
+ * key extraction, destination selection, idempotency id extraction and partitioning.
+ * Shared by servlet and reactive inbound flows. The stages run in a single transformer, passing one
+ * {@link IngestionContext} of the request, which becomes the outbound message after the last stage.
+ * Each stage is timed, see {@link PipelineMetrics}. When enabled, {@link ValidationCache} short-circuits the stages
+ * for repeated request bodies.
+ * <p>
+ * Stages of disabled features, {@link IngestionStage#NONE}, are left out when the pipeline is created. When no stage
+ * is enabled, requests pass the transformer without creating a context nor copying the message.
+ * <p>
+ * When the body is parsed and rate limited by its content, it is parsed before the rate limiter, so that the rate
+ * limit key is read from the tree instead of scanning the body once more.
+ */
+public class IngestionPipeline {
+
+    private final PipelineMetrics metrics;
+
+    private final IngestionStage rateLimiter;
+
+    /**
+     * Stages depending on the request body only, behind the validation cache when it is enabled.
+     */
+    private final IngestionStage[] bodyStages;
+
+    /**
+     * Stages run after the rate limiter: body stages, possibly cached, followed by the stages depending on request
+     * headers and on extracted values.
+     */
+    private final IngestionStage[] stages;
+
+    /**
+     * @param validationCache optional, null when disabled
+     */
+    public IngestionPipeline(IngestionStage rateLimiter,
+                             IngestionStage jsonParser,
+                             IngestionStage jsonValidator,
+                             IngestionStage pojoDeserializer,
+                             IngestionStage pojoValidator,
+                             IngestionStage jsonPathKeyExtractor,
+                             IngestionStage pojoKeyExtractor,
+                             IngestionStage destinationRouter,
+                             IngestionStage bodyIdempotencyIdExtractor,
+                             IngestionStage requestIdempotencyIdExtractor,
+                             IngestionStage partitioner,
+                             PipelineMetrics metrics,
+                             ValidationCache validationCache) {
+        this.metrics = metrics;
+        boolean parsedFirst = rateLimiter != IngestionStage.NONE && jsonParser != IngestionStage.NONE;
+        if (parsedFirst) {
+            IngestionStage timedParser = timed("jsonParser", jsonParser);
+            IngestionStage timedRateLimiter = timed("rateLimiter", rateLimiter);
+            this.rateLimiter = context -> {
+                timedParser.process(context);
+                timedRateLimiter.process(context);
+            };
+        } else {
+            this.rateLimiter = timed("rateLimiter", rateLimiter);
+        }
+
+        List<IngestionStage> body = new ArrayList<>();
+        if (!parsedFirst) {
+            add(body, "jsonParser", jsonParser);
+        }
+        add(body, "jsonValidator", jsonValidator);
+        add(body, "pojoDeserializer", pojoDeserializer);
+        add(body, "pojoValidator", pojoValidator);
+        add(body, "jsonPathKeyExtractor", jsonPathKeyExtractor);
+        add(body, "pojoKeyExtractor", pojoKeyExtractor);
+        add(body, "destinationRouter", destinationRouter);
+        add(body, "bodyIdempotencyIdExtractor", bodyIdempotencyIdExtractor);
+        this.bodyStages = body.toArray(new IngestionStage[0]);
+
+        List<IngestionStage> stages = new ArrayList<>();
+        if (bodyStages.length > 0 && validationCache != null) {
+            stages.add(metrics.stage("validationCache",
+                    context -> validationCache.validate(context, this::processBody)));
+        } else {
+            stages.addAll(body);
+        }
+        add(stages, "requestIdempotencyIdExtractor", requestIdempotencyIdExtractor);
+        add(stages, "partitioner", partitioner);
+        this.stages = stages.toArray(new IngestionStage[0]);
+    }
+
+    /**
+     * Adds the pipeline as a transformer of the flow. Rejections leave the transformer as
+     * {@link RejectionTransformationException}, which Spring Integration propagates without wrapping it in a
+     * {@link org.springframework.messaging.MessageHandlingException} with a stack trace.
+     */
+    public IntegrationFlowBuilder apply(IntegrationFlowBuilder flow) {
+        return flow.handle(new MessageTransformingHandler(request -> {
+            try {
+                return process(request);
+            } catch (RejectedRequestException e) {
+                throw new RejectionTransformationException(request, e);
+            }
+        }));
+    }
+
+    /**
+     * @return outbound message of the request
+     * @throws RejectedRequestException when the request is rejected by one of the stages
+     */
+    public Message<?> process(Message<?> request) {
+        if (rateLimiter == IngestionStage.NONE && stages.length == 0
+                && !request.getHeaders().containsKey(Headers.JSON_NODE)) {
+            metrics.payloadSize(request.getPayload());
+            return request;
+        }
+        IngestionContext context = new IngestionContext(request);
+        rateLimiter.process(context);
+        metrics.payloadSize(request.getPayload());
+        for (IngestionStage stage : stages) {
+            stage.process(context);
+        }
+        return context.toMessage();
+    }
+
+    private void processBody(IngestionContext context) {
+        for (IngestionStage stage : bodyStages) {
+            stage.process(context);
+        }
+    }
+
+    private void add(List<IngestionStage> stages, String name, IngestionStage stage) {
+        if (stage != IngestionStage.NONE) {
+            stages.add(timed(name, stage));
+        }
+    }
+
+    private IngestionStage timed(String name, IngestionStage stage) {
+        return stage == IngestionStage.NONE ? stage : metrics.stage(name, stage);
+    }
+
+    /**
+     * Failed message of a rejected request, with the rejection as the cause. Created per rejection, as it carries the
+     * request, but without stack trace.
+     */
+    private static class RejectionTransformationException extends MessageTransformationException {
+
+        private RejectionTransformationException(Message<?> request, RejectedRequestException rejection) {
+            super(request, rejection.getMessage(), rejection);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.wpik.httpsource;
+
+/**
+ * Stage of the {@link IngestionPipeline}: parses, validates or extracts values from the request, reading and
+ * updating its {@link IngestionContext}. Rejects the request by throwing {@link RejectedRequestException}.
+ */
+@FunctionalInterface
+public interface IngestionStage {
+
+    /**
+     * Stage of a disabled feature. Left out of the pipeline when it is assembled, so it costs nothing per request.
+     */
+    IngestionStage NONE = context -> {
+    };
+
+    void process(IngestionContext context);
+}
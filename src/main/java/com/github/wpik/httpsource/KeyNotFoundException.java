@@ -0,0 +1,15 @@
+package com.github.wpik.httpsource;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown by key extractors when the request body has no value at the key expression. Extractors create it once, as
+ * the message is fixed by the expression. Callers using extractors for other purposes than the message key, e.g. for
+ * rate limiting or routing, catch it to fall back or to reject the request with their own reason.
+ */
+public class KeyNotFoundException extends RejectedRequestException {
+
+    public KeyNotFoundException(String reason) {
+        super(HttpStatus.BAD_REQUEST, RejectionCause.KEY_NOT_FOUND, reason);
+    }
+}
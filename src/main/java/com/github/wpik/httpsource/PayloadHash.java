@@ -0,0 +1,228 @@
+package com.github.wpik.httpsource;
+
+import java.security.SecureRandom;
+
+/**
+ * 128-bit MurmurHash3 (x64 variant) of the request body. Fast, non-cryptographic hash, used to recognize repeated
+ * bodies in memory. MurmurHash3 has collisions independent of the seed, so the hash alone must not be trusted
+ * to identify the body; the seed is random per process so that such collisions are at least not precomputed, and
+ * hashes must not leave the process.
+ */
+public final class PayloadHash {
+
+    private static final long SEED = new SecureRandom().nextLong();
+
+    private static final long C1 = 0x87c37b91114253d5L;
+
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final long high;
+
+    private final long low;
+
+    private PayloadHash(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * @param payload request body, byte[] or String
+     */
+    public static PayloadHash of(Object payload) {
+        return payload instanceof byte[] ? of((byte[]) payload) : of(payload.toString());
+    }
+
+    public static PayloadHash of(byte[] data) {
+        int length = data.length;
+        int blocks = length >>> 4;
+        long h1 = SEED;
+        long h2 = SEED;
+
+        for (int i = 0; i < blocks; i++) {
+            long k1 = getLongLittleEndian(data, i << 4);
+            long k2 = getLongLittleEndian(data, (i << 4) + 8);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int tail = blocks << 4;
+        long k1 = 0;
+        long k2 = 0;
+        switch (length & 15) {
+            case 15:
+                k2 ^= (data[tail + 14] & 0xffL) << 48;
+            case 14:
+                k2 ^= (data[tail + 13] & 0xffL) << 40;
+            case 13:
+                k2 ^= (data[tail + 12] & 0xffL) << 32;
+            case 12:
+                k2 ^= (data[tail + 11] & 0xffL) << 24;
+            case 11:
+                k2 ^= (data[tail + 10] & 0xffL) << 16;
+            case 10:
+                k2 ^= (data[tail + 9] & 0xffL) << 8;
+            case 9:
+                k2 ^= data[tail + 8] & 0xffL;
+                h2 ^= mixK2(k2);
+            case 8:
+                k1 ^= (data[tail + 7] & 0xffL) << 56;
+            case 7:
+                k1 ^= (data[tail + 6] & 0xffL) << 48;
+            case 6:
+                k1 ^= (data[tail + 5] & 0xffL) << 40;
+            case 5:
+                k1 ^= (data[tail + 4] & 0xffL) << 32;
+            case 4:
+                k1 ^= (data[tail + 3] & 0xffL) << 24;
+            case 3:
+                k1 ^= (data[tail + 2] & 0xffL) << 16;
+            case 2:
+                k1 ^= (data[tail + 1] & 0xffL) << 8;
+            case 1:
+                k1 ^= data[tail] & 0xffL;
+                h1 ^= mixK1(k1);
+            default:
+        }
+
+        return finish(h1, h2, length);
+    }
+
+    /**
+     * Hashes UTF-16 code units of the text, as little-endian bytes, so that the text is not encoded (copied) first.
+     */
+    public static PayloadHash of(String text) {
+        int length = text.length();
+        int blocks = length >>> 3;
+        long h1 = SEED;
+        long h2 = SEED;
+
+        for (int i = 0; i < blocks; i++) {
+            long k1 = getLongLittleEndian(text, i << 3);
+            long k2 = getLongLittleEndian(text, (i << 3) + 4);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int tail = blocks << 3;
+        long k1 = 0;
+        long k2 = 0;
+        switch (length & 7) {
+            case 7:
+                k2 ^= (long) text.charAt(tail + 6) << 32;
+            case 6:
+                k2 ^= (long) text.charAt(tail + 5) << 16;
+            case 5:
+                k2 ^= text.charAt(tail + 4);
+                h2 ^= mixK2(k2);
+            case 4:
+                k1 ^= (long) text.charAt(tail + 3) << 48;
+            case 3:
+                k1 ^= (long) text.charAt(tail + 2) << 32;
+            case 2:
+                k1 ^= (long) text.charAt(tail + 1) << 16;
+            case 1:
+                k1 ^= text.charAt(tail);
+                h1 ^= mixK1(k1);
+            default:
+        }
+
+        return finish(h1, h2, 2L * length);
+    }
+
+    private static PayloadHash finish(long h1, long h2, long length) {
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = finalMix(h1);
+        h2 = finalMix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new PayloadHash(h1, h2);
+    }
+
+    private static long getLongLittleEndian(byte[] data, int offset) {
+        return (data[offset] & 0xffL)
+                | (data[offset + 1] & 0xffL) << 8
+                | (data[offset + 2] & 0xffL) << 16
+                | (data[offset + 3] & 0xffL) << 24
+                | (data[offset + 4] & 0xffL) << 32
+                | (data[offset + 5] & 0xffL) << 40
+                | (data[offset + 6] & 0xffL) << 48
+                | (data[offset + 7] & 0xffL) << 56;
+    }
+
+    private static long getLongLittleEndian(String text, int offset) {
+        return text.charAt(offset)
+                | (long) text.charAt(offset + 1) << 16
+                | (long) text.charAt(offset + 2) << 32
+                | (long) text.charAt(offset + 3) << 48;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long finalMix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    public long high() {
+        return high;
+    }
+
+    public long low() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PayloadHash)) {
+            return false;
+        }
+        PayloadHash that = (PayloadHash) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (high ^ (high >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
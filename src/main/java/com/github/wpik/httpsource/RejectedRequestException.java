@@ -0,0 +1,65 @@
+package com.github.wpik.httpsource;
+
+import org.springframework.http.HttpStatus;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Rejection of a request caused by the client: malformed or invalid body, exceeded limits. Such rejections are
+ * expected and, with buggy clients, frequent, so the exception has neither stack trace nor suppressed exceptions. It
+ * is rendered directly with its status and reason, without the error controller, see
+ * {@link com.github.wpik.httpsource.web.RejectionResolver}.
+ * <p>
+ * Rejections with fixed reason should be created once and thrown many times; as suppression is disabled, shared
+ * instances don't collect exceptions of the requests they are thrown for.
+ */
+public class RejectedRequestException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    private final RejectionCause rejectionCause;
+
+    private final String reason;
+
+    private final Map<String, String> headers;
+
+    /**
+     * Rejection with {@link RejectionCause#OTHER} cause.
+     */
+    public RejectedRequestException(HttpStatus status, String reason) {
+        this(status, RejectionCause.OTHER, reason);
+    }
+
+    public RejectedRequestException(HttpStatus status, RejectionCause rejectionCause, String reason) {
+        this(status, rejectionCause, reason, Collections.emptyMap());
+    }
+
+    /**
+     * @param headers headers of the response, e.g. {@code Retry-After}
+     */
+    public RejectedRequestException(HttpStatus status, RejectionCause rejectionCause, String reason,
+                                    Map<String, String> headers) {
+        super(status + (reason == null ? "" : " \"" + reason + "\""), null, false, false);
+        this.status = status;
+        this.rejectionCause = rejectionCause;
+        this.reason = reason;
+        this.headers = headers;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public RejectionCause getRejectionCause() {
+        return rejectionCause;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.wpik.httpsource;
+
+/**
+ * Cause of a {@link RejectedRequestException}. Unlike the reason, which may quote the request, causes are a bounded
+ * set, so they can tag metrics.
+ */
+public enum RejectionCause {
+
+    /**
+     * The body is not well-formed JSON, or can't be deserialized to the POJO class.
+     */
+    MALFORMED_BODY,
+
+    /**
+     * The body violates the JSON schema.
+     */
+    SCHEMA_VIOLATION,
+
+    /**
+     * The deserialized body violates constraints of the POJO class.
+     */
+    CONSTRAINT_VIOLATION,
+
+    /**
+     * The body has no value at the key expression.
+     */
+    KEY_NOT_FOUND,
+
+    /**
+     * The body has no value at the routing expression.
+     */
+    DESTINATION_NOT_SELECTED,
+
+    /**
+     * The request has no idempotency id, or it is empty.
+     */
+    IDEMPOTENCY_ID_NOT_EXTRACTED,
+
+    /**
+     * The client exceeded its rate limit.
+     */
+    RATE_LIMITED,
+
+    /**
+     * Too many messages await acknowledgement of Kafka.
+     */
+    TOO_MANY_IN_FLIGHT,
+
+    /**
+     * The spool of messages not sent to Kafka is full.
+     */
+    SPOOL_FULL,
+
+    /**
+     * A request with the same idempotency id is being sent.
+     */
+    SEND_IN_PROGRESS,
+
+    /**
+     * Rejected by the framework, or by other checks.
+     */
+    OTHER
+}
@@ -0,0 +1,44 @@
+package com.github.wpik.httpsource;
+
+import org.springframework.web.server.ResponseStatusException;
+
+public final class ResponseStatusExceptions {
+
+    private ResponseStatusExceptions() {
+    }
+
+    /**
+     * Finds {@link RejectedRequestException} or {@link ResponseStatusException} in the cause chain of the error, e.g.
+     * thrown by one of the stages and wrapped by Spring Integration, or thrown by the framework.
+     *
+     * @return found rejection, {@link ResponseStatusException} converted to a rejection with its status and reason, or
+     * null
+     */
+    public static RejectedRequestException find(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RejectedRequestException) {
+                return (RejectedRequestException) cause;
+            }
+            if (cause instanceof ResponseStatusException) {
+                ResponseStatusException statusException = (ResponseStatusException) cause;
+                return new RejectedRequestException(statusException.getStatus(), statusException.getReason());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds {@link RejectedRequestException} in the cause chain of the error, ignoring other
+     * {@link ResponseStatusException}s.
+     *
+     * @return found rejection or null
+     */
+    public static RejectedRequestException findRejection(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RejectedRequestException) {
+                return (RejectedRequestException) cause;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.wpik.httpsource;
+
+import com.github.wpik.httpsource.metrics.PipelineMetrics;
+import com.github.wpik.httpsource.producer.DeferredResponseFilter;
+import com.github.wpik.httpsource.producer.Outputs;
+import com.github.wpik.httpsource.producer.ProducerAcknowledgements;
+import com.github.wpik.httpsource.spool.Spool;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.IntegrationFlowBuilder;
+import org.springframework.integration.dsl.IntegrationFlows;
+import org.springframework.integration.expression.ValueExpression;
+import org.springframework.integration.http.dsl.Http;
+import org.springframework.messaging.Message;
+
+/**
+ * Builds servlet inbound flows: HTTP endpoint, ingestion pipeline and sending the message to Kafka, synchronously or
+ * deferring the response until Kafka acknowledges the message. Used for {@link HttpSourceProperties#getUriPath()} and
+ * for each of {@link HttpSourceProperties#getRoutes()}.
+ */
+@RequiredArgsConstructor
+public class ServletInboundFlows {
+
+    private final HttpSourceProperties properties;
+
+    private final PipelineMetrics metrics;
+
+    private final Outputs outputs;
+
+    /**
+     * Optional, null when disabled.
+     */
+    private final ProducerAcknowledgements acknowledgements;
+
+    /**
+     * Optional, null when disabled.
+     */
+    private final Spool spool;
+
+    /**
+     * @param destination destination messages are sent to, or null to send them to the output
+     */
+    public IntegrationFlow flow(String uriPath, IngestionPipeline pipeline, String destination) {
+        IntegrationFlowBuilder inbound = IntegrationFlows.from(
+                Http.inboundChannelAdapter(uriPath)
+                        .requestMapping(mapping ->
+                                mapping
+                                        .methods(properties.getHttpMethods())
+                                        .consumes(MediaType.APPLICATION_JSON_VALUE))
+                        .requestPayloadType(properties.isRawPayload() ? byte[].class : String.class)
+                        .mappedRequestHeaders(properties.getMappedRequestHeaders())
+                        .statusCodeExpression(new ValueExpression<>(properties.getResponseStatus()))
+                        .crossOrigin(crossOrigin ->
+                                crossOrigin
+                                        .origin(properties.getCors().getAllowedOrigins())
+                                        .allowedHeaders(properties.getCors().getAllowedHeaders())
+                                        .allowCredentials(properties.getCors().getAllowCredentials())));
+        if (destination != null) {
+            inbound = inbound.enrichHeaders(e -> e.header(Headers.DESTINATION, destination, true));
+        }
+        IntegrationFlowBuilder flow = pipeline.apply(inbound);
+
+        if (acknowledgements == null) {
+            return flow
+                    .handle(Message.class, (message, headers) -> {
+                        if (spool == null) {
+                            metrics.send(outputs.channel(message), message);
+                        } else {
+                            spool.send(message, m -> metrics.send(outputs.channel(m), m));
+                        }
+                        return null;
+                    })
+                    .get();
+        }
+        return flow
+                .handle(Message.class, (message, headers) -> {
+                    DeferredResponseFilter.defer(spool == null
+                            ? acknowledgements.send(message)
+                            : spool.sendAsync(message, acknowledgements::send));
+                    return null;
+                })
+                .get();
+    }
+}
@@ -0,0 +1,232 @@
+package com.github.wpik.httpsource.batch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wpik.httpsource.Headers;
+import com.github.wpik.httpsource.HttpSourceDedupProperties;
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.RejectionCause;
+import com.github.wpik.httpsource.dedup.IdempotencyIdExtractorConfig;
+import com.github.wpik.httpsource.metrics.PipelineMetrics;
+import com.github.wpik.httpsource.producer.Outputs;
+import com.github.wpik.httpsource.producer.ProducerAcknowledgements;
+import com.github.wpik.httpsource.spool.Spool;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.integration.core.MessagingTemplate;
+import org.springframework.integration.http.HttpHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Splits batch request (JSON array or newline delimited JSON) into elements while parsing it, passes each element
+ * through the ingestion pipeline and publishes accepted elements as separate messages. The body is parsed from the
+ * request payload, buffered in a byte array. With asynchronous acknowledgements the elements are sent without waiting
+ * for Kafka and the report completes once each send is acknowledged or fails, see {@link #ingestAsync(Message)}.
+ * The status of the response depends on how many elements are accepted, see {@link BatchReport#status(HttpStatus)}.
+ * <p>
+ * Each element passes the whole pipeline, so with rate limiting by JSON Path each element takes a token of the client
+ * it names; clients limited by header or IP address take one token per batch request, in the filter.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class BatchIngestion {
+
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.valueOf(APPLICATION_NDJSON_VALUE);
+
+    private static final RejectedRequestException NOT_ARRAY =
+            new RejectedRequestException(HttpStatus.BAD_REQUEST, RejectionCause.MALFORMED_BODY,
+                    "Batch request body must be JSON array");
+
+    private final HttpSourceProperties properties;
+
+    private final ObjectMapper objectMapper;
+
+    private final MessagingTemplate pipeline;
+
+    private final Outputs outputs;
+
+    private final PipelineMetrics metrics;
+
+    private final ProducerAcknowledgements acknowledgements;
+
+    /**
+     * Optional, null when disabled.
+     */
+    private final Spool spool;
+
+    /**
+     * Ingests the batch sending accepted elements synchronously.
+     */
+    Message<BatchReport> ingest(Message<?> request) {
+        BatchReport report = new BatchReport();
+        List<BatchReport.ElementStatus> acceptedStatuses = new ArrayList<>();
+        List<Message<?>> acceptedMessages = new ArrayList<>();
+        split(request, report, acceptedMessages, acceptedStatuses);
+
+        for (int i = 0; i < acceptedMessages.size(); i++) {
+            try {
+                send(outbound(acceptedMessages.get(i)));
+                acceptedStatuses.get(i).accept(properties.getResponseStatus());
+            } catch (RuntimeException e) {
+                acceptedStatuses.get(i).reject(e);
+            }
+        }
+        log.debug("Batch request: {} elements accepted, {} rejected", report.getAccepted(), report.getRejected());
+
+        return MessageBuilder.withPayload(report)
+                .setHeader(HttpHeaders.STATUS_CODE, report.status(properties.getResponseStatus()))
+                .build();
+    }
+
+    /**
+     * Ingests the batch sending accepted elements without waiting for Kafka.
+     *
+     * @return response with the report, completed once each sent element is acknowledged by Kafka or its send fails
+     */
+    CompletableFuture<ResponseEntity<BatchReport>> ingestAsync(Message<?> request) {
+        BatchReport report = new BatchReport();
+        List<BatchReport.ElementStatus> acceptedStatuses = new ArrayList<>();
+        List<Message<?>> acceptedMessages = new ArrayList<>();
+        split(request, report, acceptedMessages, acceptedStatuses);
+
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[acceptedMessages.size()];
+        for (int i = 0; i < sends.length; i++) {
+            BatchReport.ElementStatus status = acceptedStatuses.get(i);
+            CompletableFuture<Object> send;
+            try {
+                send = sendAsync(outbound(acceptedMessages.get(i)));
+            } catch (RuntimeException e) {
+                send = new CompletableFuture<>();
+                send.completeExceptionally(e);
+            }
+            sends[i] = send.whenComplete((metadata, error) -> {
+                if (error == null) {
+                    status.accept(properties.getResponseStatus());
+                } else {
+                    status.reject(error instanceof CompletionException ? error.getCause() : error);
+                }
+            });
+        }
+        return CompletableFuture.allOf(sends)
+                .handle((done, error) -> {
+                    log.debug("Batch request: {} elements accepted, {} rejected",
+                            report.getAccepted(), report.getRejected());
+                    return ResponseEntity.status(report.status(properties.getResponseStatus())).body(report);
+                });
+    }
+
+    /**
+     * Adds status of each element to the report and passes the element through the pipeline; accepted elements are
+     * collected together with their statuses.
+     */
+    private void split(Message<?> request, BatchReport report, List<Message<?>> acceptedMessages,
+                       List<BatchReport.ElementStatus> acceptedStatuses) {
+        byte[] body = (byte[]) request.getPayload();
+        boolean ndjson = isNdjson(request.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (!ndjson && parser.nextToken() != JsonToken.START_ARRAY) {
+                throw NOT_ARRAY;
+            }
+            int index = 0;
+            try {
+                while (nextElement(parser, ndjson)) {
+                    int start = (int) parser.getTokenLocation().getByteOffset();
+                    JsonNode node = parser.readValueAsTree();
+                    int end = (int) parser.getCurrentLocation().getByteOffset();
+
+                    int elementIndex = index++;
+                    BatchReport.ElementStatus status = report.add(elementIndex);
+                    try {
+                        acceptedMessages.add(
+                                pipeline.sendAndReceive(element(request, elementIndex, body, start, end, node)));
+                        acceptedStatuses.add(status);
+                    } catch (RuntimeException e) {
+                        status.reject(e);
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                report.add(index).reject(HttpStatus.BAD_REQUEST, e.getOriginalMessage());
+            }
+        } catch (JsonProcessingException e) {
+            throw new RejectedRequestException(HttpStatus.BAD_REQUEST, RejectionCause.MALFORMED_BODY,
+                    e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean nextElement(JsonParser parser, boolean ndjson) throws IOException {
+        JsonToken token = parser.nextToken();
+        return token != null && (ndjson || token != JsonToken.END_ARRAY);
+    }
+
+    private Message<?> element(Message<?> request, int index, byte[] body, int start, int end, JsonNode node)
+            throws IOException {
+        byte[] bytes = start >= 0 && end > start
+                ? Arrays.copyOfRange(body, start, end)
+                : objectMapper.writeValueAsBytes(node);
+        return MessageBuilder.withPayload(properties.isRawPayload() ? bytes : new String(bytes, StandardCharsets.UTF_8))
+                .copyHeaders(request.getHeaders())
+                .removeHeaders(MessageHeaders.REPLY_CHANNEL, MessageHeaders.ERROR_CHANNEL)
+                .setHeader(MessageHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setHeader(Headers.JSON_NODE, node)
+                .setHeader(Headers.IDEMPOTENCY_ID, idempotencyId(request, index))
+                .build();
+    }
+
+    /**
+     * Idempotency id taken from the request header identifies the whole batch, so each element gets it suffixed
+     * with its index: retried batch is ingested again only partially, without the elements already sent.
+     */
+    private String idempotencyId(Message<?> request, int index) {
+        if (properties.getDedup().getIdSource() != HttpSourceDedupProperties.IdSource.HEADER) {
+            return null;
+        }
+        String batchId =
+                IdempotencyIdExtractorConfig.header(request.getHeaders(), properties.getDedup().getHeaderName());
+        return batchId == null ? null : batchId + "#" + index;
+    }
+
+    private void send(Message<?> message) {
+        if (spool == null) {
+            metrics.send(outputs.channel(message), message);
+        } else {
+            spool.send(message, m -> metrics.send(outputs.channel(m), m));
+        }
+    }
+
+    private CompletableFuture<Object> sendAsync(Message<?> message) {
+        return spool == null ? acknowledgements.send(message) : spool.sendAsync(message, acknowledgements::send);
+    }
+
+    private static Message<?> outbound(Message<?> processed) {
+        return MessageBuilder.fromMessage(processed)
+                .removeHeaders(MessageHeaders.REPLY_CHANNEL, MessageHeaders.ERROR_CHANNEL)
+                .build();
+    }
+
+    private static boolean isNdjson(Object contentType) {
+        return contentType != null && APPLICATION_NDJSON.isCompatibleWith(MediaType.valueOf(contentType.toString()));
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.wpik.httpsource.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wpik.httpsource.HttpSourceBatchProperties;
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.IngestionPipeline;
+import com.github.wpik.httpsource.metrics.PipelineMetrics;
+import com.github.wpik.httpsource.producer.DeferredResponseFilter;
+import com.github.wpik.httpsource.producer.Outputs;
+import com.github.wpik.httpsource.producer.ProducerAcknowledgements;
+import com.github.wpik.httpsource.spool.Spool;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.core.MessagingTemplate;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.IntegrationFlows;
+import org.springframework.integration.expression.ValueExpression;
+import org.springframework.integration.http.dsl.Http;
+import org.springframework.integration.http.dsl.HttpRequestHandlerEndpointSpec;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+
+/**
+ * Batch endpoint accepting JSON array or newline delimited JSON. Each element is validated and keyed by the same
+ * stages as single requests and published as separate message. Response contains status of each element.
+ * With asynchronous acknowledgements the response is deferred until Kafka acknowledges all the elements, see
+ * {@link DeferredResponseFilter}. Supported in servlet mode only.
+ */
+@Configuration
+@ConditionalOnProperty(HttpSourceBatchProperties.HTTP_BATCH_URI_PATH)
+public class BatchIngestionConfig {
+
+    static final String BATCH_ELEMENT_CHANNEL_NAME = "batchElements";
+
+    @Bean(BATCH_ELEMENT_CHANNEL_NAME)
+    MessageChannel batchElementChannel() {
+        return new DirectChannel();
+    }
+
+    @Bean
+    IntegrationFlow batchElementFlow(IngestionPipeline pipeline) {
+        return pipeline.apply(IntegrationFlows.from(BATCH_ELEMENT_CHANNEL_NAME)).get();
+    }
+
+    @ConditionalOnProperty(name = HttpSourceProperties.HTTP_MODE, havingValue = "servlet", matchIfMissing = true)
+    @Bean
+    IntegrationFlow batchHttpInbound(HttpSourceProperties properties,
+                                     ObjectMapper objectMapper,
+                                     Outputs outputs,
+                                     PipelineMetrics metrics,
+                                     @Qualifier(BATCH_ELEMENT_CHANNEL_NAME) MessageChannel batchElementChannel,
+                                     ObjectProvider<ProducerAcknowledgements> acknowledgementsProvider,
+                                     ObjectProvider<Spool> spoolProvider) {
+        ProducerAcknowledgements acknowledgements = acknowledgementsProvider.getIfAvailable();
+        BatchIngestion batchIngestion = new BatchIngestion(properties, objectMapper,
+                new MessagingTemplate(batchElementChannel), outputs, metrics,
+                acknowledgements, spoolProvider.getIfAvailable());
+
+        if (acknowledgements == null) {
+            return IntegrationFlows.from(
+                    configure(Http.inboundGateway(properties.getBatch().getUriPath()), properties))
+                    .handle(Message.class, (message, headers) -> batchIngestion.ingest(message))
+                    .get();
+        }
+        return IntegrationFlows.from(
+                configure(Http.inboundChannelAdapter(properties.getBatch().getUriPath()), properties)
+                        .statusCodeExpression(new ValueExpression<>(properties.getResponseStatus())))
+                .handle(Message.class, (message, headers) -> {
+                    DeferredResponseFilter.deferResponse(batchIngestion.ingestAsync(message));
+                    return null;
+                })
+                .get();
+    }
+
+    private static HttpRequestHandlerEndpointSpec configure(HttpRequestHandlerEndpointSpec endpoint,
+                                                            HttpSourceProperties properties) {
+        return endpoint
+                .requestMapping(mapping ->
+                        mapping
+                                .methods(properties.getHttpMethods())
+                                .consumes(MediaType.APPLICATION_JSON_VALUE, BatchIngestion.APPLICATION_NDJSON_VALUE))
+                .requestPayloadType(byte[].class)
+                .mappedRequestHeaders(properties.getMappedRequestHeaders())
+                .crossOrigin(crossOrigin ->
+                        crossOrigin
+                                .origin(properties.getCors().getAllowedOrigins())
+                                .allowedHeaders(properties.getCors().getAllowedHeaders())
+                                .allowCredentials(properties.getCors().getAllowCredentials()));
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.wpik.httpsource.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.ResponseStatusExceptions;
+import lombok.Data;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response to batch request, with status of each element. The status of the response tells whether all, some or none
+ * of the elements were accepted, see {@link #status(HttpStatus)}.
+ */
+@Data
+public class BatchReport {
+
+    private final List<ElementStatus> elements = new ArrayList<>();
+
+    public long getAccepted() {
+        return elements.stream().filter(ElementStatus::isAccepted).count();
+    }
+
+    public long getRejected() {
+        return elements.size() - getAccepted();
+    }
+
+    /**
+     * @return the status of accepted requests when all elements are accepted (or the batch is empty), 207 Multi-Status
+     * when some are, and when none is: 422 Unprocessable Entity if all of them are invalid, 503 Service Unavailable if
+     * some couldn't be sent
+     */
+    HttpStatus status(HttpStatus acceptedStatus) {
+        long accepted = getAccepted();
+        if (accepted == elements.size()) {
+            return acceptedStatus;
+        }
+        if (accepted > 0) {
+            return HttpStatus.MULTI_STATUS;
+        }
+        return elements.stream().allMatch(ElementStatus::isClientError)
+                ? HttpStatus.UNPROCESSABLE_ENTITY : HttpStatus.SERVICE_UNAVAILABLE;
+    }
+
+    ElementStatus add(int index) {
+        ElementStatus status = new ElementStatus(index);
+        elements.add(status);
+        return status;
+    }
+
+    @Data
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ElementStatus {
+
+        private final int index;
+
+        private int status;
+
+        private String message;
+
+        void accept(HttpStatus status) {
+            this.status = status.value();
+        }
+
+        void reject(HttpStatus status, String message) {
+            this.status = status.value();
+            this.message = message;
+        }
+
+        void reject(Throwable error) {
+            RejectedRequestException statusException = ResponseStatusExceptions.find(error);
+            if (statusException != null) {
+                reject(statusException.getStatus(), statusException.getReason());
+            } else {
+                reject(HttpStatus.INTERNAL_SERVER_ERROR, error.getMessage());
+            }
+        }
+
+        boolean isAccepted() {
+            return status >= 200 && status < 300;
+        }
+
+        boolean isClientError() {
+            return status >= 400 && status < 500;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.wpik.httpsource.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.wpik.httpsource.IngestionContext;
+import com.github.wpik.httpsource.IngestionStage;
+import com.github.wpik.httpsource.PayloadHash;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.ResponseStatusExceptions;
+
+import java.util.Arrays;
+
+/**
+ * Caches outcome of the ingestion pipeline stages by {@link PayloadHash} of the request body, so that repeated bodies
+ * are not parsed, validated and keyed again: accepted bodies get cached key, destination and idempotency id, rejected
+ * bodies the cached client error, thrown again without creating a new exception. Server errors are not cached.
+ * The body is kept with the outcome and compared on a hit, so a body colliding with a cached one is not trusted.
+ * Outcomes are forgotten when the JSON Schema is reloaded.
+ */
+public class ValidationCache {
+
+    private final Cache<PayloadHash, Outcome> outcomes;
+
+    ValidationCache(Cache<PayloadHash, Outcome> outcomes) {
+        this.outcomes = outcomes;
+    }
+
+    /**
+     * Sets key, destination and idempotency id of the request, taken from cache or from passing the request through
+     * the stages.
+     *
+     * @throws RejectedRequestException when the request is rejected
+     */
+    public void validate(IngestionContext context, IngestionStage stages) {
+        PayloadHash hash = PayloadHash.of(context.getPayload());
+        Outcome outcome = outcomes.getIfPresent(hash);
+        if (outcome != null && outcome.isOf(context.getPayload())) {
+            if (outcome.rejection != null) {
+                throw outcome.rejection;
+            }
+            if (context.getKeyBytes() == null) {
+                context.setKeyBytes(outcome.keyBytes);
+            }
+            if (context.getDestination() == null) {
+                context.setDestination(outcome.destination);
+            }
+            if (context.getIdempotencyId() == null) {
+                context.setIdempotencyId(outcome.idempotencyId);
+            }
+            return;
+        }
+
+        try {
+            stages.process(context);
+        } catch (RuntimeException e) {
+            RejectedRequestException rejection = ResponseStatusExceptions.find(e);
+            if (rejection != null && rejection.getStatus().is4xxClientError()) {
+                outcomes.put(hash, new Outcome(context.getPayload(), null, null, null, rejection));
+            }
+            throw e;
+        }
+        outcomes.put(hash, new Outcome(context.getPayload(), context.getKeyBytes(), context.getDestination(),
+                context.getIdempotencyId(), null));
+    }
+
+    /**
+     * Forgets all cached outcomes, e.g. when they were decided by the previous JSON Schema.
+     */
+    public void invalidateAll() {
+        outcomes.invalidateAll();
+    }
+
+    static class Outcome {
+        private final Object payload;
+        private final byte[] keyBytes;
+        private final String destination;
+        private final String idempotencyId;
+        private final RejectedRequestException rejection;
+
+        Outcome(Object payload, byte[] keyBytes, String destination, String idempotencyId,
+                RejectedRequestException rejection) {
+            this.payload = payload;
+            this.keyBytes = keyBytes;
+            this.destination = destination;
+            this.idempotencyId = idempotencyId;
+            this.rejection = rejection;
+        }
+
+        boolean isOf(Object payload) {
+            return this.payload instanceof byte[]
+                    ? payload instanceof byte[] && Arrays.equals((byte[]) this.payload, (byte[]) payload)
+                    : this.payload.equals(payload);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.wpik.httpsource.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.HttpSourceValidationCacheProperties;
+import com.github.wpik.httpsource.PayloadHash;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation cache in front of the ingestion pipeline stages depending on the request body.
+ */
+@Configuration
+@ConditionalOnProperty(HttpSourceValidationCacheProperties.HTTP_VALIDATION_CACHE_ENABLED)
+public class ValidationCacheConfig {
+
+    private static final String CACHE_NAME = "httpSourceValidation";
+
+    @Bean
+    ValidationCache validationCache(HttpSourceProperties httpSourceProperties, MeterRegistry meterRegistry) {
+        HttpSourceValidationCacheProperties properties = httpSourceProperties.getValidationCache();
+        Cache<PayloadHash, ValidationCache.Outcome> outcomes = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl().toNanos(), TimeUnit.NANOSECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, outcomes, CACHE_NAME);
+        return new ValidationCache(outcomes);
+    }
+}
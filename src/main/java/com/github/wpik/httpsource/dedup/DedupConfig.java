@@ -0,0 +1,66 @@
+package com.github.wpik.httpsource.dedup;
+
+import com.github.wpik.httpsource.HttpSourceDedupProperties;
+import com.github.wpik.httpsource.HttpSourceMode;
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.metrics.PipelineMetrics;
+import com.github.wpik.httpsource.producer.ProducerAckConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.stream.messaging.Source;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.config.GlobalChannelInterceptor;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.IntegrationFlows;
+import org.springframework.messaging.MessagingException;
+import org.springframework.scheduling.TaskScheduler;
+
+/**
+ * Duplicate suppression on the output; {@link com.github.wpik.httpsource.producer.Outputs} adds it to bindings of
+ * destinations as well. With asynchronous acknowledgements identities are remembered when Kafka binder reports
+ * record metadata of the send. Identities of sends which fail asynchronously (reported to the error channel
+ * by Kafka binder) are released, same as identities of sends which fail synchronously. Claims are taken over after
+ * {@code http.producer-ack-timeout}, when sends are not acknowledged in time anyway.
+ */
+@Configuration
+@ConditionalOnProperty(HttpSourceDedupProperties.HTTP_DEDUP_ID_SOURCE)
+public class DedupConfig {
+
+    @Bean
+    @GlobalChannelInterceptor(patterns = Source.OUTPUT)
+    DuplicateSuppressor duplicateSuppressor(
+            HttpSourceProperties httpSourceProperties,
+            PipelineMetrics metrics,
+            @Qualifier(IntegrationContextUtils.TASK_SCHEDULER_BEAN_NAME) TaskScheduler taskScheduler) {
+        HttpSourceDedupProperties properties = httpSourceProperties.getDedup();
+        DuplicateSuppressor duplicateSuppressor = new DuplicateSuppressor(
+                new ExpiringIdSet(properties.getCapacity(), properties.getWindow()),
+                httpSourceProperties.getMode() == HttpSourceMode.REACTIVE || httpSourceProperties.isAsyncProducerAck(),
+                httpSourceProperties.getProducerAckTimeout(), metrics);
+        taskScheduler.scheduleWithFixedDelay(duplicateSuppressor::expireClaims,
+                httpSourceProperties.getProducerAckTimeout().toMillis());
+        return duplicateSuppressor;
+    }
+
+    @Bean
+    @Conditional(ProducerAckConfig.AsyncAcksRequired.class)
+    IntegrationFlow duplicateSuppressorAcknowledgementFlow(DuplicateSuppressor duplicateSuppressor) {
+        return IntegrationFlows.from(ProducerAckConfig.RECORD_METADATA_CHANNEL_BEAN_NAME)
+                .handle(duplicateSuppressor::acknowledge)
+                .get();
+    }
+
+    @Bean
+    IntegrationFlow duplicateSuppressorFailureFlow(DuplicateSuppressor duplicateSuppressor) {
+        return IntegrationFlows.from(IntegrationContextUtils.ERROR_CHANNEL_BEAN_NAME)
+                .handle(message -> {
+                    if (message.getPayload() instanceof MessagingException) {
+                        duplicateSuppressor.release(((MessagingException) message.getPayload()).getFailedMessage());
+                    }
+                })
+                .get();
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.wpik.httpsource.dedup;
+
+import com.github.wpik.httpsource.Headers;
+import com.github.wpik.httpsource.PayloadHash;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.RejectionCause;
+import com.github.wpik.httpsource.metrics.PipelineMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Intercepts sends to the output and to destinations of routes and content-based routing, and drops messages whose
+ * {@link Headers#IDEMPOTENCY_ID} was already sent within the window. Dropped message is not an error: the request is
+ * answered as if it was sent.
+ * <p>
+ * Identity is claimed before the send, and remembered for the window once Kafka acknowledges the message: when
+ * the send returns (synchronous sends) or when Kafka binder reports its record metadata (asynchronous
+ * acknowledgements). Until then it is not known whether the message will reach Kafka, so a request with the claimed
+ * identity is rejected with HTTP 409 and {@code Retry-After}, instead of being answered as sent. The claim is released
+ * when the send fails, so that the client can retry, and taken over when it is older than the claim timeout, e.g.
+ * when the acknowledgement never came.
+ */
+@Slf4j
+public class DuplicateSuppressor implements ChannelInterceptor {
+
+    private static final RejectedRequestException SEND_IN_PROGRESS = new RejectedRequestException(HttpStatus.CONFLICT,
+            RejectionCause.SEND_IN_PROGRESS, "Request with the same idempotency id is being sent",
+            Collections.singletonMap(HttpHeaders.RETRY_AFTER, "1"));
+
+    private final ExpiringIdSet ids;
+
+    private final ConcurrentMap<PayloadHash, Long> claims = new ConcurrentHashMap<>();
+
+    private final boolean asyncAcknowledgements;
+
+    private final long claimTimeoutNanos;
+
+    private final PipelineMetrics metrics;
+
+    /**
+     * @param asyncAcknowledgements whether sends return before Kafka acknowledges them, see
+     *                              {@link #acknowledge(Message)}
+     */
+    DuplicateSuppressor(ExpiringIdSet ids, boolean asyncAcknowledgements, Duration claimTimeout,
+                        PipelineMetrics metrics) {
+        this.ids = ids;
+        this.asyncAcknowledgements = asyncAcknowledgements;
+        this.claimTimeoutNanos = claimTimeout.toNanos();
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        PayloadHash id = id(message);
+        if (id == null) {
+            return message;
+        }
+        long now = System.nanoTime();
+        Long claimed = claims.putIfAbsent(id, now);
+        if (claimed != null && (now - claimed < claimTimeoutNanos || !claims.replace(id, claimed, now))) {
+            throw SEND_IN_PROGRESS;
+        }
+        // acknowledged identities are remembered before their claims are released, so they are not missed here
+        if (ids.contains(id)) {
+            claims.remove(id, now);
+            log.debug("Dropping duplicate of request with idempotency id '{}'",
+                    message.getHeaders().get(Headers.IDEMPOTENCY_ID));
+            metrics.duplicate();
+            return null;
+        }
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (ex != null) {
+            release(message);
+        } else if (sent && !asyncAcknowledgements) {
+            acknowledge(message);
+        }
+    }
+
+    /**
+     * Remembers identity of the message acknowledged by Kafka for the window.
+     */
+    public void acknowledge(Message<?> message) {
+        PayloadHash id = message == null ? null : id(message);
+        if (id != null) {
+            ids.add(id);
+            claims.remove(id);
+        }
+    }
+
+    /**
+     * Releases claim of the message identity, e.g. when sending it failed.
+     */
+    public void release(Message<?> message) {
+        PayloadHash id = message == null ? null : id(message);
+        if (id != null) {
+            claims.remove(id);
+        }
+    }
+
+    /**
+     * Forgets claims older than the claim timeout, which would never be released nor taken over.
+     */
+    void expireClaims() {
+        long now = System.nanoTime();
+        claims.values().removeIf(claimed -> now - claimed >= claimTimeoutNanos);
+    }
+
+    private static PayloadHash id(Message<?> message) {
+        String id = message.getHeaders().get(Headers.IDEMPOTENCY_ID, String.class);
+        return id == null ? null : PayloadHash.of(id);
+    }
+}
@@ -0,0 +1,205 @@
+package com.github.wpik.httpsource.dedup;
+
+import com.github.wpik.httpsource.PayloadHash;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Set of 128-bit identities, each remembered for at least the window and at most twice the window. Identities are
+ * kept in primitive arrays (open addressing with linear probing), so millions of them don't put pressure on GC.
+ * The set is split into independently locked segments, each holding two generations: identities are added to
+ * the current one, and when it gets older than the window (or full), the previous generation is dropped.
+ * <p>
+ * A full generation is dropped before the window passes, so identities are remembered for the window only while no
+ * more than the capacity of them arrive within it. Segments are sized with headroom for identities spreading unevenly
+ * over them, so that the capacity holds for the whole set, not only for the average segment.
+ */
+class ExpiringIdSet {
+
+    private static final int SEGMENT_BITS = 6;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    private final long windowNanos;
+
+    ExpiringIdSet(int capacity, Duration window) {
+        this.windowNanos = window.toNanos();
+        int average = capacity / segments.length + 1;
+        int segmentCapacity = Math.max(16, average + 4 * (int) Math.ceil(Math.sqrt(average)));
+        long now = System.nanoTime();
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(segmentCapacity, now);
+        }
+    }
+
+    /**
+     * @return true if the identity was added, false if it is already remembered
+     */
+    boolean add(PayloadHash id) {
+        return segment(id).add(id.high(), low(id), System.nanoTime());
+    }
+
+    boolean contains(PayloadHash id) {
+        return segment(id).contains(id.high(), low(id), System.nanoTime());
+    }
+
+    void remove(PayloadHash id) {
+        segment(id).remove(id.high(), low(id));
+    }
+
+    private Segment segment(PayloadHash id) {
+        return segments[(int) (id.low() >>> (64 - SEGMENT_BITS))];
+    }
+
+    /**
+     * (0, 0) marks empty slots, so it is stored as (0, 1).
+     */
+    private static long low(PayloadHash id) {
+        return id.high() == 0 && id.low() == 0 ? 1 : id.low();
+    }
+
+    private class Segment {
+
+        private final int capacity;
+
+        private Table current;
+
+        private Table previous;
+
+        private long generationStart;
+
+        Segment(int capacity, long now) {
+            this.capacity = capacity;
+            this.current = new Table(capacity);
+            this.previous = new Table(capacity);
+            this.generationStart = now;
+        }
+
+        synchronized boolean add(long high, long low, long now) {
+            expire(now);
+            if (current.contains(high, low) || previous.contains(high, low)) {
+                return false;
+            }
+            if (current.size >= capacity) {
+                rotate(now);
+            }
+            current.insert(high, low);
+            return true;
+        }
+
+        synchronized boolean contains(long high, long low, long now) {
+            expire(now);
+            return current.contains(high, low) || previous.contains(high, low);
+        }
+
+        synchronized void remove(long high, long low) {
+            current.remove(high, low);
+            previous.remove(high, low);
+        }
+
+        private void expire(long now) {
+            long age = now - generationStart;
+            if (age >= 2 * windowNanos) {
+                current.clear();
+                previous.clear();
+                generationStart = now;
+            } else if (age >= windowNanos) {
+                rotate(now);
+            }
+        }
+
+        private void rotate(long now) {
+            Table dropped = previous;
+            previous = current;
+            current = dropped;
+            current.clear();
+            generationStart = now;
+        }
+    }
+
+    private static final class Table {
+
+        private final long[] highs;
+
+        private final long[] lows;
+
+        private final int mask;
+
+        private int size;
+
+        Table(int capacity) {
+            int slots = Integer.highestOneBit(capacity * 2 - 1) << 1;
+            this.highs = new long[slots];
+            this.lows = new long[slots];
+            this.mask = slots - 1;
+        }
+
+        boolean contains(long high, long low) {
+            return find(high, low) >= 0;
+        }
+
+        /**
+         * Inserts identity which is not contained yet. Table is at most half full, so a free slot always exists.
+         */
+        void insert(long high, long low) {
+            int i = index(high);
+            while (!isEmpty(i)) {
+                i = (i + 1) & mask;
+            }
+            highs[i] = high;
+            lows[i] = low;
+            size++;
+        }
+
+        /**
+         * Removes identity, shifting back the following entries of the probe sequence, so that no tombstones are
+         * needed.
+         */
+        void remove(long high, long low) {
+            int gap = find(high, low);
+            if (gap < 0) {
+                return;
+            }
+            for (int j = (gap + 1) & mask; !isEmpty(j); j = (j + 1) & mask) {
+                int home = index(highs[j]);
+                boolean homeBetweenGapAndEntry = gap <= j
+                        ? gap < home && home <= j
+                        : gap < home || home <= j;
+                if (!homeBetweenGapAndEntry) {
+                    highs[gap] = highs[j];
+                    lows[gap] = lows[j];
+                    gap = j;
+                }
+            }
+            highs[gap] = 0;
+            lows[gap] = 0;
+            size--;
+        }
+
+        void clear() {
+            if (size > 0) {
+                Arrays.fill(highs, 0);
+                Arrays.fill(lows, 0);
+                size = 0;
+            }
+        }
+
+        private int find(long high, long low) {
+            for (int i = index(high); !isEmpty(i); i = (i + 1) & mask) {
+                if (highs[i] == high && lows[i] == low) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean isEmpty(int i) {
+            return highs[i] == 0 && lows[i] == 0;
+        }
+
+        private int index(long high) {
+            return (int) (high ^ (high >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.github.wpik.httpsource.dedup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wpik.httpsource.Headers;
+import com.github.wpik.httpsource.HttpSourceDedupProperties;
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.IngestionContext;
+import com.github.wpik.httpsource.IngestionStage;
+import com.github.wpik.httpsource.KeyNotFoundException;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.RejectionCause;
+import com.github.wpik.httpsource.json.JsonPathKeyExtractor;
+import com.github.wpik.httpsource.pojo.PojoKeyExtractor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.StringUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Extracts request identity into {@link IngestionContext#getIdempotencyId()}, sent as {@link Headers#IDEMPOTENCY_ID}
+ * header. Identity derived from the body is extracted by one of the pipeline stages (so it is cached together with
+ * the key by validation cache), identity taken from the request header is extracted after the stages. Identity of
+ * batch request elements is set before the stages and is not extracted again.
+ */
+@Configuration
+public class IdempotencyIdExtractorConfig {
+
+    public static final String BODY_ID_EXTRACTOR_BEAN_NAME = "bodyIdempotencyIdExtractor";
+
+    public static final String REQUEST_ID_EXTRACTOR_BEAN_NAME = "requestIdempotencyIdExtractor";
+
+    private static final int CONTENT_ID_BYTES = 16;
+
+    private static final int CONTENT_ID_CHUNK_SIZE = 4096;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final RejectedRequestException ID_NOT_EXTRACTED =
+            new RejectedRequestException(HttpStatus.BAD_REQUEST, RejectionCause.IDEMPOTENCY_ID_NOT_EXTRACTED,
+                    "Couldn't extract idempotency id from request");
+
+    private static final RejectedRequestException ID_EMPTY =
+            new RejectedRequestException(HttpStatus.BAD_REQUEST, RejectionCause.IDEMPOTENCY_ID_NOT_EXTRACTED,
+                    "Idempotency id of the request is empty");
+
+    @Bean(BODY_ID_EXTRACTOR_BEAN_NAME)
+    IngestionStage bodyIdempotencyIdExtractor(HttpSourceProperties httpSourceProperties, ObjectMapper objectMapper) {
+        HttpSourceDedupProperties properties = httpSourceProperties.getDedup();
+        if (properties.getIdSource() == null) {
+            return IngestionStage.NONE;
+        }
+        switch (properties.getIdSource()) {
+            case JSON_PATH: {
+                JsonPathKeyExtractor extractor =
+                        new JsonPathKeyExtractor(requireExpression(properties), objectMapper);
+                return stage(context -> extract(context, extractor::extract));
+            }
+            case POJO: {
+                if (httpSourceProperties.getPojo().getClassName() == null) {
+                    throw new IllegalStateException("Extracting idempotency id using POJO requires "
+                            + "http.pojo.class-name to be set");
+                }
+                PojoKeyExtractor extractor = new PojoKeyExtractor(requireExpression(properties),
+                        httpSourceProperties.getPojo().getKeyCompilerMode());
+                return stage(context -> extract(context.getDeserializedObject(), extractor::extract));
+            }
+            case CONTENT:
+                return stage(context -> contentId(context.getPayload()));
+            default:
+                return IngestionStage.NONE;
+        }
+    }
+
+    @Bean(REQUEST_ID_EXTRACTOR_BEAN_NAME)
+    IngestionStage requestIdempotencyIdExtractor(HttpSourceProperties httpSourceProperties) {
+        HttpSourceDedupProperties properties = httpSourceProperties.getDedup();
+        if (properties.getIdSource() != HttpSourceDedupProperties.IdSource.HEADER) {
+            return IngestionStage.NONE;
+        }
+        String headerName = properties.getHeaderName();
+        return stage(context -> header(context.getHeaders(), headerName));
+    }
+
+    private static IngestionStage stage(Function<IngestionContext, String> idExtractor) {
+        return context -> {
+            if (context.getIdempotencyId() == null) {
+                context.setIdempotencyId(idExtractor.apply(context));
+            }
+        };
+    }
+
+    /**
+     * Header names are case insensitive in HTTP, but not in the message headers they are mapped to.
+     *
+     * @return value of the request header, or null when the header is missing or empty
+     */
+    public static String header(MessageHeaders headers, String name) {
+        Object value = headers.get(name);
+        if (value == null) {
+            for (Map.Entry<String, Object> header : headers.entrySet()) {
+                if (header.getKey().equalsIgnoreCase(name)) {
+                    value = header.getValue();
+                    break;
+                }
+            }
+        }
+        String id = value == null ? null : value.toString();
+        return StringUtils.hasLength(id) ? id : null;
+    }
+
+    /**
+     * SHA-256 of the body, UTF-8 encoded, truncated to 128 bits. Unlike {@link com.github.wpik.httpsource.PayloadHash}
+     * collisions can't be crafted, and the id is the same in every instance of the source, as it leaves the source in
+     * the header. Text body is encoded in chunks, without copying it whole.
+     */
+    static String contentId(Object payload) {
+        MessageDigest digest = sha256();
+        if (payload instanceof byte[]) {
+            digest.update((byte[]) payload);
+        } else {
+            CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer text = CharBuffer.wrap(payload.toString());
+            ByteBuffer chunk = ByteBuffer.allocate(CONTENT_ID_CHUNK_SIZE);
+            CoderResult result;
+            do {
+                result = encoder.encode(text, chunk, true);
+                chunk.flip();
+                digest.update(chunk);
+                chunk.clear();
+            } while (result.isOverflow());
+            encoder.flush(chunk);
+            chunk.flip();
+            digest.update(chunk);
+        }
+        byte[] hash = digest.digest();
+        char[] id = new char[CONTENT_ID_BYTES * 2];
+        for (int i = 0; i < CONTENT_ID_BYTES; i++) {
+            id[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0xf];
+            id[2 * i + 1] = HEX_DIGITS[hash[i] & 0xf];
+        }
+        return new String(id);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported by every Java platform", e);
+        }
+    }
+
+    private static String requireExpression(HttpSourceDedupProperties properties) {
+        if (!StringUtils.hasText(properties.getExpression())) {
+            throw new IllegalStateException(String.format("Extracting idempotency id using %s requires %s to be set",
+                    properties.getIdSource(), HttpSourceDedupProperties.HTTP_DEDUP_EXPRESSION));
+        }
+        return properties.getExpression();
+    }
+
+    private static <T> String extract(T source, Function<T, byte[]> extractor) {
+        byte[] id;
+        try {
+            id = extractor.apply(source);
+        } catch (KeyNotFoundException e) {
+            throw ID_NOT_EXTRACTED;
+        } catch (RejectedRequestException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw ID_NOT_EXTRACTED;
+        }
+        if (id == null || id.length == 0) {
+            throw ID_EMPTY;
+        }
+        return new String(id, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,1124 @@
+package com.github.wpik.httpsource.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * JSON Schema (draft 4 to 7 validation keywords) engine compiling the schema once into a tree of constraints, which
+ * are evaluated directly over the parsed Jackson tree. Validation of a valid document allocates little more than
+ * the JSON Pointers of visited properties and array items; messages are formatted only for violations.
+ * <p>
+ * When fail fast is enabled validation stops at the first violation, otherwise all violations are reported.
+ * Only local references ({@code #} and {@code #/definitions/...}) are supported; unknown keywords are ignored, and so
+ * are formats not listed by {@link JsonSchemaFormats}. Numbers are compared by their value, so {@code 1} equals
+ * {@code 1.0} in {@code enum}, {@code const} and {@code uniqueItems}, and limits are exact for big integers and
+ * decimals.
+ */
+class CompiledJsonSchemaValidator implements JsonSchemaValidator {
+
+    private static final Constraint[] NO_CONSTRAINTS = new Constraint[0];
+
+    private final Constraint root;
+
+    private final boolean failFast;
+
+    CompiledJsonSchemaValidator(JsonNode schema, boolean failFast) {
+        this.root = new Compiler(schema).compileRoot();
+        this.failFast = failFast;
+    }
+
+    @Override
+    public List<String> validate(JsonNode document) {
+        Violations violations = new Violations(failFast);
+        root.validate(document, Pointer.ROOT, violations);
+        return violations.messages();
+    }
+
+    private static boolean isValid(Constraint constraint, JsonNode node) {
+        Violations violations = new Violations(true);
+        constraint.validate(node, Pointer.ROOT, violations);
+        return violations.isEmpty();
+    }
+
+    private static String typeOf(JsonNode node) {
+        switch (node.getNodeType()) {
+            case OBJECT:
+                return "object";
+            case ARRAY:
+                return "array";
+            case STRING:
+                return "string";
+            case NUMBER:
+                return isInteger(node) ? "integer" : "number";
+            case BOOLEAN:
+                return "boolean";
+            default:
+                return "null";
+        }
+    }
+
+    private static boolean isFinite(JsonNode node) {
+        return !(node.isDouble() || node.isFloat()) || Double.isFinite(node.doubleValue());
+    }
+
+    /**
+     * Compares numbers by their value, as longs when both are integers in range, otherwise as decimals.
+     */
+    private static int compareNumbers(JsonNode a, JsonNode b) {
+        if (a.isIntegralNumber() && b.isIntegralNumber() && a.canConvertToLong() && b.canConvertToLong()) {
+            return Long.compare(a.longValue(), b.longValue());
+        }
+        if (!isFinite(a) || !isFinite(b)) {
+            return Double.compare(a.doubleValue(), b.doubleValue());
+        }
+        return a.decimalValue().compareTo(b.decimalValue());
+    }
+
+    /**
+     * Equality of JSON values as defined by JSON Schema: numbers are equal when their values are.
+     */
+    private static boolean jsonEquals(JsonNode a, JsonNode b) {
+        if (a.isNumber() && b.isNumber()) {
+            return compareNumbers(a, b) == 0;
+        }
+        if (a.isArray() && b.isArray()) {
+            if (a.size() != b.size()) {
+                return false;
+            }
+            for (int i = 0; i < a.size(); i++) {
+                if (!jsonEquals(a.get(i), b.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a.isObject() && b.isObject()) {
+            if (a.size() != b.size()) {
+                return false;
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = a.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode other = b.get(field.getKey());
+                if (other == null || !jsonEquals(field.getValue(), other)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return a.equals(b);
+    }
+
+    private static int jsonHashCode(JsonNode node) {
+        if (node.isNumber()) {
+            if (!isFinite(node)) {
+                return Double.hashCode(node.doubleValue());
+            }
+            BigDecimal value = node.decimalValue();
+            return value.signum() == 0 ? 0 : value.stripTrailingZeros().hashCode();
+        }
+        if (node.isArray()) {
+            int hash = 1;
+            for (JsonNode item : node) {
+                hash = 31 * hash + jsonHashCode(item);
+            }
+            return hash;
+        }
+        if (node.isObject()) {
+            int hash = 0;
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                hash += field.getKey().hashCode() ^ jsonHashCode(field.getValue());
+            }
+            return hash;
+        }
+        return node.hashCode();
+    }
+
+    private static boolean isInteger(JsonNode node) {
+        if (node.isIntegralNumber()) {
+            return true;
+        }
+        if (node.isDouble() || node.isFloat()) {
+            double value = node.doubleValue();
+            return value == Math.rint(value) && !Double.isInfinite(value);
+        }
+        return node.isNumber() && node.decimalValue().stripTrailingZeros().scale() <= 0;
+    }
+
+    /**
+     * Compiles schema keywords into constraints. Local references are compiled after the schema containing them,
+     * so recursive schemas are supported.
+     */
+    private static class Compiler {
+
+        private final JsonNode rootSchema;
+
+        private final Map<String, Reference> references = new HashMap<>();
+
+        private final Deque<Reference> unresolved = new ArrayDeque<>();
+
+        Compiler(JsonNode rootSchema) {
+            this.rootSchema = rootSchema;
+        }
+
+        Constraint compileRoot() {
+            Constraint root = compile(rootSchema);
+            while (!unresolved.isEmpty()) {
+                Reference reference = unresolved.poll();
+                String pointer = reference.ref.substring(1);
+                JsonNode target = pointer.isEmpty() ? rootSchema : rootSchema.at(pointer);
+                if (target.isMissingNode()) {
+                    throw new IllegalArgumentException(String.format("Unresolvable JSON Schema reference '%s'",
+                            reference.ref));
+                }
+                reference.target = compile(target);
+            }
+            for (Reference reference : references.values()) {
+                checkCycles(reference, reference, new HashSet<>());
+            }
+            return root;
+        }
+
+        /**
+         * Rejects references which lead back to themselves without descending into the validated value, e.g.
+         * {@code {"$ref": "#"}} at the root, as validation against them would never end.
+         */
+        private static void checkCycles(Reference reference, Constraint constraint, Set<Constraint> visited) {
+            if (!visited.add(constraint)) {
+                return;
+            }
+            for (Constraint applied : constraint.applied()) {
+                if (applied == reference) {
+                    throw new IllegalArgumentException(String.format(
+                            "JSON Schema reference '%s' refers to itself", reference.ref));
+                }
+                checkCycles(reference, applied, visited);
+            }
+        }
+
+        private Constraint compile(JsonNode schema) {
+            if (schema.isBoolean()) {
+                return schema.booleanValue() ? AnyValue.INSTANCE : NoValue.INSTANCE;
+            }
+            if (!schema.isObject()) {
+                throw new IllegalArgumentException("JSON Schema must be an object or boolean, found: " + schema);
+            }
+            if (schema.has("$ref")) {
+                return reference(schema.get("$ref").textValue());
+            }
+
+            List<Constraint> constraints = new ArrayList<>();
+            if (schema.has("type")) {
+                constraints.add(new Type(textValues(schema.get("type"))));
+            }
+            if (schema.has("enum")) {
+                constraints.add(new Enum(schema.get("enum")));
+            }
+            if (schema.has("const")) {
+                constraints.add(new Const(schema.get("const")));
+            }
+            addObjectConstraints(schema, constraints);
+            addArrayConstraints(schema, constraints);
+            addNumberConstraints(schema, constraints);
+            addStringConstraints(schema, constraints);
+            addCombiningConstraints(schema, constraints);
+            if (constraints.isEmpty()) {
+                return AnyValue.INSTANCE;
+            }
+            return constraints.size() == 1
+                    ? constraints.get(0)
+                    : new AllOf(constraints.toArray(new Constraint[0]));
+        }
+
+        private Constraint reference(String ref) {
+            if (ref == null || !ref.startsWith("#")) {
+                throw new IllegalArgumentException(String.format(
+                        "Only local JSON Schema references are supported, found: '%s'", ref));
+            }
+            return references.computeIfAbsent(ref, r -> {
+                Reference reference = new Reference(r);
+                unresolved.add(reference);
+                return reference;
+            });
+        }
+
+        private void addObjectConstraints(JsonNode schema, List<Constraint> constraints) {
+            if (schema.has("required") && schema.get("required").size() > 0) {
+                constraints.add(new Required(textValues(schema.get("required"))));
+            }
+            if (schema.has("properties") || schema.has("patternProperties")
+                    || schema.has("additionalProperties")) {
+                Map<String, Constraint> properties = new LinkedHashMap<>();
+                schema.path("properties").fields()
+                        .forEachRemaining(field -> properties.put(field.getKey(), compile(field.getValue())));
+                List<Pattern> patterns = new ArrayList<>();
+                List<Constraint> patternConstraints = new ArrayList<>();
+                schema.path("patternProperties").fields().forEachRemaining(field -> {
+                    patterns.add(Pattern.compile(field.getKey()));
+                    patternConstraints.add(compile(field.getValue()));
+                });
+                JsonNode additional = schema.get("additionalProperties");
+                constraints.add(new Properties(properties,
+                        patterns.toArray(new Pattern[0]), patternConstraints.toArray(new Constraint[0]),
+                        additional == null ? null : compile(additional)));
+            }
+            if (schema.has("propertyNames")) {
+                constraints.add(new PropertyNames(compile(schema.get("propertyNames"))));
+            }
+            if (schema.has("minProperties") || schema.has("maxProperties")) {
+                constraints.add(new PropertyCount(schema.path("minProperties").asInt(0),
+                        schema.path("maxProperties").asInt(Integer.MAX_VALUE)));
+            }
+            if (schema.has("dependencies")) {
+                Map<String, Constraint> dependencies = new LinkedHashMap<>();
+                schema.get("dependencies").fields().forEachRemaining(field -> dependencies.put(field.getKey(),
+                        field.getValue().isArray()
+                                ? new Required(textValues(field.getValue()))
+                                : compile(field.getValue())));
+                constraints.add(new Dependencies(dependencies));
+            }
+        }
+
+        private void addArrayConstraints(JsonNode schema, List<Constraint> constraints) {
+            JsonNode items = schema.get("items");
+            if (items != null && items.isArray()) {
+                List<Constraint> tuple = new ArrayList<>();
+                items.forEach(item -> tuple.add(compile(item)));
+                JsonNode additional = schema.get("additionalItems");
+                constraints.add(new TupleItems(tuple.toArray(new Constraint[0]),
+                        additional == null ? null : compile(additional)));
+            } else if (items != null) {
+                constraints.add(new Items(compile(items)));
+            }
+            if (schema.has("contains")) {
+                constraints.add(new Contains(compile(schema.get("contains"))));
+            }
+            if (schema.has("minItems") || schema.has("maxItems")) {
+                constraints.add(new ItemCount(schema.path("minItems").asInt(0),
+                        schema.path("maxItems").asInt(Integer.MAX_VALUE)));
+            }
+            if (schema.path("uniqueItems").asBoolean(false)) {
+                constraints.add(UniqueItems.INSTANCE);
+            }
+        }
+
+        private void addNumberConstraints(JsonNode schema, List<Constraint> constraints) {
+            JsonNode minimum = schema.get("minimum");
+            JsonNode exclusiveMinimum = schema.get("exclusiveMinimum");
+            if (minimum != null) {
+                constraints.add(new Minimum(minimum, exclusiveMinimum != null && exclusiveMinimum.asBoolean(false)));
+            }
+            if (exclusiveMinimum != null && exclusiveMinimum.isNumber()) {
+                constraints.add(new Minimum(exclusiveMinimum, true));
+            }
+            JsonNode maximum = schema.get("maximum");
+            JsonNode exclusiveMaximum = schema.get("exclusiveMaximum");
+            if (maximum != null) {
+                constraints.add(new Maximum(maximum, exclusiveMaximum != null && exclusiveMaximum.asBoolean(false)));
+            }
+            if (exclusiveMaximum != null && exclusiveMaximum.isNumber()) {
+                constraints.add(new Maximum(exclusiveMaximum, true));
+            }
+            if (schema.has("multipleOf")) {
+                constraints.add(new MultipleOf(schema.get("multipleOf").decimalValue()));
+            }
+        }
+
+        private void addStringConstraints(JsonNode schema, List<Constraint> constraints) {
+            if (schema.has("minLength") || schema.has("maxLength")) {
+                constraints.add(new Length(schema.path("minLength").asInt(0),
+                        schema.path("maxLength").asInt(Integer.MAX_VALUE)));
+            }
+            if (schema.has("pattern")) {
+                constraints.add(new StringPattern(Pattern.compile(schema.get("pattern").textValue())));
+            }
+            String format = schema.path("format").textValue();
+            Predicate<String> check = format == null ? null : JsonSchemaFormats.get(format);
+            if (check != null) {
+                constraints.add(new Format(format, check));
+            }
+        }
+
+        private void addCombiningConstraints(JsonNode schema, List<Constraint> constraints) {
+            if (schema.has("allOf")) {
+                constraints.add(new AllOf(compileAll(schema.get("allOf"))));
+            }
+            if (schema.has("anyOf")) {
+                constraints.add(new AnyOf(compileAll(schema.get("anyOf"))));
+            }
+            if (schema.has("oneOf")) {
+                constraints.add(new OneOf(compileAll(schema.get("oneOf"))));
+            }
+            if (schema.has("not")) {
+                constraints.add(new Not(compile(schema.get("not"))));
+            }
+            if (schema.has("if")) {
+                constraints.add(new IfThenElse(compile(schema.get("if")),
+                        schema.has("then") ? compile(schema.get("then")) : AnyValue.INSTANCE,
+                        schema.has("else") ? compile(schema.get("else")) : AnyValue.INSTANCE));
+            }
+        }
+
+        private Constraint[] compileAll(JsonNode schemas) {
+            List<Constraint> compiled = new ArrayList<>();
+            schemas.forEach(schema -> compiled.add(compile(schema)));
+            return compiled.toArray(new Constraint[0]);
+        }
+
+        private static String[] textValues(JsonNode node) {
+            if (node.isTextual()) {
+                return new String[]{node.textValue()};
+            }
+            List<String> values = new ArrayList<>();
+            node.forEach(value -> values.add(value.textValue()));
+            return values.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * JSON Pointer of the validated value, turned into text only when reporting violations.
+     */
+    private static final class Pointer {
+
+        static final Pointer ROOT = new Pointer(null, null, -1);
+
+        private final Pointer parent;
+
+        private final String property;
+
+        private final int index;
+
+        private Pointer(Pointer parent, String property, int index) {
+            this.parent = parent;
+            this.property = property;
+            this.index = index;
+        }
+
+        Pointer property(String property) {
+            return new Pointer(this, property, -1);
+        }
+
+        Pointer index(int index) {
+            return new Pointer(this, null, index);
+        }
+
+        @Override
+        public String toString() {
+            if (parent == null) {
+                return "#";
+            }
+            String segment = property != null
+                    ? property.replace("~", "~0").replace("/", "~1")
+                    : String.valueOf(index);
+            return parent.toString() + "/" + segment;
+        }
+    }
+
+    private static final class Violations {
+
+        private final boolean failFast;
+
+        private List<String> messages = Collections.emptyList();
+
+        Violations(boolean failFast) {
+            this.failFast = failFast;
+        }
+
+        void add(Pointer pointer, String message) {
+            if (messages.isEmpty()) {
+                messages = new ArrayList<>();
+            }
+            messages.add(pointer + ": " + message);
+        }
+
+        boolean stop() {
+            return failFast && !messages.isEmpty();
+        }
+
+        boolean isEmpty() {
+            return messages.isEmpty();
+        }
+
+        List<String> messages() {
+            return messages;
+        }
+    }
+
+    private interface Constraint {
+        void validate(JsonNode node, Pointer pointer, Violations violations);
+
+        /**
+         * @return constraints applied to the same value, followed when checking references for cycles
+         */
+        default Constraint[] applied() {
+            return NO_CONSTRAINTS;
+        }
+    }
+
+    /**
+     * JSON value with equality of {@link #jsonEquals(JsonNode, JsonNode)}, for hash based lookups.
+     */
+    private static final class JsonValue {
+
+        private final JsonNode node;
+
+        private final int hash;
+
+        JsonValue(JsonNode node) {
+            this.node = node;
+            this.hash = jsonHashCode(node);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof JsonValue && jsonEquals(node, ((JsonValue) other).node);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class AnyValue implements Constraint {
+
+        static final AnyValue INSTANCE = new AnyValue();
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+        }
+    }
+
+    private static final class NoValue implements Constraint {
+
+        static final NoValue INSTANCE = new NoValue();
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            violations.add(pointer, "no value is permitted by schema");
+        }
+    }
+
+    private static final class Reference implements Constraint {
+
+        private final String ref;
+
+        private Constraint target;
+
+        Reference(String ref) {
+            this.ref = ref;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            target.validate(node, pointer, violations);
+        }
+
+        @Override
+        public Constraint[] applied() {
+            return new Constraint[]{target};
+        }
+    }
+
+    private static final class Type implements Constraint {
+
+        private final String[] types;
+
+        Type(String[] types) {
+            this.types = types;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            for (String type : types) {
+                if (matches(type, node)) {
+                    return;
+                }
+            }
+            violations.add(pointer, String.format("expected type: %s, found: %s",
+                    String.join(" or ", types), typeOf(node)));
+        }
+
+        private static boolean matches(String type, JsonNode node) {
+            switch (type) {
+                case "object":
+                    return node.isObject();
+                case "array":
+                    return node.isArray();
+                case "string":
+                    return node.isTextual();
+                case "number":
+                    return node.isNumber();
+                case "integer":
+                    return node.isNumber() && isInteger(node);
+                case "boolean":
+                    return node.isBoolean();
+                case "null":
+                    return node.isNull();
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private static final class Enum implements Constraint {
+
+        private final Set<JsonValue> values = new HashSet<>();
+
+        Enum(JsonNode values) {
+            values.forEach(value -> this.values.add(new JsonValue(value)));
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!values.contains(new JsonValue(node))) {
+                violations.add(pointer, String.format("%s is not a valid enum value", node));
+            }
+        }
+    }
+
+    private static final class Const implements Constraint {
+
+        private final JsonNode value;
+
+        Const(JsonNode value) {
+            this.value = value;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!jsonEquals(value, node)) {
+                violations.add(pointer, String.format("%s is not equal to %s", node, value));
+            }
+        }
+    }
+
+    private static final class Required implements Constraint {
+
+        private final String[] names;
+
+        Required(String[] names) {
+            this.names = names;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!node.isObject()) {
+                return;
+            }
+            for (String name : names) {
+                if (!node.has(name)) {
+                    violations.add(pointer, String.format("required key [%s] not found", name));
+                    if (violations.stop()) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Properties implements Constraint {
+
+        private final Map<String, Constraint> properties;
+
+        private final Pattern[] patterns;
+
+        private final Constraint[] patternConstraints;
+
+        private final Constraint additional;
+
+        Properties(Map<String, Constraint> properties, Pattern[] patterns, Constraint[] patternConstraints,
+                   Constraint additional) {
+            this.properties = properties;
+            this.patterns = patterns;
+            this.patternConstraints = patternConstraints;
+            this.additional = additional;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!node.isObject()) {
+                return;
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext() && !violations.stop()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String name = field.getKey();
+                boolean matched = false;
+                Constraint property = properties.get(name);
+                if (property != null) {
+                    matched = true;
+                    property.validate(field.getValue(), pointer.property(name), violations);
+                }
+                for (int i = 0; i < patterns.length && !violations.stop(); i++) {
+                    if (patterns[i].matcher(name).find()) {
+                        matched = true;
+                        patternConstraints[i].validate(field.getValue(), pointer.property(name), violations);
+                    }
+                }
+                if (!matched && additional != null && !violations.stop()) {
+                    if (additional == NoValue.INSTANCE) {
+                        violations.add(pointer, String.format("extraneous key [%s] is not permitted", name));
+                    } else {
+                        additional.validate(field.getValue(), pointer.property(name), violations);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class PropertyNames implements Constraint {
+
+        private final Constraint names;
+
+        PropertyNames(Constraint names) {
+            this.names = names;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!node.isObject()) {
+                return;
+            }
+            Iterator<String> fieldNames = node.fieldNames();
+            while (fieldNames.hasNext() && !violations.stop()) {
+                String name = fieldNames.next();
+                if (!isValid(names, node.textNode(name))) {
+                    violations.add(pointer, String.format("property name [%s] is not valid", name));
+                }
+            }
+        }
+    }
+
+    private static final class PropertyCount implements Constraint {
+
+        private final int min;
+
+        private final int max;
+
+        PropertyCount(int min, int max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!node.isObject()) {
+                return;
+            }
+            if (node.size() < min) {
+                violations.add(pointer, String.format("minimum size: [%d], found: [%d]", min, node.size()));
+            } else if (node.size() > max) {
+                violations.add(pointer, String.format("maximum size: [%d], found: [%d]", max, node.size()));
+            }
+        }
+    }
+
+    private static final class Dependencies implements Constraint {
+
+        private final Map<String, Constraint> dependencies;
+
+        Dependencies(Map<String, Constraint> dependencies) {
+            this.dependencies = dependencies;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!node.isObject()) {
+                return;
+            }
+            for (Map.Entry<String, Constraint> dependency : dependencies.entrySet()) {
+                if (node.has(dependency.getKey())) {
+                    dependency.getValue().validate(node, pointer, violations);
+                    if (violations.stop()) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Constraint[] applied() {
+            return dependencies.values().toArray(NO_CONSTRAINTS);
+        }
+    }
+
+    private static final class Items implements Constraint {
+
+        private final Constraint items;
+
+        Items(Constraint items) {
+            this.items = items;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!node.isArray()) {
+                return;
+            }
+            for (int i = 0; i < node.size() && !violations.stop(); i++) {
+                items.validate(node.get(i), pointer.index(i), violations);
+            }
+        }
+    }
+
+    private static final class TupleItems implements Constraint {
+
+        private final Constraint[] items;
+
+        private final Constraint additional;
+
+        TupleItems(Constraint[] items, Constraint additional) {
+            this.items = items;
+            this.additional = additional;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!node.isArray()) {
+                return;
+            }
+            for (int i = 0; i < node.size() && !violations.stop(); i++) {
+                if (i < items.length) {
+                    items[i].validate(node.get(i), pointer.index(i), violations);
+                } else if (additional == NoValue.INSTANCE) {
+                    violations.add(pointer, String.format("expected at most %d items, found: %d",
+                            items.length, node.size()));
+                    return;
+                } else if (additional != null) {
+                    additional.validate(node.get(i), pointer.index(i), violations);
+                }
+            }
+        }
+    }
+
+    private static final class Contains implements Constraint {
+
+        private final Constraint contains;
+
+        Contains(Constraint contains) {
+            this.contains = contains;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!node.isArray()) {
+                return;
+            }
+            for (JsonNode item : node) {
+                if (isValid(contains, item)) {
+                    return;
+                }
+            }
+            violations.add(pointer, "expected at least one array item to match 'contains' schema");
+        }
+    }
+
+    private static final class ItemCount implements Constraint {
+
+        private final int min;
+
+        private final int max;
+
+        ItemCount(int min, int max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!node.isArray()) {
+                return;
+            }
+            if (node.size() < min) {
+                violations.add(pointer, String.format("expected minimum item count: %d, found: %d",
+                        min, node.size()));
+            } else if (node.size() > max) {
+                violations.add(pointer, String.format("expected maximum item count: %d, found: %d",
+                        max, node.size()));
+            }
+        }
+    }
+
+    private static final class UniqueItems implements Constraint {
+
+        static final UniqueItems INSTANCE = new UniqueItems();
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!node.isArray() || node.size() < 2) {
+                return;
+            }
+            Set<JsonValue> items = new HashSet<>();
+            for (JsonNode item : node) {
+                if (!items.add(new JsonValue(item))) {
+                    violations.add(pointer, "array items are not unique");
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Minimum implements Constraint {
+
+        private final JsonNode limit;
+
+        private final boolean exclusive;
+
+        Minimum(JsonNode limit, boolean exclusive) {
+            this.limit = limit;
+            this.exclusive = exclusive;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!node.isNumber()) {
+                return;
+            }
+            int comparison = compareNumbers(node, limit);
+            if (exclusive ? comparison <= 0 : comparison < 0) {
+                violations.add(pointer, String.format("%s is not %s %s",
+                        node, exclusive ? "greater than" : "greater or equal to", limit));
+            }
+        }
+    }
+
+    private static final class Maximum implements Constraint {
+
+        private final JsonNode limit;
+
+        private final boolean exclusive;
+
+        Maximum(JsonNode limit, boolean exclusive) {
+            this.limit = limit;
+            this.exclusive = exclusive;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!node.isNumber()) {
+                return;
+            }
+            int comparison = compareNumbers(node, limit);
+            if (exclusive ? comparison >= 0 : comparison > 0) {
+                violations.add(pointer, String.format("%s is not %s %s",
+                        node, exclusive ? "less than" : "less or equal to", limit));
+            }
+        }
+    }
+
+    private static final class MultipleOf implements Constraint {
+
+        private final BigDecimal divisor;
+
+        MultipleOf(BigDecimal divisor) {
+            this.divisor = divisor;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (node.isNumber() && (!isFinite(node) || node.decimalValue().remainder(divisor).signum() != 0)) {
+                violations.add(pointer, String.format("%s is not a multiple of %s", node, divisor));
+            }
+        }
+    }
+
+    private static final class Length implements Constraint {
+
+        private final int min;
+
+        private final int max;
+
+        Length(int min, int max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (!node.isTextual()) {
+                return;
+            }
+            String text = node.textValue();
+            int length = text.codePointCount(0, text.length());
+            if (length < min) {
+                violations.add(pointer, String.format("expected minLength: %d, actual: %d", min, length));
+            } else if (length > max) {
+                violations.add(pointer, String.format("expected maxLength: %d, actual: %d", max, length));
+            }
+        }
+    }
+
+    private static final class StringPattern implements Constraint {
+
+        private final Pattern pattern;
+
+        StringPattern(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (node.isTextual() && !pattern.matcher(node.textValue()).find()) {
+                violations.add(pointer, String.format("string [%s] does not match pattern %s",
+                        node.textValue(), pattern));
+            }
+        }
+    }
+
+    private static final class Format implements Constraint {
+
+        private final String format;
+
+        private final Predicate<String> check;
+
+        Format(String format, Predicate<String> check) {
+            this.format = format;
+            this.check = check;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (node.isTextual() && !check.test(node.textValue())) {
+                violations.add(pointer, String.format("[%s] is not a valid %s", node.textValue(), format));
+            }
+        }
+    }
+
+    private static final class AllOf implements Constraint {
+
+        private final Constraint[] constraints;
+
+        AllOf(Constraint[] constraints) {
+            this.constraints = constraints;
+        }
+
+        @Override
+        public Constraint[] applied() {
+            return constraints;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            for (Constraint constraint : constraints) {
+                constraint.validate(node, pointer, violations);
+                if (violations.stop()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class AnyOf implements Constraint {
+
+        private final Constraint[] constraints;
+
+        AnyOf(Constraint[] constraints) {
+            this.constraints = constraints;
+        }
+
+        @Override
+        public Constraint[] applied() {
+            return constraints;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            for (Constraint constraint : constraints) {
+                if (isValid(constraint, node)) {
+                    return;
+                }
+            }
+            violations.add(pointer, "value does not match any of 'anyOf' schemas");
+        }
+    }
+
+    private static final class OneOf implements Constraint {
+
+        private final Constraint[] constraints;
+
+        OneOf(Constraint[] constraints) {
+            this.constraints = constraints;
+        }
+
+        @Override
+        public Constraint[] applied() {
+            return constraints;
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            int matching = 0;
+            for (Constraint constraint : constraints) {
+                if (isValid(constraint, node)) {
+                    matching++;
+                }
+            }
+            if (matching != 1) {
+                violations.add(pointer, String.format("%d subschemas matched instead of one", matching));
+            }
+        }
+    }
+
+    private static final class Not implements Constraint {
+
+        private final Constraint constraint;
+
+        Not(Constraint constraint) {
+            this.constraint = constraint;
+        }
+
+        @Override
+        public Constraint[] applied() {
+            return new Constraint[]{constraint};
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            if (isValid(constraint, node)) {
+                violations.add(pointer, "subject must not be valid against 'not' schema");
+            }
+        }
+    }
+
+    private static final class IfThenElse implements Constraint {
+
+        private final Constraint condition;
+
+        private final Constraint then;
+
+        private final Constraint otherwise;
+
+        IfThenElse(Constraint condition, Constraint then, Constraint otherwise) {
+            this.condition = condition;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        public Constraint[] applied() {
+            return new Constraint[]{condition, then, otherwise};
+        }
+
+        @Override
+        public void validate(JsonNode node, Pointer pointer, Violations violations) {
+            (isValid(condition, node) ? then : otherwise).validate(node, pointer, violations);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.github.wpik.httpsource.json;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wpik.httpsource.HttpSourceDedupProperties;
+import com.github.wpik.httpsource.HttpSourceJsonProperties;
+import com.github.wpik.httpsource.HttpSourcePojoProperties;
+import com.github.wpik.httpsource.HttpSourceRateLimitProperties;
+import com.github.wpik.httpsource.HttpSourceRoutingProperties;
+import com.github.wpik.httpsource.IngestionContext;
+import com.github.wpik.httpsource.IngestionStage;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.RejectionCause;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Parses HTTP request body once into Jackson tree, which is then shared by all later stages (JSON Schema validation,
+ * POJO deserialization and JSON Path key extraction) via {@link IngestionContext#getJsonNode()}. Requests which
+ * already carry the tree (e.g. elements of batch requests) are not parsed again.
+ * <p>
+ * Simple JSON Path expressions (key, idempotency id, destination, rate limit key) are evaluated while streaming, when
+ * the tree is not needed otherwise. Each of them scans the whole body, so when more than one is configured the body
+ * is parsed once instead, see {@link MultipleStreamingScans}.
+ */
+@Configuration
+public class JsonParserConfig {
+
+    public static final String JSON_PARSER_BEAN_NAME = "jsonParser";
+
+    @Conditional(ParsingRequired.class)
+    @Bean(JSON_PARSER_BEAN_NAME)
+    IngestionStage jsonParser(ObjectMapper objectMapper) {
+        return parsingStage(objectMapper);
+    }
+
+    public static IngestionStage parsingStage(ObjectMapper objectMapper) {
+        return context -> {
+            if (context.getJsonNode() != null) {
+                return;
+            }
+            try {
+                context.setJsonNode(readTree(objectMapper, context.getPayload()));
+            } catch (JsonProcessingException e) {
+                throw new RejectedRequestException(HttpStatus.BAD_REQUEST, RejectionCause.MALFORMED_BODY,
+                        e.getOriginalMessage());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static JsonNode readTree(ObjectMapper objectMapper, Object payload) throws IOException {
+        return payload instanceof byte[]
+                ? objectMapper.readTree((byte[]) payload)
+                : objectMapper.readTree((String) payload);
+    }
+
+    @Conditional(ParsingNotRequired.class)
+    @Bean(JSON_PARSER_BEAN_NAME)
+    IngestionStage defaultJsonParser() {
+        return IngestionStage.NONE;
+    }
+
+    static class ParsingRequired extends AnyNestedCondition {
+
+        ParsingRequired() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(HttpSourceJsonProperties.HTTP_JSON_SCHEMA_LOCATION)
+        static class JsonSchemaValidation {
+        }
+
+        @Conditional(TreeBasedKeyExtraction.class)
+        static class JsonPathKeyExtraction {
+        }
+
+        @Conditional(TreeBasedIdempotencyIdExtraction.class)
+        static class JsonPathIdempotencyIdExtraction {
+        }
+
+        @Conditional(TreeBasedRouting.class)
+        static class JsonPathRouting {
+        }
+
+        @ConditionalOnProperty(HttpSourcePojoProperties.HTTP_POJO_CLASS_NAME)
+        static class PojoDeserialization {
+        }
+
+        @Conditional(MultipleStreamingScans.class)
+        static class StreamingScans {
+        }
+    }
+
+    /**
+     * JSON Path key extraction needs the tree, unless the expression can be evaluated while streaming.
+     */
+    static class TreeBasedKeyExtraction extends SpringBootCondition {
+
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            String expression = context.getEnvironment().getProperty(HttpSourceJsonProperties.HTTP_JSON_KEY_EXPRESSION);
+            if (expression == null) {
+                return ConditionOutcome.noMatch("JSON Path key expression is not set");
+            }
+            if (StreamingKeyScanner.supports(expression)) {
+                return ConditionOutcome.noMatch("JSON Path key expression can be evaluated while streaming");
+            }
+            return ConditionOutcome.match("JSON Path key expression requires parsed tree");
+        }
+    }
+
+    /**
+     * Same as {@link TreeBasedKeyExtraction}, for JSON Path extracting idempotency id.
+     */
+    static class TreeBasedIdempotencyIdExtraction extends SpringBootCondition {
+
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            String idSource = context.getEnvironment().getProperty(HttpSourceDedupProperties.HTTP_DEDUP_ID_SOURCE);
+            if (idSource == null || !"json-path".equalsIgnoreCase(idSource.replace('_', '-'))) {
+                return ConditionOutcome.noMatch("Idempotency id is not extracted using JSON Path");
+            }
+            String expression = context.getEnvironment().getProperty(HttpSourceDedupProperties.HTTP_DEDUP_EXPRESSION);
+            if (expression != null && StreamingKeyScanner.supports(expression)) {
+                return ConditionOutcome.noMatch("JSON Path idempotency id expression can be evaluated while streaming");
+            }
+            return ConditionOutcome.match("JSON Path idempotency id expression requires parsed tree");
+        }
+    }
+
+    /**
+     * Same as {@link TreeBasedKeyExtraction}, for JSON Path selecting destination. With POJO class set, destination
+     * is selected using SpEL and the tree is required for deserialization anyway.
+     */
+    static class TreeBasedRouting extends SpringBootCondition {
+
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            String expression =
+                    context.getEnvironment().getProperty(HttpSourceRoutingProperties.HTTP_ROUTING_EXPRESSION);
+            if (expression == null) {
+                return ConditionOutcome.noMatch("Routing expression is not set");
+            }
+            if (StreamingKeyScanner.supports(expression)) {
+                return ConditionOutcome.noMatch("Routing expression can be evaluated while streaming");
+            }
+            return ConditionOutcome.match("Routing expression requires parsed tree");
+        }
+    }
+
+    /**
+     * More than one stage would scan the body for a JSON Path expression: the key, the idempotency id, the destination
+     * and the rate limit key.
+     */
+    static class MultipleStreamingScans extends SpringBootCondition {
+
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            Environment environment = context.getEnvironment();
+            int scans = 0;
+            if (streams(environment.getProperty(HttpSourceJsonProperties.HTTP_JSON_KEY_EXPRESSION))) {
+                scans++;
+            }
+            if (isJsonPath(environment.getProperty(HttpSourceDedupProperties.HTTP_DEDUP_ID_SOURCE))
+                    && streams(environment.getProperty(HttpSourceDedupProperties.HTTP_DEDUP_EXPRESSION))) {
+                scans++;
+            }
+            if (streams(environment.getProperty(HttpSourceRoutingProperties.HTTP_ROUTING_EXPRESSION))) {
+                scans++;
+            }
+            if (isJsonPath(environment.getProperty(HttpSourceRateLimitProperties.HTTP_RATE_LIMIT_KEY_SOURCE))
+                    && streams(environment.getProperty(HttpSourceRateLimitProperties.HTTP_RATE_LIMIT_EXPRESSION))) {
+                scans++;
+            }
+            if (scans > 1) {
+                return ConditionOutcome.match(scans + " JSON Path expressions would scan the body, parsing it once");
+            }
+            return ConditionOutcome.noMatch("At most one JSON Path expression scans the body");
+        }
+
+        private static boolean isJsonPath(String source) {
+            return source != null && "json-path".equalsIgnoreCase(source.replace('_', '-'));
+        }
+
+        private static boolean streams(String expression) {
+            return expression != null && StreamingKeyScanner.supports(expression);
+        }
+    }
+
+    static class ParsingNotRequired extends NoneNestedConditions {
+
+        ParsingNotRequired() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @Conditional(ParsingRequired.class)
+        static class Required {
+        }
+    }
+}
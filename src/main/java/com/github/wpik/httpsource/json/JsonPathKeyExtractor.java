@@ -0,0 +1,107 @@
+package com.github.wpik.httpsource.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wpik.httpsource.HttpSourceJsonProperties;
+import com.github.wpik.httpsource.IngestionContext;
+import com.github.wpik.httpsource.KeyNotFoundException;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.RejectionCause;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.InvalidPathException;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
+import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Extracts key from already parsed request body using JSON Path expression compiled once, at creation time.
+ * When the body was not parsed (no other stage needs the tree) and the expression is a simple chain of properties,
+ * the key is extracted in a single pass over JSON tokens, see {@link StreamingKeyScanner}.
+ */
+@Slf4j
+public class JsonPathKeyExtractor {
+
+    private final JsonPath jsonPath;
+
+    private final Configuration configuration;
+
+    private final ObjectMapper objectMapper;
+
+    private final StreamingKeyScanner streamingKeyScanner;
+
+    private final KeyNotFoundException keyNotFound;
+
+    public JsonPathKeyExtractor(String expression, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.streamingKeyScanner = StreamingKeyScanner.forExpression(expression);
+        this.keyNotFound = new KeyNotFoundException(
+                String.format("Couldn't extract key from request using Json Path '%s'", expression));
+        try {
+            this.jsonPath = JsonPath.compile(expression);
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException(String.format("Invalid JSON Path expression '%s' set in '%s'",
+                    expression, HttpSourceJsonProperties.HTTP_JSON_KEY_EXPRESSION), e);
+        }
+        this.configuration = Configuration.builder()
+                .jsonProvider(new JacksonJsonNodeJsonProvider(objectMapper))
+                .mappingProvider(new JacksonMappingProvider(objectMapper))
+                .build();
+    }
+
+    /**
+     * @return whether the key can be extracted from not parsed request body, in a single pass over JSON tokens
+     */
+    public boolean isStreaming() {
+        return streamingKeyScanner != null;
+    }
+
+    public byte[] extract(IngestionContext context) {
+        JsonNode jsonNode = context.getJsonNode();
+        if (jsonNode != null || streamingKeyScanner == null) {
+            return extract(jsonNode);
+        }
+        return scan(context.getPayload());
+    }
+
+    byte[] extract(JsonNode payload) {
+        try {
+            Object key = jsonPath.read(payload, configuration);
+            if (key instanceof JsonNode) {
+                JsonNode keyNode = (JsonNode) key;
+                key = keyNode.isNull() ? null : keyNode.isValueNode() ? keyNode.asText() : keyNode.toString();
+            }
+            log.debug("Extracted key using json path expression is '{}'", key);
+            return key == null ? null : key.toString().getBytes();
+        } catch (PathNotFoundException e) {
+            log.debug("Couldn't extract key using json path expression: {}", e.getMessage());
+            throw keyNotFound;
+        }
+    }
+
+    private byte[] scan(Object payload) {
+        StreamingKeyScanner.Result result;
+        try (JsonParser parser = payload instanceof byte[]
+                ? objectMapper.getFactory().createParser((byte[]) payload)
+                : objectMapper.getFactory().createParser((String) payload)) {
+            result = streamingKeyScanner.scan(parser);
+        } catch (JsonProcessingException e) {
+            throw new RejectedRequestException(HttpStatus.BAD_REQUEST, RejectionCause.MALFORMED_BODY,
+                    e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!result.found) {
+            throw keyNotFound;
+        }
+        log.debug("Extracted key using json path expression is '{}'", result.key);
+        return result.key == null ? null : result.key.getBytes();
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.wpik.httpsource.json;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Checks of JSON Schema {@code format} keyword values of draft 7: {@code date-time}, {@code date}, {@code time},
+ * {@code email}, {@code hostname}, {@code ipv4}, {@code ipv6}, {@code uri}, {@code uri-reference},
+ * {@code json-pointer}, {@code relative-json-pointer} and {@code regex}. Other formats, e.g. the internationalized
+ * ones, are not checked, as the specification allows.
+ */
+final class JsonSchemaFormats {
+
+    private static final Pattern DATE = Pattern.compile("^(\\d{4})-(\\d{2})-(\\d{2})$");
+
+    private static final Pattern TIME =
+            Pattern.compile("^(\\d{2}):(\\d{2}):(\\d{2})(\\.\\d+)?([Zz]|[+-](\\d{2}):(\\d{2}))$");
+
+    private static final Pattern HOSTNAME_LABEL = Pattern.compile("^[A-Za-z0-9]([A-Za-z0-9-]{0,61}[A-Za-z0-9])?$");
+
+    private static final Pattern IPV4 =
+            Pattern.compile("^(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)(\\.(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)){3}$");
+
+    private static final Pattern IPV6_CHARACTERS = Pattern.compile("^[0-9A-Fa-f:][0-9A-Fa-f:.]*$");
+
+    private static final Pattern RELATIVE_JSON_POINTER = Pattern.compile("^(0|[1-9]\\d*)(#|(/([^~]|~[01])*)*)$");
+
+    private static final Map<String, Predicate<String>> FORMATS = new HashMap<>();
+
+    static {
+        FORMATS.put("date-time", JsonSchemaFormats::isDateTime);
+        FORMATS.put("date", JsonSchemaFormats::isDate);
+        FORMATS.put("time", JsonSchemaFormats::isTime);
+        FORMATS.put("email", JsonSchemaFormats::isEmail);
+        FORMATS.put("hostname", JsonSchemaFormats::isHostname);
+        FORMATS.put("ipv4", value -> IPV4.matcher(value).matches());
+        FORMATS.put("ipv6", JsonSchemaFormats::isIpv6);
+        FORMATS.put("uri", value -> isUri(value, true));
+        FORMATS.put("uri-reference", value -> isUri(value, false));
+        FORMATS.put("json-pointer", JsonSchemaFormats::isJsonPointer);
+        FORMATS.put("relative-json-pointer", value -> RELATIVE_JSON_POINTER.matcher(value).matches());
+        FORMATS.put("regex", JsonSchemaFormats::isRegex);
+    }
+
+    private JsonSchemaFormats() {
+    }
+
+    /**
+     * @return check of the format, or null when the format is not checked
+     */
+    static Predicate<String> get(String format) {
+        return FORMATS.get(format);
+    }
+
+    private static boolean isDateTime(String value) {
+        int separator = value.indexOf('T') >= 0 ? value.indexOf('T') : value.indexOf('t');
+        return separator > 0 && isDate(value.substring(0, separator)) && isTime(value.substring(separator + 1));
+    }
+
+    private static boolean isDate(String value) {
+        Matcher matcher = DATE.matcher(value);
+        if (!matcher.matches()) {
+            return false;
+        }
+        try {
+            LocalDate.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)),
+                    Integer.parseInt(matcher.group(3)));
+            return true;
+        } catch (DateTimeException e) {
+            return false;
+        }
+    }
+
+    private static boolean isTime(String value) {
+        Matcher matcher = TIME.matcher(value);
+        if (!matcher.matches()) {
+            return false;
+        }
+        boolean valid = Integer.parseInt(matcher.group(1)) < 24
+                && Integer.parseInt(matcher.group(2)) < 60
+                && Integer.parseInt(matcher.group(3)) <= 60;
+        if (matcher.group(6) != null) {
+            valid &= Integer.parseInt(matcher.group(6)) < 24 && Integer.parseInt(matcher.group(7)) < 60;
+        }
+        return valid;
+    }
+
+    private static boolean isEmail(String value) {
+        int at = value.lastIndexOf('@');
+        if (at <= 0 || at == value.length() - 1) {
+            return false;
+        }
+        String local = value.substring(0, at);
+        String domain = value.substring(at + 1);
+        return !local.startsWith(".") && !local.endsWith(".") && !local.contains("..")
+                && local.chars().noneMatch(c -> Character.isWhitespace(c) || c == '@')
+                && domain.chars().noneMatch(Character::isWhitespace);
+    }
+
+    private static boolean isHostname(String value) {
+        String hostname = value.endsWith(".") ? value.substring(0, value.length() - 1) : value;
+        if (hostname.isEmpty() || hostname.length() > 253) {
+            return false;
+        }
+        for (String label : hostname.split("\\.", -1)) {
+            if (!HOSTNAME_LABEL.matcher(label).matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Literal starting with colon or hexadecimal digit and containing a colon is parsed by {@link InetAddress} without
+     * name lookup.
+     */
+    private static boolean isIpv6(String value) {
+        if (value.indexOf(':') < 0 || !IPV6_CHARACTERS.matcher(value).matches()) {
+            return false;
+        }
+        try {
+            return InetAddress.getByName(value) != null;
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private static boolean isUri(String value, boolean absolute) {
+        try {
+            URI uri = new URI(value);
+            return !absolute || uri.isAbsolute();
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    private static boolean isJsonPointer(String value) {
+        if (!value.isEmpty() && value.charAt(0) != '/') {
+            return false;
+        }
+        for (int i = value.indexOf('~'); i >= 0; i = value.indexOf('~', i + 1)) {
+            if (i == value.length() - 1 || (value.charAt(i + 1) != '0' && value.charAt(i + 1) != '1')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isRegex(String value) {
+        try {
+            Pattern.compile(value);
+            return true;
+        } catch (PatternSyntaxException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.wpik.httpsource.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * Validates parsed HTTP request body against JSON Schema.
+ * Define a bean of this type to replace the default, {@link CompiledJsonSchemaValidator} engine.
+ */
+public interface JsonSchemaValidator {
+
+    /**
+     * @return messages describing violations of the schema, empty when the document is valid
+     */
+    List<String> validate(JsonNode document);
+}
@@ -1,21 +1,28 @@
 package com.github.wpik.httpsource.json;
 
-import com.github.wpik.httpsource.HttpSourceApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.wpik.httpsource.HttpSourceJsonProperties;
 import com.github.wpik.httpsource.HttpSourceProperties;
-import org.everit.json.schema.Schema;
-import org.everit.json.schema.ValidationException;
-import org.everit.json.schema.loader.SchemaLoader;
-import org.json.JSONObject;
-import org.json.JSONTokener;
+import com.github.wpik.httpsource.IngestionStage;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.RejectionCause;
+import com.github.wpik.httpsource.cache.ValidationCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.http.HttpStatus;
-import org.springframework.integration.handler.GenericHandler;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.ResourceUtils;
 
-import java.io.InputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 
 @Configuration
 public class JsonSchemaValidatorConfig {
@@ -23,30 +30,69 @@ public class JsonSchemaValidatorConfig {
     public static final String JSON_SCHEMA_VALIDATOR_BEAN_NAME = "jsonSchemaValidator";
 
     @ConditionalOnProperty(HttpSourceJsonProperties.HTTP_JSON_SCHEMA_LOCATION)
+    @ConditionalOnMissingBean(JsonSchemaValidator.class)
     @Bean
-    Schema jsonSchema(HttpSourceProperties httpSourceProperties) {
-        String schemaLocation = httpSourceProperties.getJson().getSchemaLocation();
-        InputStream schemaStream = HttpSourceApplication.class.getResourceAsStream(schemaLocation);
-        JSONObject jsonSchema = new JSONObject(new JSONTokener(schemaStream));
-        return SchemaLoader.load(jsonSchema);
+    JsonSchemaValidator jsonSchema(
+            HttpSourceProperties httpSourceProperties,
+            ObjectMapper objectMapper,
+            ResourceLoader resourceLoader,
+            @Qualifier(IntegrationContextUtils.TASK_SCHEDULER_BEAN_NAME) TaskScheduler taskScheduler,
+            ObjectProvider<ValidationCache> validationCacheProvider) throws IOException {
+        HttpSourceJsonProperties jsonProperties = httpSourceProperties.getJson();
+        return schemaValidator(jsonProperties.getSchemaLocation(), jsonProperties, objectMapper, resourceLoader,
+                taskScheduler, () -> validationCacheProvider.ifAvailable(ValidationCache::invalidateAll));
+    }
+
+    /**
+     * Compiles the schema, reloading it periodically when {@link HttpSourceJsonProperties#getSchemaReloadInterval()}
+     * is set. Used also for schemas of routes.
+     *
+     * @param reloadListener notified when the reloaded schema is in use
+     */
+    public static JsonSchemaValidator schemaValidator(String schemaLocation,
+                                                      HttpSourceJsonProperties jsonProperties,
+                                                      ObjectMapper objectMapper,
+                                                      ResourceLoader resourceLoader,
+                                                      TaskScheduler taskScheduler,
+                                                      Runnable reloadListener) throws IOException {
+        Resource schema = resourceLoader.getResource(schemaResourceLocation(schemaLocation));
+        ReloadableJsonSchemaValidator validator = new ReloadableJsonSchemaValidator(schema, objectMapper,
+                document -> new CompiledJsonSchemaValidator(document, jsonProperties.isFailFast()), reloadListener);
+        Duration reloadInterval = jsonProperties.getSchemaReloadInterval();
+        if (reloadInterval != null) {
+            taskScheduler.scheduleWithFixedDelay(validator::reloadIfModified, reloadInterval.toMillis());
+        }
+        return validator;
+    }
+
+    /**
+     * Locations without URL prefix are resolved on classpath, as they always were.
+     */
+    private static String schemaResourceLocation(String schemaLocation) {
+        return ResourceUtils.isUrl(schemaLocation)
+                ? schemaLocation
+                : ResourceUtils.CLASSPATH_URL_PREFIX + schemaLocation;
     }
 
     @ConditionalOnProperty(HttpSourceJsonProperties.HTTP_JSON_SCHEMA_LOCATION)
     @Bean(JSON_SCHEMA_VALIDATOR_BEAN_NAME)
-    GenericHandler<String> jsonValidator(Schema jsonSchema) {
-        return (payload, headers) -> {
-            try {
-                jsonSchema.validate(new JSONObject(new JSONTokener(payload)));
-                return payload;
-            } catch (ValidationException e) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.join(", ", e.getAllMessages()));
+    IngestionStage jsonValidator(JsonSchemaValidator jsonSchemaValidator) {
+        return validationStage(jsonSchemaValidator);
+    }
+
+    public static IngestionStage validationStage(JsonSchemaValidator jsonSchemaValidator) {
+        return context -> {
+            List<String> violations = jsonSchemaValidator.validate(context.getJsonNode());
+            if (!violations.isEmpty()) {
+                throw new RejectedRequestException(HttpStatus.BAD_REQUEST, RejectionCause.SCHEMA_VIOLATION,
+                        String.join(", ", violations));
             }
         };
     }
 
     @ConditionalOnProperty(value = HttpSourceJsonProperties.HTTP_JSON_SCHEMA_LOCATION, matchIfMissing = true)
     @Bean(JSON_SCHEMA_VALIDATOR_BEAN_NAME)
-    GenericHandler<?> defaultJsonValidator() {
-        return (payload, headers) -> payload;
+    IngestionStage defaultJsonValidator() {
+        return IngestionStage.NONE;
     }
 }
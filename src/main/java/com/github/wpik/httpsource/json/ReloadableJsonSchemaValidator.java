@@ -0,0 +1,84 @@
+package com.github.wpik.httpsource.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Validates against JSON Schema loaded from the resource, which may be reloaded when the resource changes.
+ * The new schema is compiled aside and swapped atomically, so validation never waits for reloading. If the new schema
+ * can't be loaded, the previous one stays in use. Once the new schema is in use, the reload listener is notified, e.g.
+ * to forget outcomes of validation against the previous one.
+ */
+@Slf4j
+class ReloadableJsonSchemaValidator implements JsonSchemaValidator {
+
+    private final Resource schema;
+
+    private final ObjectMapper objectMapper;
+
+    private final Function<JsonNode, JsonSchemaValidator> compiler;
+
+    private final Runnable reloadListener;
+
+    private final AtomicReference<JsonSchemaValidator> current = new AtomicReference<>();
+
+    private long lastModified;
+
+    ReloadableJsonSchemaValidator(Resource schema, ObjectMapper objectMapper,
+                                  Function<JsonNode, JsonSchemaValidator> compiler,
+                                  Runnable reloadListener) throws IOException {
+        this.schema = schema;
+        this.objectMapper = objectMapper;
+        this.compiler = compiler;
+        this.reloadListener = reloadListener;
+        this.lastModified = lastModified();
+        this.current.set(load());
+    }
+
+    @Override
+    public List<String> validate(JsonNode document) {
+        return current.get().validate(document);
+    }
+
+    /**
+     * Reloads the schema if the resource was modified since the last load. Not meant to be called concurrently.
+     */
+    void reloadIfModified() {
+        long modified = lastModified();
+        if (modified == lastModified) {
+            return;
+        }
+        try {
+            current.set(load());
+            lastModified = modified;
+            log.info("Reloaded JSON Schema from {}", schema);
+        } catch (IOException | RuntimeException e) {
+            log.error("Couldn't reload JSON Schema from {}, previous schema stays in use", schema, e);
+            return;
+        }
+        reloadListener.run();
+    }
+
+    private JsonSchemaValidator load() throws IOException {
+        try (InputStream schemaStream = schema.getInputStream()) {
+            return compiler.apply(objectMapper.readTree(schemaStream));
+        }
+    }
+
+    private long lastModified() {
+        try {
+            return schema.lastModified();
+        } catch (IOException e) {
+            log.debug("Couldn't check modification time of {}", schema, e);
+            return lastModified;
+        }
+    }
+}
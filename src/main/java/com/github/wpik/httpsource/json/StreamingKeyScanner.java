@@ -0,0 +1,100 @@
+package com.github.wpik.httpsource.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts key in a single pass over JSON tokens, without building the tree, for JSON Path expressions being simple
+ * chains of properties, like {@code $.address.city} or {@code $['address']['city']}.
+ * The whole document is scanned, so malformed documents are detected as well.
+ */
+class StreamingKeyScanner {
+
+    private static final Pattern SEGMENT = Pattern.compile("\\.([A-Za-z0-9_-]+)|\\['([^'\\\\]+)']");
+
+    private final String[] path;
+
+    private StreamingKeyScanner(String[] path) {
+        this.path = path;
+    }
+
+    static boolean supports(String expression) {
+        return parse(expression) != null;
+    }
+
+    /**
+     * @return scanner for the expression or null, when the expression is not a simple chain of properties
+     */
+    static StreamingKeyScanner forExpression(String expression) {
+        String[] path = parse(expression);
+        return path == null ? null : new StreamingKeyScanner(path);
+    }
+
+    private static String[] parse(String expression) {
+        String trimmed = expression.trim();
+        if (!trimmed.startsWith("$")) {
+            return null;
+        }
+        List<String> segments = new ArrayList<>();
+        Matcher matcher = SEGMENT.matcher(trimmed);
+        int position = 1;
+        while (position < trimmed.length()) {
+            if (!matcher.find(position) || matcher.start() != position) {
+                return null;
+            }
+            segments.add(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+            position = matcher.end();
+        }
+        return segments.isEmpty() ? null : segments.toArray(new String[0]);
+    }
+
+    /**
+     * Scans the whole document.
+     *
+     * @return result of the scan, telling whether the path was found and the key text
+     */
+    Result scan(JsonParser parser) throws IOException {
+        Result result = new Result();
+        if (parser.nextToken() != null) {
+            scanValue(parser, 0, result);
+        }
+        return result;
+    }
+
+    private void scanValue(JsonParser parser, int level, Result result) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (level == path.length) {
+            result.found = true;
+            if (token.isStructStart()) {
+                result.key = parser.readValueAsTree().toString();
+            } else if (token != JsonToken.VALUE_NULL) {
+                result.key = parser.getText();
+            }
+            return;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            if (!result.found && path[level].equals(name)) {
+                scanValue(parser, level + 1, result);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    static class Result {
+        boolean found;
+        String key;
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.wpik.httpsource.metrics;
+
+import com.github.wpik.httpsource.IngestionStage;
+import com.github.wpik.httpsource.RejectionCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer metrics of the ingestion pipeline:
+ * <ul>
+ * <li>{@value #STAGE_TIMER} - duration of each stage, tagged by stage,</li>
+ * <li>{@value #REJECTIONS} - requests rejected by stages, tagged by stage and reason ({@link RejectionCause}),</li>
+ * <li>{@value #PAYLOAD_SIZE} - size of request bodies in bytes, UTF-8 encoded,</li>
+ * <li>{@value #PRODUCER_SEND} - time from sending message to the output until Kafka acknowledges it, tagged by
+ * outcome,</li>
+ * <li>{@value #DUPLICATES} - requests dropped by duplicate suppression.</li>
+ * </ul>
+ */
+public class PipelineMetrics {
+
+    public static final String STAGE_TIMER = "http.source.stage";
+
+    public static final String REJECTIONS = "http.source.rejections";
+
+    public static final String PAYLOAD_SIZE = "http.source.payload.size";
+
+    public static final String PRODUCER_SEND = "http.source.producer.send";
+
+    public static final String DUPLICATES = "http.source.duplicates";
+
+    public enum SendOutcome {
+        SUCCESS, FAILURE, TIMEOUT
+    }
+
+    private final MeterRegistry registry;
+
+    private final DistributionSummary payloadSize;
+
+    private final Counter duplicates;
+
+    private final Map<SendOutcome, Timer> producerSend = new EnumMap<>(SendOutcome.class);
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.payloadSize = DistributionSummary.builder(PAYLOAD_SIZE)
+                .description("Size of HTTP request bodies")
+                .baseUnit("bytes")
+                .register(registry);
+        this.duplicates = Counter.builder(DUPLICATES)
+                .description("Requests not sent to the output as duplicates of already sent ones")
+                .register(registry);
+        for (SendOutcome outcome : SendOutcome.values()) {
+            producerSend.put(outcome, Timer.builder(PRODUCER_SEND)
+                    .description("Time until Kafka acknowledges the message")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(registry));
+        }
+    }
+
+    /**
+     * @return the stage, timed and counting requests it rejects
+     */
+    public IngestionStage stage(String name, IngestionStage stage) {
+        return new TimedStage(registry, name, stage);
+    }
+
+    /**
+     * Records size of request body in bytes. Size of text body is its UTF-8 encoded length, counted without encoding
+     * it.
+     */
+    public void payloadSize(Object payload) {
+        if (payload instanceof byte[]) {
+            payloadSize.record(((byte[]) payload).length);
+        } else if (payload instanceof String) {
+            payloadSize.record(utf8Length((String) payload));
+        }
+    }
+
+    private static long utf8Length(String text) {
+        long length = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                length++;
+            } else if (!Character.isSurrogate(c)) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                // 4 bytes for the pair of characters
+                length += 2;
+                i++;
+            }
+            // unpaired surrogate is encoded as '?'
+        }
+        return length;
+    }
+
+    /**
+     * Sends message to the output, recording the time it takes as producer send latency. Meant for synchronous
+     * sends, when the output returns after Kafka acknowledges the message.
+     */
+    public void send(MessageChannel output, Message<?> message) {
+        long start = System.nanoTime();
+        SendOutcome outcome = SendOutcome.FAILURE;
+        try {
+            output.send(message);
+            outcome = SendOutcome.SUCCESS;
+        } finally {
+            recordSend(System.nanoTime() - start, outcome);
+        }
+    }
+
+    public void duplicate() {
+        duplicates.increment();
+    }
+
+    public void recordSend(long durationNanos, SendOutcome outcome) {
+        producerSend.get(outcome).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+}
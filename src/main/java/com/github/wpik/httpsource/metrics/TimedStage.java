@@ -0,0 +1,69 @@
+package com.github.wpik.httpsource.metrics;
+
+import com.github.wpik.httpsource.IngestionContext;
+import com.github.wpik.httpsource.IngestionStage;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.RejectionCause;
+import com.github.wpik.httpsource.ResponseStatusExceptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the stage and counts its rejections. Rejection reason is the {@link RejectionCause} of the
+ * {@link RejectedRequestException} thrown by the stage, or "error" for other exceptions. Counters are registered once
+ * per reason and cached, so rejecting costs a map lookup.
+ */
+class TimedStage implements IngestionStage {
+
+    private final MeterRegistry registry;
+
+    private final String name;
+
+    private final IngestionStage stage;
+
+    private final Timer timer;
+
+    private final ConcurrentMap<String, Counter> rejections = new ConcurrentHashMap<>();
+
+    TimedStage(MeterRegistry registry, String name, IngestionStage stage) {
+        this.registry = registry;
+        this.name = name;
+        this.stage = stage;
+        this.timer = Timer.builder(PipelineMetrics.STAGE_TIMER)
+                .description("Duration of ingestion pipeline stage")
+                .tag("stage", name)
+                .register(registry);
+    }
+
+    @Override
+    public void process(IngestionContext context) {
+        long start = System.nanoTime();
+        try {
+            stage.process(context);
+        } catch (RuntimeException e) {
+            rejections(e).increment();
+            throw e;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Counter rejections(RuntimeException e) {
+        RejectedRequestException rejection = ResponseStatusExceptions.find(e);
+        String reason = rejection == null ? "error" : rejection.getRejectionCause().name().toLowerCase();
+        Counter counter = rejections.get(reason);
+        if (counter == null) {
+            counter = rejections.computeIfAbsent(reason, r -> Counter.builder(PipelineMetrics.REJECTIONS)
+                    .description("Requests rejected by ingestion pipeline stage")
+                    .tag("stage", name)
+                    .tag("reason", r)
+                    .register(registry));
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.wpik.httpsource.partition;
+
+import com.github.wpik.httpsource.IngestionContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.cloud.stream.messaging.Source;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Computes partition of a message the same way Kafka producer's default partitioner does for keyed messages:
+ * murmur2 hash of {@link IngestionContext#getKeyBytes() key} modulo partition count of the topic. Messages without
+ * key are sent to the same partition in batches of configured size, moving to the next partition after each batch.
+ */
+class Murmur2Partitioner {
+
+    static final String PARTITION_RECORDS = "http.source.partition.records";
+
+    private final Function<String, String> bindingDestination;
+
+    private final PartitionMetadata metadata;
+
+    private final int stickyBatchSize;
+
+    private final MeterRegistry registry;
+
+    private final ConcurrentMap<String, Topic> topics = new ConcurrentHashMap<>();
+
+    Murmur2Partitioner(Function<String, String> bindingDestination, PartitionMetadata metadata, int stickyBatchSize,
+                       MeterRegistry registry) {
+        this.bindingDestination = bindingDestination;
+        this.metadata = metadata;
+        this.stickyBatchSize = stickyBatchSize;
+        this.registry = registry;
+    }
+
+    /**
+     * @return partition of the message, or null when it should be left to Kafka producer
+     */
+    Integer partition(IngestionContext context) {
+        String binding = context.getDestination();
+        Topic topic = topic(binding == null ? Source.OUTPUT : binding);
+        Integer partitionCount = metadata.partitionCount(topic.name);
+        if (partitionCount == null) {
+            return null;
+        }
+        byte[] key = context.getKeyBytes();
+        int partition;
+        if (key != null) {
+            partition = Utils.toPositive(Utils.murmur2(key)) % partitionCount;
+        } else if (stickyBatchSize > 0) {
+            partition = (int) (topic.keyless.getAndIncrement() / stickyBatchSize % partitionCount);
+        } else {
+            return null;
+        }
+        topic.records(partition).increment();
+        return partition;
+    }
+
+    private Topic topic(String binding) {
+        Topic topic = topics.get(binding);
+        if (topic == null) {
+            topic = topics.computeIfAbsent(binding, b -> new Topic(bindingDestination.apply(b)));
+        }
+        return topic;
+    }
+
+    private class Topic {
+        private final String name;
+        private final AtomicLong keyless = new AtomicLong();
+        private final ConcurrentMap<Integer, Counter> records = new ConcurrentHashMap<>();
+
+        private Topic(String name) {
+            this.name = name;
+        }
+
+        private Counter records(int partition) {
+            Counter counter = records.get(partition);
+            if (counter == null) {
+                counter = records.computeIfAbsent(partition, p -> Counter.builder(PARTITION_RECORDS)
+                        .description("Messages sent to the partition, as computed by the source")
+                        .tag("topic", name)
+                        .tag("partition", String.valueOf(p))
+                        .register(registry));
+            }
+            return counter;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.wpik.httpsource.partition;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Partition counts of Kafka topics: configured ones, or read asynchronously from topic metadata and cached. Count of a
+ * topic which isn't configured is unknown until its metadata is read for the first time; meanwhile its messages are
+ * partitioned by Kafka producer.
+ */
+@Slf4j
+class PartitionMetadata implements Closeable {
+
+    private final AdminClient adminClient;
+
+    private final Map<String, Integer> fixedPartitionCounts;
+
+    private final ConcurrentMap<String, Integer> partitionCounts = new ConcurrentHashMap<>();
+
+    private final Set<String> describing = ConcurrentHashMap.newKeySet();
+
+    private PartitionMetadata(AdminClient adminClient, Map<String, Integer> fixedPartitionCounts) {
+        this.adminClient = adminClient;
+        this.fixedPartitionCounts = fixedPartitionCounts;
+    }
+
+    /**
+     * @param partitionCounts partition counts of all topics the source sends to, by topic
+     */
+    static PartitionMetadata fixed(Map<String, Integer> partitionCounts) {
+        return new PartitionMetadata(null, partitionCounts);
+    }
+
+    /**
+     * @param partitionCounts partition counts of topics which are not read from metadata, by topic
+     */
+    static PartitionMetadata live(AdminClient adminClient, Map<String, Integer> partitionCounts) {
+        return new PartitionMetadata(adminClient, partitionCounts);
+    }
+
+    /**
+     * @return partition count of the topic, or null when it is not known yet
+     */
+    Integer partitionCount(String topic) {
+        Integer fixedPartitionCount = fixedPartitionCounts.get(topic);
+        if (fixedPartitionCount != null || adminClient == null) {
+            return fixedPartitionCount;
+        }
+        Integer partitionCount = partitionCounts.get(topic);
+        if (partitionCount == null) {
+            describe(topic);
+        }
+        return partitionCount;
+    }
+
+    /**
+     * Reads again metadata of all known topics, e.g. to notice added partitions.
+     */
+    void refresh() {
+        partitionCounts.keySet().forEach(this::describe);
+    }
+
+    @Override
+    public void close() {
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+
+    private void describe(String topic) {
+        if (!describing.add(topic)) {
+            return;
+        }
+        adminClient.describeTopics(Collections.singleton(topic)).values().get(topic)
+                .whenComplete((description, error) -> {
+                    describing.remove(topic);
+                    if (error != null) {
+                        log.warn("Couldn't read partition count of topic {}", topic, error);
+                    } else {
+                        partitionCounts.put(topic, description.partitions().size());
+                    }
+                });
+    }
+}
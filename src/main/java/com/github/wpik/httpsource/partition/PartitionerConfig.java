@@ -0,0 +1,103 @@
+package com.github.wpik.httpsource.partition;
+
+import com.github.wpik.httpsource.HttpSourcePartitionerProperties;
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.HttpSourceRouteProperties;
+import com.github.wpik.httpsource.IngestionStage;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.cloud.stream.config.BindingServiceProperties;
+import org.springframework.cloud.stream.messaging.Source;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes Kafka partition of each message in the source, see {@link Murmur2Partitioner}, and sets it as
+ * {@link KafkaHeaders#PARTITION_ID} header, which Kafka binder uses unless Spring Cloud Stream partitioning is
+ * configured for the binding. Partition counts are configured per destination; Kafka topic metadata is read only when
+ * some destination, of the output, a route or content-based routing, has no configured count.
+ */
+@Configuration
+public class PartitionerConfig {
+
+    public static final String PARTITIONER_BEAN_NAME = "partitioner";
+
+    private static final String BINDER_BROKERS = "spring.cloud.stream.kafka.binder.brokers";
+
+    @ConditionalOnProperty(HttpSourcePartitionerProperties.HTTP_PARTITIONER_ENABLED)
+    @Bean(destroyMethod = "close")
+    PartitionMetadata partitionMetadata(
+            HttpSourceProperties httpSourceProperties,
+            BindingServiceProperties bindingServiceProperties,
+            KafkaProperties kafkaProperties,
+            Environment environment,
+            @Qualifier(IntegrationContextUtils.TASK_SCHEDULER_BEAN_NAME) TaskScheduler taskScheduler) {
+        HttpSourcePartitionerProperties properties = httpSourceProperties.getPartitioner();
+        Map<String, Integer> partitionCounts = new HashMap<>();
+        properties.getPartitionCounts().forEach((destination, partitionCount) ->
+                partitionCounts.put(bindingServiceProperties.getBindingDestination(destination), partitionCount));
+        if (properties.getPartitionCount() != null) {
+            partitionCounts.put(bindingServiceProperties.getBindingDestination(Source.OUTPUT),
+                    properties.getPartitionCount());
+        }
+        if (properties.getPartitionCount() != null
+                && partitionCounts.keySet().containsAll(destinations(httpSourceProperties, bindingServiceProperties))) {
+            return PartitionMetadata.fixed(partitionCounts);
+        }
+        Map<String, Object> adminProperties = kafkaProperties.buildAdminProperties();
+        String brokers = environment.getProperty(BINDER_BROKERS);
+        if (brokers != null) {
+            adminProperties.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, brokers);
+        }
+        PartitionMetadata metadata = PartitionMetadata.live(AdminClient.create(adminProperties), partitionCounts);
+        taskScheduler.scheduleWithFixedDelay(metadata::refresh, properties.getMetadataRefreshInterval().toMillis());
+        return metadata;
+    }
+
+    @ConditionalOnProperty(HttpSourcePartitionerProperties.HTTP_PARTITIONER_ENABLED)
+    @Bean(PARTITIONER_BEAN_NAME)
+    IngestionStage partitioner(HttpSourceProperties httpSourceProperties,
+                               PartitionMetadata partitionMetadata,
+                               BindingServiceProperties bindingServiceProperties,
+                               MeterRegistry meterRegistry) {
+        Murmur2Partitioner partitioner = new Murmur2Partitioner(bindingServiceProperties::getBindingDestination,
+                partitionMetadata, httpSourceProperties.getPartitioner().getStickyBatchSize(), meterRegistry);
+        return context -> context.setPartition(partitioner.partition(context));
+    }
+
+    @ConditionalOnProperty(value = HttpSourcePartitionerProperties.HTTP_PARTITIONER_ENABLED, havingValue = "false",
+            matchIfMissing = true)
+    @Bean(PARTITIONER_BEAN_NAME)
+    IngestionStage defaultPartitioner() {
+        return IngestionStage.NONE;
+    }
+
+    /**
+     * @return topics of destinations of routes and content-based routing
+     */
+    private static Set<String> destinations(HttpSourceProperties httpSourceProperties,
+                                            BindingServiceProperties bindingServiceProperties) {
+        Set<String> destinations = new HashSet<>();
+        httpSourceProperties.getRouting().getDestinations().values()
+                .forEach(destination -> destinations.add(bindingServiceProperties.getBindingDestination(destination)));
+        for (HttpSourceRouteProperties route : httpSourceProperties.getRoutes().values()) {
+            if (route.getDestination() != null) {
+                destinations.add(bindingServiceProperties.getBindingDestination(route.getDestination()));
+            }
+        }
+        return destinations;
+    }
+}
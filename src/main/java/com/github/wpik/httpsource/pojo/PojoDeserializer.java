@@ -0,0 +1,35 @@
+package com.github.wpik.httpsource.pojo;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.RejectionCause;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Binds already parsed request body to the POJO class, using reader created once, at creation time.
+ */
+class PojoDeserializer {
+
+    private final ObjectReader reader;
+
+    PojoDeserializer(Class<?> className, ObjectMapper objectMapper) {
+        this.reader = objectMapper.readerFor(className);
+    }
+
+    Object deserialize(JsonNode payload) {
+        try {
+            return reader.readValue(payload);
+        } catch (JsonProcessingException e) {
+            throw new RejectedRequestException(HttpStatus.BAD_REQUEST, RejectionCause.MALFORMED_BODY,
+                    e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.wpik.httpsource.pojo;
+
+import com.github.wpik.httpsource.KeyNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * Extracts key from deserialized request body using SpEL expression parsed once, at creation time.
+ * Depending on {@link SpelCompilerMode} the expression may be compiled to bytecode after a few evaluations.
+ */
+@Slf4j
+public class PojoKeyExtractor {
+
+    private final Expression expression;
+
+    private final KeyNotFoundException keyNotFound;
+
+    private final EvaluationContext evaluationContext = new StandardEvaluationContext();
+
+    public PojoKeyExtractor(String keyExpression, SpelCompilerMode compilerMode) {
+        this.keyNotFound = new KeyNotFoundException(
+                String.format("Couldn't extract key from request using key expression '%s'", keyExpression));
+        SpelParserConfiguration configuration =
+                new SpelParserConfiguration(compilerMode, PojoKeyExtractor.class.getClassLoader());
+        this.expression = new SpelExpressionParser(configuration).parseExpression(keyExpression);
+    }
+
+    public byte[] extract(Object deserialized) {
+        try {
+            Object key = expression.getValue(evaluationContext, deserialized);
+
+            log.debug("Extracted key using pojo key expression is '{}'", key);
+
+            return key == null ? null : key.toString().getBytes();
+        } catch (SpelEvaluationException e) {
+            log.debug("Couldn't extract key using pojo key expression: {}", e.getMessage());
+            throw keyNotFound;
+        }
+    }
+}
@@ -1,13 +1,13 @@
 package com.github.wpik.httpsource.pojo;
 
-import com.github.wpik.httpsource.Headers;
 import com.github.wpik.httpsource.HttpSourcePojoProperties;
+import com.github.wpik.httpsource.IngestionStage;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.RejectionCause;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
-import org.springframework.integration.handler.GenericHandler;
-import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
@@ -21,9 +21,13 @@ public class PojoValidatorConfig {
 
     @ConditionalOnProperty(HttpSourcePojoProperties.HTTP_POJO_CLASS_NAME)
     @Bean(POJO_VALIDATOR_BEAN_NAME)
-    GenericHandler<?> pojoValidator(Validator validator) {
-        return (payload, headers) -> {
-            Object deserialized = headers.get(Headers.DESERIALIZED_OBJECT);
+    IngestionStage pojoValidator(Validator validator) {
+        return validationStage(validator);
+    }
+
+    public static IngestionStage validationStage(Validator validator) {
+        return context -> {
+            Object deserialized = context.getDeserializedObject();
             if (deserialized != null) {
                 Set<ConstraintViolation<Object>> violations = validator.validate(deserialized);
                 if (violations.size() > 0) {
@@ -32,16 +36,16 @@ public class PojoValidatorConfig {
                             .map(v -> v.getPropertyPath().toString() + ": " + v.getMessage())
                             .collect(Collectors.toList());
 
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.join(", ", errors));
+                    throw new RejectedRequestException(HttpStatus.BAD_REQUEST, RejectionCause.CONSTRAINT_VIOLATION,
+                            String.join(", ", errors));
                 }
             }
-            return payload;
         };
     }
 
     @ConditionalOnProperty(value = HttpSourcePojoProperties.HTTP_POJO_CLASS_NAME, matchIfMissing = true)
     @Bean(POJO_VALIDATOR_BEAN_NAME)
-    GenericHandler<?> defaultPojoValidator() {
-        return (payload, headers) -> payload;
+    IngestionStage defaultPojoValidator() {
+        return IngestionStage.NONE;
     }
 }
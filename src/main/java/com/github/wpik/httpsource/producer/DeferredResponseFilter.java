@@ -0,0 +1,172 @@
+package com.github.wpik.httpsource.producer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.ResponseStatusExceptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps servlet response open, in asynchronous mode, until Kafka acknowledges the message sent while handling the
+ * request (see {@link #defer(CompletableFuture)}), so that request thread is not blocked while waiting for Kafka.
+ * The status set by the inbound endpoint is sent on success, or the status and body completed by the send when the
+ * response is deferred by {@link #deferResponse(CompletableFuture)}; error is rendered when the send fails.
+ * <p>
+ * The response is rendered on a container thread, see {@link AsyncContext#start(Runnable)}, not on the thread
+ * completing the send, which is Kafka producer's callback thread. The asynchronous request times out as a backstop,
+ * when the send isn't completed in time, which acknowledgement tracking should prevent.
+ */
+@Slf4j
+public class DeferredResponseFilter extends OncePerRequestFilter {
+
+    private static final String PENDING_SEND_ATTRIBUTE = DeferredResponseFilter.class.getName() + ".PENDING_SEND";
+
+    private final ObjectMapper objectMapper;
+
+    private final long asyncTimeoutMillis;
+
+    DeferredResponseFilter(ObjectMapper objectMapper, Duration asyncTimeout) {
+        this.objectMapper = objectMapper;
+        this.asyncTimeoutMillis = asyncTimeout.toMillis();
+    }
+
+    /**
+     * Defers response for current request until the send completes.
+     */
+    public static void defer(CompletableFuture<?> send) {
+        RequestContextHolder.currentRequestAttributes()
+                .setAttribute(PENDING_SEND_ATTRIBUTE, send, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    /**
+     * Defers response for current request until the response completes, and renders it with its status and body, as
+     * JSON.
+     */
+    public static void deferResponse(CompletableFuture<? extends ResponseEntity<?>> response) {
+        defer(response.thenApply(DeferredBody::new));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(request, response);
+
+        Object send = request.getAttribute(PENDING_SEND_ATTRIBUTE);
+        if (send instanceof CompletableFuture) {
+            AsyncContext asyncContext = request.startAsync(request, response);
+            asyncContext.setTimeout(asyncTimeoutMillis);
+            AtomicBoolean rendered = new AtomicBoolean();
+            asyncContext.addListener(new TimeoutListener(rendered, response));
+            ((CompletableFuture<?>) send).whenComplete((result, error) -> {
+                if (rendered.compareAndSet(false, true)) {
+                    asyncContext.start(() -> {
+                        render(response, result, error);
+                        asyncContext.complete();
+                    });
+                }
+            });
+        }
+    }
+
+    private void render(HttpServletResponse response, Object result, Throwable error) {
+        if (error != null) {
+            renderError(response, error);
+        } else if (result instanceof DeferredBody) {
+            renderBody(response, ((DeferredBody) result).response);
+        }
+    }
+
+    private void renderBody(HttpServletResponse response, ResponseEntity<?> body) {
+        try {
+            response.setStatus(body.getStatusCodeValue());
+            response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), body.getBody());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Couldn't render response", e);
+        }
+    }
+
+    private void renderError(HttpServletResponse response, Throwable error) {
+        RejectedRequestException statusException = ResponseStatusExceptions.find(error);
+        HttpStatus status = statusException == null ? HttpStatus.INTERNAL_SERVER_ERROR : statusException.getStatus();
+        String message = statusException == null ? error.getMessage() : statusException.getReason();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        try {
+            response.setStatus(status.value());
+            if (statusException != null) {
+                statusException.getHeaders().forEach(response::setHeader);
+            }
+            response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), body);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Couldn't render error response", e);
+        }
+    }
+
+    /**
+     * Renders error when the send isn't completed before the asynchronous request times out.
+     */
+    private class TimeoutListener implements AsyncListener {
+        private final AtomicBoolean rendered;
+        private final HttpServletResponse response;
+
+        private TimeoutListener(AtomicBoolean rendered, HttpServletResponse response) {
+            this.rendered = rendered;
+            this.response = response;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            if (rendered.compareAndSet(false, true)) {
+                log.warn("Response was not completed in time");
+                renderError(response, new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                        "Response was not completed in time"));
+                event.getAsyncContext().complete();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    private static class DeferredBody {
+        private final ResponseEntity<?> response;
+
+        private DeferredBody(ResponseEntity<?> response) {
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.wpik.httpsource.producer;
+
+import com.github.wpik.httpsource.Headers;
+import org.springframework.cloud.stream.binding.BinderAwareChannelResolver;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.InterceptableChannel;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the channel a message is sent to: the output, or the binding of destination named by
+ * {@link Headers#DESTINATION} header. Only destinations of the configuration, see {@link OutputsConfig}, are
+ * resolved; bindings of them are created by Spring Cloud Stream on first use and cached, so each destination is
+ * resolved once. Interceptors of the output which have to apply to every send, e.g. duplicate suppression, are added
+ * to the bindings of destinations when they are resolved.
+ */
+public class Outputs {
+
+    private final MessageChannel output;
+
+    private final BinderAwareChannelResolver channelResolver;
+
+    private final Set<String> allowedDestinations;
+
+    private final List<ChannelInterceptor> destinationInterceptors;
+
+    private final ConcurrentMap<String, MessageChannel> destinations = new ConcurrentHashMap<>();
+
+    Outputs(MessageChannel output,
+            BinderAwareChannelResolver channelResolver,
+            Set<String> allowedDestinations,
+            List<ChannelInterceptor> destinationInterceptors) {
+        this.output = output;
+        this.channelResolver = channelResolver;
+        this.allowedDestinations = allowedDestinations;
+        this.destinationInterceptors = destinationInterceptors;
+    }
+
+    /**
+     * @throws MessageDeliveryException when the destination of the message is not configured
+     */
+    public MessageChannel channel(Message<?> message) {
+        String destination = message.getHeaders().get(Headers.DESTINATION, String.class);
+        if (destination == null) {
+            return output;
+        }
+        MessageChannel channel = destinations.get(destination);
+        if (channel == null) {
+            if (!allowedDestinations.contains(destination)) {
+                throw new MessageDeliveryException(message,
+                        String.format("Destination '%s' is not configured", destination));
+            }
+            channel = destinations.computeIfAbsent(destination, this::resolve);
+        }
+        return channel;
+    }
+
+    private MessageChannel resolve(String destination) {
+        MessageChannel channel = channelResolver.resolveDestination(destination);
+        if (channel instanceof InterceptableChannel) {
+            destinationInterceptors.forEach(((InterceptableChannel) channel)::addInterceptor);
+        }
+        return channel;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.wpik.httpsource.producer;
+
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.HttpSourceRouteProperties;
+import com.github.wpik.httpsource.dedup.DuplicateSuppressor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.stream.binding.BinderAwareChannelResolver;
+import org.springframework.cloud.stream.config.BindingServiceProperties;
+import org.springframework.cloud.stream.messaging.Source;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.util.ObjectUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Destinations messages may be sent to besides the output: those of routes and of content-based routing. Unless
+ * {@code spring.cloud.stream.dynamic-destinations} is set, it is restricted to them as well. When enabled,
+ * {@link DuplicateSuppressor}, a global interceptor of the output, intercepts sends to the destinations too.
+ */
+@Configuration
+public class OutputsConfig {
+
+    @Bean
+    Outputs outputs(Source source,
+                    BinderAwareChannelResolver channelResolver,
+                    HttpSourceProperties httpSourceProperties,
+                    BindingServiceProperties bindingServiceProperties,
+                    ObjectProvider<DuplicateSuppressor> duplicateSuppressorProvider) {
+        Set<String> destinations = new LinkedHashSet<>(httpSourceProperties.getRouting().getDestinations().values());
+        for (HttpSourceRouteProperties route : httpSourceProperties.getRoutes().values()) {
+            if (route.getDestination() != null) {
+                destinations.add(route.getDestination());
+            }
+        }
+        if (!destinations.isEmpty() && ObjectUtils.isEmpty(bindingServiceProperties.getDynamicDestinations())) {
+            bindingServiceProperties.setDynamicDestinations(destinations.toArray(new String[0]));
+        }
+        List<ChannelInterceptor> destinationInterceptors = new ArrayList<>();
+        DuplicateSuppressor duplicateSuppressor = duplicateSuppressorProvider.getIfAvailable();
+        if (duplicateSuppressor != null) {
+            destinationInterceptors.add(duplicateSuppressor);
+        }
+        return new Outputs(source.output(), channelResolver, destinations, destinationInterceptors);
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.wpik.httpsource.producer;
+
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.metrics.PipelineMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.channel.PublishSubscribeChannel;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.IntegrationFlows;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.scheduling.TaskScheduler;
+
+/**
+ * Asynchronous Kafka acknowledgements. Requires Kafka binder to send successful send results to
+ * {@link #RECORD_METADATA_CHANNEL_BEAN_NAME} channel and failures to the error channel, which is configured by
+ * {@link com.github.wpik.httpsource.HttpSourceEnvironmentPostProcessor}.
+ */
+@Configuration
+@Conditional(ProducerAckConfig.AsyncAcksRequired.class)
+public class ProducerAckConfig {
+
+    public static final String RECORD_METADATA_CHANNEL_BEAN_NAME = "httpSourceRecordMetadata";
+
+    private static final long EXPIRATION_PERIOD_MILLIS = 1000;
+
+    /**
+     * Publish-subscribe, as duplicate suppression also learns about acknowledged sends from it.
+     */
+    @Bean(RECORD_METADATA_CHANNEL_BEAN_NAME)
+    MessageChannel recordMetadataChannel() {
+        return new PublishSubscribeChannel();
+    }
+
+    @Bean
+    ProducerAcknowledgements producerAcknowledgements(
+            Outputs outputs,
+            PipelineMetrics metrics,
+            HttpSourceProperties httpSourceProperties,
+            @Qualifier(IntegrationContextUtils.TASK_SCHEDULER_BEAN_NAME) TaskScheduler taskScheduler) {
+        ProducerAcknowledgements acknowledgements =
+                new ProducerAcknowledgements(outputs, metrics, httpSourceProperties.getProducerAckTimeout(),
+                        httpSourceProperties.getMaxInFlight());
+        taskScheduler.scheduleAtFixedRate(acknowledgements::expire, EXPIRATION_PERIOD_MILLIS);
+        return acknowledgements;
+    }
+
+    @Bean
+    IntegrationFlow producerAcknowledgementFlow(ProducerAcknowledgements acknowledgements) {
+        return IntegrationFlows.from(RECORD_METADATA_CHANNEL_BEAN_NAME)
+                .handle(acknowledgements::acknowledge)
+                .get();
+    }
+
+    @Bean
+    IntegrationFlow producerFailureFlow(ProducerAcknowledgements acknowledgements) {
+        return IntegrationFlows.from(IntegrationContextUtils.ERROR_CHANNEL_BEAN_NAME)
+                .handle(acknowledgements::fail)
+                .get();
+    }
+
+    public static class AsyncAcksRequired extends AnyNestedCondition {
+
+        AsyncAcksRequired() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(name = HttpSourceProperties.HTTP_MODE, havingValue = "reactive")
+        static class ReactiveMode {
+        }
+
+        @ConditionalOnProperty(HttpSourceProperties.HTTP_ASYNC_PRODUCER_ACK)
+        static class AsyncProducerAck {
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.wpik.httpsource.producer;
+
+import com.github.wpik.httpsource.Headers;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.RejectionCause;
+import com.github.wpik.httpsource.metrics.PipelineMetrics;
+import com.github.wpik.httpsource.metrics.PipelineMetrics.SendOutcome;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends messages to the output without waiting for Kafka and tracks them until Kafka binder reports the result of
+ * the send: record metadata on success (see {@link ProducerAckConfig#RECORD_METADATA_CHANNEL_BEAN_NAME}) or error
+ * message on failure. Sends are correlated using {@link Headers#SEND_SEQUENCE} header.
+ * The number of messages awaiting acknowledgement is limited, further sends are rejected with HTTP 503.
+ */
+@Slf4j
+public class ProducerAcknowledgements {
+
+    private static final RejectedRequestException TOO_MANY_IN_FLIGHT =
+            new RejectedRequestException(HttpStatus.SERVICE_UNAVAILABLE, RejectionCause.TOO_MANY_IN_FLIGHT,
+                    "Too many requests in flight");
+
+    private final Outputs outputs;
+
+    private final PipelineMetrics metrics;
+
+    private final long timeoutNanos;
+
+    private final Semaphore permits;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ConcurrentMap<Long, PendingSend> pending = new ConcurrentHashMap<>();
+
+    ProducerAcknowledgements(Outputs outputs, PipelineMetrics metrics, Duration timeout, int maxInFlight) {
+        this.outputs = outputs;
+        this.metrics = metrics;
+        this.timeoutNanos = timeout.toNanos();
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Sends message to the output, or to its destination, see {@link Outputs}.
+     *
+     * @return future completed when Kafka acknowledges the message (or at once, when the message is dropped by
+     * an interceptor of the output), or completed exceptionally when the send fails
+     * or is not acknowledged in time
+     * @throws RejectedRequestException with HTTP 503 when too many messages await acknowledgement
+     */
+    public CompletableFuture<Object> send(Message<?> message) {
+        if (!permits.tryAcquire()) {
+            throw TOO_MANY_IN_FLIGHT;
+        }
+        long id = sequence.incrementAndGet();
+        PendingSend pendingSend = new PendingSend(System.nanoTime(), timeoutNanos);
+        pending.put(id, pendingSend);
+        try {
+            Message<?> sequenced = MessageBuilder.fromMessage(message).setHeader(Headers.SEND_SEQUENCE, id).build();
+            if (!outputs.channel(message).send(sequenced)) {
+                // dropped by an interceptor, e.g. as a duplicate, nothing to wait for
+                if (pending.remove(id) != null) {
+                    permits.release();
+                }
+                pendingSend.future.complete(null);
+            }
+        } catch (RuntimeException e) {
+            if (pending.remove(id) != null) {
+                permits.release();
+            }
+            record(pendingSend, SendOutcome.FAILURE);
+            pendingSend.future.completeExceptionally(e);
+        }
+        return pendingSend.future;
+    }
+
+    public int inFlight() {
+        return pending.size();
+    }
+
+    void acknowledge(Message<?> sent) {
+        PendingSend pendingSend = remove(sent);
+        if (pendingSend != null) {
+            record(pendingSend, SendOutcome.SUCCESS);
+            pendingSend.future.complete(sent.getHeaders().get(KafkaHeaders.RECORD_METADATA));
+        }
+    }
+
+    void fail(Message<?> errorMessage) {
+        Object error = errorMessage.getPayload();
+        if (error instanceof MessagingException) {
+            PendingSend pendingSend = remove(((MessagingException) error).getFailedMessage());
+            if (pendingSend != null) {
+                record(pendingSend, SendOutcome.FAILURE);
+                pendingSend.future.completeExceptionally((MessagingException) error);
+            }
+        }
+    }
+
+    void expire() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Long, PendingSend>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            PendingSend pendingSend = iterator.next().getValue();
+            if (now - pendingSend.deadline > 0) {
+                iterator.remove();
+                permits.release();
+                record(pendingSend, SendOutcome.TIMEOUT);
+                log.warn("Message was not acknowledged by Kafka in time");
+                pendingSend.future.completeExceptionally(new ResponseStatusException(
+                        HttpStatus.INTERNAL_SERVER_ERROR, "Message was not acknowledged by Kafka in time"));
+            }
+        }
+    }
+
+    private void record(PendingSend pendingSend, SendOutcome outcome) {
+        metrics.recordSend(System.nanoTime() - pendingSend.start, outcome);
+    }
+
+    private PendingSend remove(Message<?> sent) {
+        if (sent == null) {
+            return null;
+        }
+        Long id = sent.getHeaders().get(Headers.SEND_SEQUENCE, Long.class);
+        PendingSend pendingSend = id == null ? null : pending.remove(id);
+        if (pendingSend != null) {
+            permits.release();
+        }
+        return pendingSend;
+    }
+
+    private static class PendingSend {
+        private final long start;
+        private final long deadline;
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        private PendingSend(long start, long timeoutNanos) {
+            this.start = start;
+            this.deadline = start + timeoutNanos;
+        }
+    }
+}
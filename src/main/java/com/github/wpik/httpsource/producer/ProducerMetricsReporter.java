@@ -0,0 +1,82 @@
+package com.github.wpik.httpsource.producer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.KafkaMetric;
+import org.apache.kafka.common.metrics.MetricsReporter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Exposes batching metrics of Kafka producers as Micrometer gauges in the global registry, which Spring Boot adds its
+ * registries to. Kafka producer creates the reporter itself, by class name, so it can't be a bean; it is configured by
+ * {@link com.github.wpik.httpsource.HttpSourceEnvironmentPostProcessor} in throughput producer mode.
+ */
+public class ProducerMetricsReporter implements MetricsReporter {
+
+    public static final String BATCH_SIZE = "http.source.producer.batch.size";
+
+    public static final String RECORDS_PER_REQUEST = "http.source.producer.records.per.request";
+
+    public static final String COMPRESSION_RATE = "http.source.producer.compression.rate";
+
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+
+    private static final Map<String, String> GAUGES = new HashMap<>();
+
+    static {
+        GAUGES.put("batch-size-avg", BATCH_SIZE);
+        GAUGES.put("records-per-request-avg", RECORDS_PER_REQUEST);
+        GAUGES.put("compression-rate-avg", COMPRESSION_RATE);
+    }
+
+    private final ConcurrentMap<MetricName, Meter> meters = new ConcurrentHashMap<>();
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+
+    @Override
+    public void init(List<KafkaMetric> metrics) {
+        metrics.forEach(this::metricChange);
+    }
+
+    @Override
+    public void metricChange(KafkaMetric metric) {
+        MetricName name = metric.metricName();
+        String gauge = GAUGES.get(name.name());
+        if (gauge == null || !PRODUCER_METRICS_GROUP.equals(name.group())) {
+            return;
+        }
+        metricRemoval(metric);
+        meters.put(name, Gauge.builder(gauge, metric, ProducerMetricsReporter::value)
+                .description("Kafka producer " + name.name() + " metric")
+                .tag("client", name.tags().getOrDefault("client-id", ""))
+                .register(Metrics.globalRegistry));
+    }
+
+    @Override
+    public void metricRemoval(KafkaMetric metric) {
+        Meter meter = meters.remove(metric.metricName());
+        if (meter != null) {
+            Metrics.globalRegistry.remove(meter);
+        }
+    }
+
+    @Override
+    public void close() {
+        meters.values().forEach(Metrics.globalRegistry::remove);
+        meters.clear();
+    }
+
+    private static double value(KafkaMetric metric) {
+        Object value = metric.metricValue();
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.wpik.httpsource.producer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wpik.httpsource.HttpSourceProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(HttpSourceProperties.HTTP_ASYNC_PRODUCER_ACK)
+public class ServletAsyncAckConfig {
+
+    /**
+     * Deferred responses time out after this many producer ack timeouts, so only when a send is not completed by
+     * acknowledgement tracking.
+     */
+    private static final int ASYNC_TIMEOUT_MULTIPLIER = 2;
+
+    @ConditionalOnProperty(name = HttpSourceProperties.HTTP_MODE, havingValue = "servlet", matchIfMissing = true)
+    @Bean
+    FilterRegistrationBean<DeferredResponseFilter> deferredResponseFilter(ObjectMapper objectMapper,
+                                                                          HttpSourceProperties httpSourceProperties) {
+        FilterRegistrationBean<DeferredResponseFilter> registration = new FilterRegistrationBean<>(
+                new DeferredResponseFilter(objectMapper,
+                        httpSourceProperties.getProducerAckTimeout().multipliedBy(ASYNC_TIMEOUT_MULTIPLIER)));
+        registration.setAsyncSupported(true);
+        return registration;
+    }
+}
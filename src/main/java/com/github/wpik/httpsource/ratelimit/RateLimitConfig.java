@@ -0,0 +1,144 @@
+package com.github.wpik.httpsource.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.HttpSourceRateLimitProperties;
+import com.github.wpik.httpsource.IngestionStage;
+import com.github.wpik.httpsource.KeyNotFoundException;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.RejectionCause;
+import com.github.wpik.httpsource.json.JsonPathKeyExtractor;
+import com.github.wpik.httpsource.web.SourcePaths;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.WebFilter;
+
+import javax.servlet.http.HttpServletRequest;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.function.Function;
+
+/**
+ * Per-client rate limiting. Clients identified by request header or IP address are limited by a filter, before
+ * the request body is read; clients identified by JSON Path are limited by the first stage of the pipeline, which
+ * scans the body for the key without parsing it.
+ */
+@Configuration
+public class RateLimitConfig {
+
+    public static final String RATE_LIMITER_BEAN_NAME = "rateLimiter";
+
+    @ConditionalOnProperty(HttpSourceRateLimitProperties.HTTP_RATE_LIMIT_KEY_SOURCE)
+    @Bean
+    TokenBuckets tokenBuckets(HttpSourceProperties httpSourceProperties,
+                              MeterRegistry meterRegistry,
+                              @Qualifier(IntegrationContextUtils.TASK_SCHEDULER_BEAN_NAME) TaskScheduler scheduler) {
+        HttpSourceRateLimitProperties properties = httpSourceProperties.getRateLimit();
+        TokenBuckets buckets = new TokenBuckets(properties.getRate(), properties.getBurst(),
+                properties.getClientRates(), properties.getIdleTimeout(), properties.getMaxClients(), meterRegistry);
+        scheduler.scheduleWithFixedDelay(buckets::evictIdle, Math.max(1, properties.getIdleTimeout().toMillis() / 2));
+        return buckets;
+    }
+
+    @Bean(RATE_LIMITER_BEAN_NAME)
+    IngestionStage rateLimiter(HttpSourceProperties httpSourceProperties,
+                               ObjectMapper objectMapper,
+                               ObjectProvider<TokenBuckets> bucketsProvider) {
+        HttpSourceRateLimitProperties properties = httpSourceProperties.getRateLimit();
+        if (properties.getKeySource() != HttpSourceRateLimitProperties.KeySource.JSON_PATH) {
+            return IngestionStage.NONE;
+        }
+        if (!StringUtils.hasText(properties.getExpression())) {
+            throw new IllegalStateException("Rate limiting by JSON Path requires http.rate-limit.expression to be set");
+        }
+        JsonPathKeyExtractor extractor = new JsonPathKeyExtractor(properties.getExpression(), objectMapper);
+        if (!extractor.isStreaming()) {
+            throw new IllegalStateException(String.format("Rate limit key expression '%s' has to be a simple chain of "
+                    + "properties, e.g. $.tenant.id, so that it can be evaluated without parsing the body",
+                    properties.getExpression()));
+        }
+        TokenBuckets buckets = bucketsProvider.getObject();
+        return context -> {
+            byte[] key;
+            try {
+                key = extractor.extract(context);
+            } catch (KeyNotFoundException e) {
+                key = null;
+            } catch (RejectedRequestException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                key = null;
+            }
+            long wait = buckets.tryAcquire(key == null ? "" : new String(key, StandardCharsets.UTF_8));
+            if (wait > 0) {
+                throw new RejectedRequestException(HttpStatus.TOO_MANY_REQUESTS, RejectionCause.RATE_LIMITED,
+                        "Rate limit exceeded",
+                        Collections.singletonMap(HttpHeaders.RETRY_AFTER,
+                                String.valueOf(TokenBuckets.retryAfterSeconds(wait))));
+            }
+        };
+    }
+
+    @Conditional(RequestKeySource.class)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @Bean
+    FilterRegistrationBean<RateLimitFilter> rateLimitFilter(HttpSourceProperties httpSourceProperties,
+                                                            TokenBuckets buckets) {
+        HttpSourceRateLimitProperties properties = httpSourceProperties.getRateLimit();
+        String headerName = properties.getHeaderName();
+        Function<HttpServletRequest, String> clientKey =
+                properties.getKeySource() == HttpSourceRateLimitProperties.KeySource.HEADER
+                        ? request -> request.getHeader(headerName)
+                        : HttpServletRequest::getRemoteAddr;
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(
+                new RateLimitFilter(buckets, SourcePaths.of(httpSourceProperties), clientKey));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Conditional(RequestKeySource.class)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    @Bean
+    WebFilter reactiveRateLimitFilter(HttpSourceProperties httpSourceProperties, TokenBuckets buckets) {
+        HttpSourceRateLimitProperties properties = httpSourceProperties.getRateLimit();
+        String headerName = properties.getHeaderName();
+        return new ReactiveRateLimitFilter(buckets, SourcePaths.of(httpSourceProperties),
+                properties.getKeySource() == HttpSourceRateLimitProperties.KeySource.HEADER
+                        ? exchange -> exchange.getRequest().getHeaders().getFirst(headerName)
+                        : exchange -> {
+                            InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+                            return address == null ? null : address.getAddress().getHostAddress();
+                        });
+    }
+
+    static class RequestKeySource extends AnyNestedCondition {
+
+        RequestKeySource() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(name = HttpSourceRateLimitProperties.HTTP_RATE_LIMIT_KEY_SOURCE, havingValue = "header")
+        static class Header {
+        }
+
+        @ConditionalOnProperty(name = HttpSourceRateLimitProperties.HTTP_RATE_LIMIT_KEY_SOURCE,
+                havingValue = "client-ip")
+        static class ClientIp {
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.wpik.httpsource.ratelimit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Rejects requests of clients over their rate limit with HTTP 429, before the body is read.
+ */
+class RateLimitFilter extends OncePerRequestFilter {
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    private final TokenBuckets buckets;
+
+    private final Predicate<String> sourcePath;
+
+    private final Function<HttpServletRequest, String> clientKey;
+
+    RateLimitFilter(TokenBuckets buckets, Predicate<String> sourcePath,
+                    Function<HttpServletRequest, String> clientKey) {
+        this.buckets = buckets;
+        this.sourcePath = sourcePath;
+        this.clientKey = clientKey;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !sourcePath.test(urlPathHelper.getPathWithinApplication(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = clientKey.apply(request);
+        long wait = buckets.tryAcquire(client == null ? "" : client);
+        if (wait > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(TokenBuckets.retryAfterSeconds(wait)));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Rate limit exceeded");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.wpik.httpsource.ratelimit;
+
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Reactive counterpart of {@link RateLimitFilter}.
+ */
+class ReactiveRateLimitFilter implements WebFilter, Ordered {
+
+    private final TokenBuckets buckets;
+
+    private final Predicate<String> sourcePath;
+
+    private final Function<ServerWebExchange, String> clientKey;
+
+    ReactiveRateLimitFilter(TokenBuckets buckets, Predicate<String> sourcePath,
+                            Function<ServerWebExchange, String> clientKey) {
+        this.buckets = buckets;
+        this.sourcePath = sourcePath;
+        this.clientKey = clientKey;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!sourcePath.test(exchange.getRequest().getPath().pathWithinApplication().value())) {
+            return chain.filter(exchange);
+        }
+        String client = clientKey.apply(exchange);
+        long wait = buckets.tryAcquire(client == null ? "" : client);
+        if (wait > 0) {
+            exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            exchange.getResponse().getHeaders()
+                    .set(HttpHeaders.RETRY_AFTER, String.valueOf(TokenBuckets.retryAfterSeconds(wait)));
+            return exchange.getResponse().setComplete();
+        }
+        return chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.wpik.httpsource.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket of each client, implemented as GCRA (generic cell rate algorithm): the whole state of a bucket is
+ * a single long, theoretical arrival time of the next request, updated by compare-and-set. Taking a token is a map
+ * lookup and a CAS, without locks. Buckets of clients idle long enough are evicted by {@link #evictIdle()}.
+ * <p>
+ * The number of tracked clients is limited, so that clients making up keys can't exhaust the heap: once the limit
+ * is reached, new clients share a single bucket until idle buckets are evicted.
+ */
+public class TokenBuckets {
+
+    public static final String REJECTIONS = "http.source.rate-limit.rejections";
+
+    public static final String CLIENTS = "http.source.rate-limit.clients";
+
+    private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final double rate;
+
+    private final int burst;
+
+    private final Map<String, Double> clientRates;
+
+    private final long idleTimeoutNanos;
+
+    private final int maxClients;
+
+    /**
+     * Bucket shared by clients not tracked because of the limit.
+     */
+    private final Bucket overflow;
+
+    private final Counter rejections;
+
+    TokenBuckets(double rate, int burst, Map<String, Double> clientRates, Duration idleTimeout, int maxClients,
+                 MeterRegistry registry) {
+        this.rate = rate;
+        this.burst = burst;
+        this.clientRates = clientRates;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.maxClients = maxClients;
+        this.overflow = newBucket("");
+        this.rejections = Counter.builder(REJECTIONS)
+                .description("HTTP requests rejected by rate limit")
+                .register(registry);
+        Gauge.builder(CLIENTS, buckets, Map::size)
+                .description("Clients tracked by rate limit")
+                .register(registry);
+    }
+
+    /**
+     * @return 0 when the client got a token, otherwise nanoseconds until the next token is available
+     */
+    long tryAcquire(String client) {
+        Bucket bucket = buckets.get(client);
+        if (bucket == null) {
+            bucket = buckets.size() < maxClients ? buckets.computeIfAbsent(client, this::newBucket) : overflow;
+        }
+        long wait = bucket.tryAcquire(System.nanoTime());
+        if (wait > 0) {
+            rejections.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Evicts buckets of clients which were idle for the idle timeout (their buckets are full).
+     */
+    void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> now - bucket.arrival.get() > idleTimeoutNanos);
+    }
+
+    static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private Bucket newBucket(String client) {
+        double clientRate = clientRates.getOrDefault(client, rate);
+        return new Bucket((long) (TimeUnit.SECONDS.toNanos(1) / clientRate), burst, System.nanoTime());
+    }
+
+    private static final class Bucket {
+
+        private final long interval;
+
+        private final long capacity;
+
+        /**
+         * Theoretical arrival time: when the bucket would be full again if no further request came.
+         */
+        private final AtomicLong arrival;
+
+        Bucket(long interval, int burst, long now) {
+            this.interval = interval;
+            this.capacity = interval * burst;
+            this.arrival = new AtomicLong(now);
+        }
+
+        long tryAcquire(long now) {
+            while (true) {
+                long current = arrival.get();
+                long next = Math.max(current - now, 0) + interval;
+                if (next > capacity) {
+                    return next - capacity;
+                }
+                if (arrival.compareAndSet(current, now + next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.wpik.httpsource.reactive;
+
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.IngestionPipeline;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.ResponseStatusExceptions;
+import com.github.wpik.httpsource.producer.ProducerAcknowledgements;
+import com.github.wpik.httpsource.spool.Spool;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.IntegrationFlows;
+import org.springframework.integration.http.HttpHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.webflux.dsl.WebFlux;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.util.concurrent.CompletableToListenableFutureAdapter;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reactive mode: requests are received by Netty, validated on the event loop and the response is completed once
+ * Kafka acknowledges the message, without blocking any thread while waiting for it.
+ */
+@Configuration
+@ConditionalOnProperty(name = HttpSourceProperties.HTTP_MODE, havingValue = "reactive")
+public class ReactiveHttpSourceConfig {
+
+    static final String ERROR_CHANNEL_NAME = "reactiveHttpInboundErrors";
+
+    @Bean
+    IntegrationFlow reactiveHttpInbound(HttpSourceProperties properties,
+                                        IngestionPipeline pipeline,
+                                        ProducerAcknowledgements acknowledgements,
+                                        ObjectProvider<Spool> spoolProvider) {
+        Spool spool = spoolProvider.getIfAvailable();
+        return pipeline.apply(IntegrationFlows.from(
+                WebFlux.inboundGateway(properties.getUriPath())
+                        .requestMapping(mapping ->
+                                mapping
+                                        .methods(properties.getHttpMethods())
+                                        .consumes(MediaType.APPLICATION_JSON_VALUE))
+                        .requestPayloadType(properties.isRawPayload() ? byte[].class : String.class)
+                        .mappedRequestHeaders(properties.getMappedRequestHeaders())
+                        .replyTimeout(properties.getProducerAckTimeout().toMillis())
+                        .errorChannel(ERROR_CHANNEL_NAME)
+                        .crossOrigin(crossOrigin ->
+                                crossOrigin
+                                        .origin(properties.getCors().getAllowedOrigins())
+                                        .allowedHeaders(properties.getCors().getAllowedHeaders())
+                                        .allowCredentials(properties.getCors().getAllowCredentials()))))
+                .handle(Message.class, (message, headers) ->
+                                new CompletableToListenableFutureAdapter<>(
+                                        (spool == null
+                                                ? acknowledgements.send(message)
+                                                : spool.sendAsync(message, acknowledgements::send))
+                                                .thenApply(metadata -> reply(properties))),
+                        e -> e.async(true))
+                .get();
+    }
+
+    private static Message<?> reply(HttpSourceProperties properties) {
+        return MessageBuilder.withPayload("")
+                .setHeader(HttpHeaders.STATUS_CODE, properties.getResponseStatus())
+                .build();
+    }
+
+    /**
+     * Renders {@link ResponseStatusException} thrown by validation stages or completing the acknowledgement, e.g. when
+     * Kafka doesn't acknowledge in time, the same way servlet mode does: {@code status}, {@code error},
+     * {@code message} and {@code path}. Other errors are propagated.
+     */
+    @Bean
+    IntegrationFlow reactiveHttpInboundErrors() {
+        return IntegrationFlows.from(ERROR_CHANNEL_NAME)
+                .handle(Throwable.class, (error, headers) -> {
+                    RejectedRequestException statusException = ResponseStatusExceptions.find(error);
+                    if (statusException == null) {
+                        throw error instanceof RuntimeException
+                                ? (RuntimeException) error : new IllegalStateException(error);
+                    }
+                    HttpStatus status = statusException.getStatus();
+                    Map<String, Object> body = new LinkedHashMap<>();
+                    body.put("status", status.value());
+                    body.put("error", status.getReasonPhrase());
+                    body.put("message", statusException.getReason());
+                    body.put("path", path(error));
+                    MessageBuilder<?> reply = MessageBuilder
+                            .withPayload(body)
+                            .setHeader(HttpHeaders.STATUS_CODE, status);
+                    statusException.getHeaders().forEach(reply::setHeader);
+                    return reply.build();
+                })
+                .get();
+    }
+
+    /**
+     * @return path of the request which failed, taken from the failed message
+     */
+    private static String path(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            Message<?> failedMessage = cause instanceof MessagingException
+                    ? ((MessagingException) cause).getFailedMessage() : null;
+            String url = failedMessage == null
+                    ? null : failedMessage.getHeaders().get(HttpHeaders.REQUEST_URL, String.class);
+            if (url != null) {
+                return URI.create(url).getPath();
+            }
+        }
+        return null;
+    }
+}
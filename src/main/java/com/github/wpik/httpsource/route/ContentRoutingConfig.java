@@ -0,0 +1,83 @@
+package com.github.wpik.httpsource.route;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.HttpSourceRoutingProperties;
+import com.github.wpik.httpsource.IngestionContext;
+import com.github.wpik.httpsource.IngestionStage;
+import com.github.wpik.httpsource.KeyNotFoundException;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.RejectionCause;
+import com.github.wpik.httpsource.json.JsonPathKeyExtractor;
+import com.github.wpik.httpsource.pojo.PojoKeyExtractor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Selects destination of each request by expression evaluated on the already parsed or deserialized body, compiled
+ * once like key expressions, and sets it as {@link IngestionContext#getDestination()}, sent as
+ * {@link com.github.wpik.httpsource.Headers#DESTINATION} header. Only destinations listed in configuration can be
+ * selected, so that clients can't make the source bind arbitrary topics. The destination is resolved to a binding by
+ * {@link com.github.wpik.httpsource.producer.Outputs}.
+ */
+@Configuration
+public class ContentRoutingConfig {
+
+    public static final String DESTINATION_ROUTER_BEAN_NAME = "destinationRouter";
+
+    private static final RejectedRequestException DESTINATION_NOT_SELECTED =
+            new RejectedRequestException(HttpStatus.BAD_REQUEST, RejectionCause.DESTINATION_NOT_SELECTED,
+                    "Couldn't select destination of request");
+
+    @ConditionalOnProperty(HttpSourceRoutingProperties.HTTP_ROUTING_EXPRESSION)
+    @Bean(DESTINATION_ROUTER_BEAN_NAME)
+    IngestionStage destinationRouter(HttpSourceProperties httpSourceProperties, ObjectMapper objectMapper) {
+        HttpSourceRoutingProperties properties = httpSourceProperties.getRouting();
+        Function<IngestionContext, byte[]> selector;
+        if (httpSourceProperties.getPojo().getClassName() != null) {
+            PojoKeyExtractor extractor = new PojoKeyExtractor(properties.getExpression(),
+                    httpSourceProperties.getPojo().getKeyCompilerMode());
+            selector = context -> extractor.extract(context.getDeserializedObject());
+        } else {
+            selector = new JsonPathKeyExtractor(properties.getExpression(), objectMapper)::extract;
+        }
+        Map<String, String> destinations = properties.getDestinations();
+        if (destinations.isEmpty()) {
+            throw new IllegalStateException(String.format("Content-based routing requires %s to map values of the "
+                    + "expression to destinations", HttpSourceRoutingProperties.HTTP_ROUTING_DESTINATIONS));
+        }
+        return context -> {
+            if (context.getDestination() != null) {
+                return;
+            }
+            String value = select(context, selector);
+            context.setDestination(value == null ? null : destinations.get(value));
+        };
+    }
+
+    @ConditionalOnProperty(value = HttpSourceRoutingProperties.HTTP_ROUTING_EXPRESSION, matchIfMissing = true)
+    @Bean(DESTINATION_ROUTER_BEAN_NAME)
+    IngestionStage defaultDestinationRouter() {
+        return IngestionStage.NONE;
+    }
+
+    private static String select(IngestionContext context, Function<IngestionContext, byte[]> selector) {
+        byte[] value;
+        try {
+            value = selector.apply(context);
+        } catch (KeyNotFoundException e) {
+            throw DESTINATION_NOT_SELECTED;
+        } catch (RejectedRequestException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw DESTINATION_NOT_SELECTED;
+        }
+        return value == null || value.length == 0 ? null : new String(value, StandardCharsets.UTF_8);
+    }
+}
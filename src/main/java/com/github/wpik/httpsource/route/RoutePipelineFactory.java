@@ -0,0 +1,94 @@
+package com.github.wpik.httpsource.route;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.HttpSourceRouteProperties;
+import com.github.wpik.httpsource.IngestionPipeline;
+import com.github.wpik.httpsource.IngestionStage;
+import com.github.wpik.httpsource.json.JsonParserConfig;
+import com.github.wpik.httpsource.json.JsonPathKeyExtractor;
+import com.github.wpik.httpsource.json.JsonPathKeyExtractorConfig;
+import com.github.wpik.httpsource.json.JsonSchemaValidatorConfig;
+import com.github.wpik.httpsource.metrics.PipelineMetrics;
+import com.github.wpik.httpsource.pojo.PojoDeserializerConfig;
+import com.github.wpik.httpsource.pojo.PojoKeyExtractor;
+import com.github.wpik.httpsource.pojo.PojoKeyExtractorConfig;
+import com.github.wpik.httpsource.pojo.PojoValidatorConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.validation.Validator;
+import java.io.IOException;
+
+/**
+ * Creates ingestion pipeline of a route, with JSON Schema, POJO class and key expression of the route compiled once.
+ * Rate limiting, idempotency id extraction, partitioning and metrics are shared with the main URI path; validation
+ * cache and content-based routing are not used by routes.
+ */
+@RequiredArgsConstructor
+class RoutePipelineFactory {
+
+    private final HttpSourceProperties properties;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final ResourceLoader resourceLoader;
+
+    private final TaskScheduler taskScheduler;
+
+    private final IngestionStage rateLimiter;
+
+    /**
+     * Parser of the main URI path, used when the route itself doesn't need parsed request body.
+     */
+    private final IngestionStage jsonParser;
+
+    private final IngestionStage bodyIdempotencyIdExtractor;
+
+    private final IngestionStage requestIdempotencyIdExtractor;
+
+    private final IngestionStage partitioner;
+
+    private final PipelineMetrics metrics;
+
+    IngestionPipeline create(HttpSourceRouteProperties route) throws IOException {
+        boolean parsingRequired = false;
+
+        IngestionStage jsonValidator = IngestionStage.NONE;
+        if (route.getSchemaLocation() != null) {
+            jsonValidator = JsonSchemaValidatorConfig.validationStage(JsonSchemaValidatorConfig.schemaValidator(
+                    route.getSchemaLocation(), properties.getJson(), objectMapper, resourceLoader, taskScheduler,
+                    () -> { }));
+            parsingRequired = true;
+        }
+
+        IngestionStage pojoDeserializer = IngestionStage.NONE;
+        IngestionStage pojoValidator = IngestionStage.NONE;
+        IngestionStage jsonPathKeyExtractor = IngestionStage.NONE;
+        IngestionStage pojoKeyExtractor = IngestionStage.NONE;
+        if (route.getClassName() != null) {
+            pojoDeserializer = PojoDeserializerConfig.deserializationStage(route.getClassName(), objectMapper);
+            pojoValidator = PojoValidatorConfig.validationStage(validator);
+            parsingRequired = true;
+            if (route.getKeyExpression() != null) {
+                pojoKeyExtractor = PojoKeyExtractorConfig.keyExtractionStage(new PojoKeyExtractor(
+                        route.getKeyExpression(), properties.getPojo().getKeyCompilerMode()));
+            }
+        } else if (route.getKeyExpression() != null) {
+            JsonPathKeyExtractor extractor = new JsonPathKeyExtractor(route.getKeyExpression(), objectMapper);
+            jsonPathKeyExtractor = JsonPathKeyExtractorConfig.keyExtractionStage(extractor);
+            // scanning for the key besides the rate limit key or the idempotency id would be another pass over the body
+            parsingRequired |= !extractor.isStreaming()
+                    || rateLimiter != IngestionStage.NONE || bodyIdempotencyIdExtractor != IngestionStage.NONE;
+        }
+
+        return new IngestionPipeline(rateLimiter,
+                parsingRequired ? JsonParserConfig.parsingStage(objectMapper) : jsonParser,
+                jsonValidator, pojoDeserializer, pojoValidator, jsonPathKeyExtractor, pojoKeyExtractor,
+                IngestionStage.NONE, bodyIdempotencyIdExtractor, requestIdempotencyIdExtractor, partitioner, metrics,
+                null);
+    }
+}
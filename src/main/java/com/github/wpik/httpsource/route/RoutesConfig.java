@@ -0,0 +1,72 @@
+package com.github.wpik.httpsource.route;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.HttpSourceRouteProperties;
+import com.github.wpik.httpsource.IngestionStage;
+import com.github.wpik.httpsource.ServletInboundFlows;
+import com.github.wpik.httpsource.dedup.IdempotencyIdExtractorConfig;
+import com.github.wpik.httpsource.json.JsonParserConfig;
+import com.github.wpik.httpsource.metrics.PipelineMetrics;
+import com.github.wpik.httpsource.partition.PartitionerConfig;
+import com.github.wpik.httpsource.ratelimit.RateLimitConfig;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.context.IntegrationFlowContext;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Serves {@link HttpSourceProperties#getRoutes()} next to the main URI path, in servlet mode. Each route has its own
+ * inbound flow and ingestion pipeline, see {@link RoutePipelineFactory}. Requests are dispatched to routes by
+ * Spring MVC request mapping, which looks up URI paths without patterns directly, by path. Routes without
+ * destination send messages to the output, sharing its Kafka producer.
+ */
+@Configuration
+@ConditionalOnProperty(name = HttpSourceProperties.HTTP_MODE, havingValue = "servlet", matchIfMissing = true)
+public class RoutesConfig {
+
+    private static final String ROUTE_FLOW_ID_PREFIX = "httpSourceRoute.";
+
+    @Bean
+    SmartInitializingSingleton routeFlows(
+            HttpSourceProperties properties,
+            ObjectMapper objectMapper,
+            Validator validator,
+            ResourceLoader resourceLoader,
+            @Qualifier(IntegrationContextUtils.TASK_SCHEDULER_BEAN_NAME) TaskScheduler taskScheduler,
+            @Qualifier(RateLimitConfig.RATE_LIMITER_BEAN_NAME)
+                    IngestionStage rateLimiter,
+            @Qualifier(JsonParserConfig.JSON_PARSER_BEAN_NAME)
+                    IngestionStage jsonParser,
+            @Qualifier(IdempotencyIdExtractorConfig.BODY_ID_EXTRACTOR_BEAN_NAME)
+                    IngestionStage bodyIdempotencyIdExtractor,
+            @Qualifier(IdempotencyIdExtractorConfig.REQUEST_ID_EXTRACTOR_BEAN_NAME)
+                    IngestionStage requestIdempotencyIdExtractor,
+            @Qualifier(PartitionerConfig.PARTITIONER_BEAN_NAME)
+                    IngestionStage partitioner,
+            PipelineMetrics metrics,
+            ServletInboundFlows servletInboundFlows,
+            IntegrationFlowContext flowContext) throws IOException {
+        RoutePipelineFactory pipelineFactory = new RoutePipelineFactory(properties, objectMapper, validator,
+                resourceLoader, taskScheduler, rateLimiter, jsonParser, bodyIdempotencyIdExtractor,
+                requestIdempotencyIdExtractor, partitioner, metrics);
+        Map<String, IntegrationFlow> flows = new LinkedHashMap<>();
+        for (Map.Entry<String, HttpSourceRouteProperties> entry : properties.getRoutes().entrySet()) {
+            HttpSourceRouteProperties route = entry.getValue();
+            flows.put(ROUTE_FLOW_ID_PREFIX + entry.getKey(), servletInboundFlows.flow(route.getUriPath(),
+                    pipelineFactory.create(route), route.getDestination()));
+        }
+        return () -> flows.forEach((id, flow) -> flowContext.registration(flow).id(id).register());
+    }
+}
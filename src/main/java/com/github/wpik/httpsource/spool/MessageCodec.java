@@ -0,0 +1,135 @@
+package com.github.wpik.httpsource.spool;
+
+import com.github.wpik.httpsource.Headers;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.MimeType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binary form of spooled messages: payload and headers sent to Kafka. Headers of other types than strings, byte
+ * arrays, numbers and booleans are not kept (content type is kept as string), neither are transient headers used by
+ * the pipeline.
+ */
+final class MessageCodec {
+
+    private static final Set<String> TRANSIENT_HEADERS = new HashSet<>(Arrays.asList(
+            MessageHeaders.ID, MessageHeaders.TIMESTAMP, MessageHeaders.REPLY_CHANNEL, MessageHeaders.ERROR_CHANNEL,
+            Headers.JSON_NODE, Headers.SEND_SEQUENCE));
+
+    private static final byte STRING = 0;
+    private static final byte BYTES = 1;
+    private static final byte LONG = 2;
+    private static final byte INTEGER = 3;
+    private static final byte BOOLEAN = 4;
+
+    private MessageCodec() {
+    }
+
+    static byte[] encode(Message<?> message) {
+        Map<String, Object> headers = new LinkedHashMap<>();
+        message.getHeaders().forEach((name, value) -> {
+            if (!TRANSIENT_HEADERS.contains(name)) {
+                Object encodable = value instanceof MimeType ? value.toString() : value;
+                if (encodable instanceof String || encodable instanceof byte[] || encodable instanceof Long
+                        || encodable instanceof Integer || encodable instanceof Boolean) {
+                    headers.put(name, encodable);
+                }
+            }
+        });
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            Object payload = message.getPayload();
+            boolean raw = payload instanceof byte[];
+            out.writeBoolean(raw);
+            writeBytes(out, raw ? (byte[]) payload : payload.toString().getBytes(StandardCharsets.UTF_8));
+            out.writeInt(headers.size());
+            for (Map.Entry<String, Object> header : headers.entrySet()) {
+                out.writeUTF(header.getKey());
+                writeValue(out, header.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Message<?> decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            boolean raw = in.readBoolean();
+            byte[] payload = readBytes(in);
+            MessageBuilder<?> builder = raw
+                    ? MessageBuilder.withPayload(payload)
+                    : MessageBuilder.withPayload(new String(payload, StandardCharsets.UTF_8));
+            int headerCount = in.readInt();
+            for (int i = 0; i < headerCount; i++) {
+                builder.setHeader(in.readUTF(), readValue(in));
+            }
+            return builder.build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof String) {
+            out.writeByte(STRING);
+            writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof byte[]) {
+            out.writeByte(BYTES);
+            writeBytes(out, (byte[]) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case STRING:
+                return new String(readBytes(in), StandardCharsets.UTF_8);
+            case BYTES:
+                return readBytes(in);
+            case LONG:
+                return in.readLong();
+            case INTEGER:
+                return in.readInt();
+            case BOOLEAN:
+                return in.readBoolean();
+            default:
+                throw new IOException("Unknown header type " + type);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
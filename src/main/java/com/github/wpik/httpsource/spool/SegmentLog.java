@@ -0,0 +1,366 @@
+package com.github.wpik.httpsource.spool;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of records kept in memory mapped segment files of fixed size. Records are addressed by logical
+ * position: segment base plus offset within the segment. Each record is stored as length, CRC32, timestamp and data;
+ * length is written last, so a record torn by a crash fails the checksum and ends the log when it is reopened.
+ * Zero length ends the records of a segment: it is written when the log rolls to the next segment, and the tail of
+ * the last segment after its intact records is zeroed when the log is reopened, so that bytes of torn records are
+ * never read as records.
+ * <p>
+ * Appended records become durable after {@link #sync(long)}. Threads syncing concurrently share a single force of
+ * the segments (group commit). Position of the oldest unread record is kept in the checkpoint file, which is not
+ * forced: after a crash some records may be read again.
+ */
+@Slf4j
+class SegmentLog implements Closeable {
+
+    private static final int RECORD_HEADER_SIZE = 16;
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+
+    private static final String CHECKPOINT_FILE_NAME = "checkpoint";
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final long maxSize;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private final FileChannel checkpoint;
+
+    private final Object syncLock = new Object();
+
+    private volatile long readPosition;
+
+    private volatile long writePosition;
+
+    private volatile long durablePosition;
+
+    private SegmentLog(Path directory, int segmentSize, long maxSize, FileChannel checkpoint) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+        this.checkpoint = checkpoint;
+    }
+
+    static SegmentLog open(Path directory, int segmentSize, long maxSize) throws IOException {
+        if (segmentSize <= RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be larger than " + RECORD_HEADER_SIZE + " bytes");
+        }
+        Files.createDirectories(directory);
+        FileChannel checkpoint = FileChannel.open(directory.resolve(CHECKPOINT_FILE_NAME),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        SegmentLog segmentLog = new SegmentLog(directory, segmentSize, maxSize, checkpoint);
+        try {
+            segmentLog.recover();
+        } catch (IOException | RuntimeException e) {
+            checkpoint.close();
+            throw e;
+        }
+        return segmentLog;
+    }
+
+    /**
+     * @return position after the appended record, or -1 when the record doesn't fit in a segment or the log is full
+     */
+    synchronized long append(byte[] data, long timestamp) throws IOException {
+        if (data.length == 0) {
+            throw new IllegalArgumentException("Record must not be empty");
+        }
+        int recordSize = RECORD_HEADER_SIZE + data.length;
+        if (recordSize > segmentSize || writePosition - readPosition + recordSize > maxSize) {
+            return -1;
+        }
+        Segment segment = segments.lastEntry().getValue();
+        int offset = (int) (writePosition - segment.base);
+        if (offset + recordSize > segmentSize) {
+            if (offset + 4 <= segmentSize) {
+                segment.buffer.putInt(offset, 0);
+            }
+            segment = createSegment(segment.base + segmentSize);
+            offset = 0;
+        }
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(offset + 4);
+        buffer.putInt(checksum(data, timestamp));
+        buffer.putLong(timestamp);
+        buffer.put(data);
+        segment.buffer.putInt(offset, data.length);
+        writePosition = segment.base + offset + recordSize;
+        return writePosition;
+    }
+
+    /**
+     * Makes records appended up to the position durable.
+     */
+    void sync(long position) {
+        if (durablePosition >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durablePosition >= position) {
+                return;
+            }
+            long target;
+            List<Segment> unsynced;
+            synchronized (this) {
+                target = writePosition;
+                Long from = segments.floorKey(durablePosition);
+                unsynced = new ArrayList<>(from == null ? segments.values() : segments.tailMap(from).values());
+            }
+            for (Segment segment : unsynced) {
+                segment.buffer.force();
+            }
+            durablePosition = target;
+        }
+    }
+
+    /**
+     * @return up to max oldest unread records, up to the first corrupted one; they are read again until
+     * {@link #commit(long) committed}
+     * @throws IllegalStateException when the oldest unread record is corrupted, see {@link #skipCorrupted()}
+     */
+    synchronized List<Record> read(int max) {
+        List<Record> records = new ArrayList<>();
+        long position = readPosition;
+        while (records.size() < max && position < writePosition) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(position);
+            Segment segment = entry.getValue();
+            int offset = (int) (position - segment.base);
+            int length = offset + RECORD_HEADER_SIZE > segmentSize ? 0 : segment.buffer.getInt(offset);
+            if (length == 0) {
+                Long next = segments.higherKey(segment.base);
+                if (next == null) {
+                    break;
+                }
+                position = next;
+                continue;
+            }
+            if (length < 0 || offset + RECORD_HEADER_SIZE + length > segmentSize
+                    || position + RECORD_HEADER_SIZE + length > writePosition) {
+                if (!records.isEmpty()) {
+                    break;
+                }
+                throw new IllegalStateException("Corrupted spool record at position " + position
+                        + ", invalid length " + length);
+            }
+            ByteBuffer buffer = segment.buffer.duplicate();
+            buffer.position(offset + 4);
+            int checksum = buffer.getInt();
+            long timestamp = buffer.getLong();
+            byte[] data = new byte[length];
+            buffer.get(data);
+            if (checksum != checksum(data, timestamp)) {
+                if (!records.isEmpty()) {
+                    break;
+                }
+                throw new IllegalStateException("Corrupted spool record at position " + position);
+            }
+            position += RECORD_HEADER_SIZE + length;
+            records.add(new Record(position, timestamp, data));
+        }
+        return records;
+    }
+
+    /**
+     * Marks records up to the position as read and deletes segments which hold no unread records.
+     */
+    synchronized void commit(long position) {
+        readPosition = position;
+        while (segments.size() > 1 && segments.firstKey() + segmentSize <= position) {
+            Segment segment = segments.pollFirstEntry().getValue();
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                log.warn("Couldn't delete spool segment {}", segment.path, e);
+            }
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(8).putLong(0, position);
+            checkpoint.write(buffer, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Skips the rest of the segment holding the oldest unread record, when the record is corrupted: its length can't
+     * be trusted to find the following records of the segment.
+     *
+     * @return number of skipped bytes
+     */
+    synchronized long skipCorrupted() {
+        Segment segment = segments.floorEntry(readPosition).getValue();
+        Long next = segments.higherKey(segment.base);
+        long position = next == null ? writePosition : next;
+        long skipped = position - readPosition;
+        commit(position);
+        return skipped;
+    }
+
+    boolean isEmpty() {
+        return readPosition == writePosition;
+    }
+
+    /**
+     * @return number of bytes taken by unread records
+     */
+    long size() {
+        return writePosition - readPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync(writePosition);
+        checkpoint.close();
+    }
+
+    private void recover() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(base, mapSegment(base, file));
+            }
+        }
+        long checkpointPosition = readCheckpoint();
+        if (segments.isEmpty()) {
+            createSegment(Math.max(checkpointPosition, 0));
+            readPosition = writePosition = durablePosition = segments.firstKey();
+            return;
+        }
+
+        long position = Math.max(checkpointPosition, segments.firstKey());
+        Segment last = segments.lastEntry().getValue();
+        if (position < last.base) {
+            writePosition = last.base;
+        } else {
+            writePosition = Math.min(position, last.base + segmentSize);
+        }
+        writePosition = scan(last, writePosition);
+        clearTail(last, writePosition);
+        durablePosition = writePosition;
+        commit(Math.min(position, writePosition));
+        log.info("Opened spool {} with {} bytes of unsent messages", directory, size());
+    }
+
+    /**
+     * @return position after the last intact record of the segment, starting from the position
+     */
+    private long scan(Segment segment, long position) {
+        int offset = (int) (position - segment.base);
+        while (offset + RECORD_HEADER_SIZE <= segmentSize) {
+            int length = segment.buffer.getInt(offset);
+            if (length <= 0 || offset + RECORD_HEADER_SIZE + length > segmentSize) {
+                break;
+            }
+            ByteBuffer buffer = segment.buffer.duplicate();
+            buffer.position(offset + 4);
+            int checksum = buffer.getInt();
+            long timestamp = buffer.getLong();
+            byte[] data = new byte[length];
+            buffer.get(data);
+            if (checksum != checksum(data, timestamp)) {
+                log.warn("Spool segment {} ends with torn record at offset {}", segment.path, offset);
+                break;
+            }
+            offset += RECORD_HEADER_SIZE + length;
+        }
+        return segment.base + offset;
+    }
+
+    /**
+     * Zeroes the segment after the position, so that bytes of torn records are neither read before they are
+     * overwritten nor taken for records when the log is reopened again.
+     */
+    private void clearTail(Segment segment, long position) {
+        int offset = (int) (position - segment.base);
+        boolean dirty = false;
+        for (int i = offset; i < segmentSize; i++) {
+            if (segment.buffer.get(i) != 0) {
+                segment.buffer.put(i, (byte) 0);
+                dirty = true;
+            }
+        }
+        if (dirty) {
+            log.warn("Cleared tail of spool segment {} after offset {}", segment.path, offset);
+            segment.buffer.force();
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        while (buffer.hasRemaining()) {
+            if (checkpoint.read(buffer, buffer.position()) < 0) {
+                return -1;
+            }
+        }
+        return buffer.getLong(0);
+    }
+
+    private Segment createSegment(long base) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+        Segment segment = mapSegment(base, file);
+        segments.put(base, segment);
+        return segment;
+    }
+
+    private Segment mapSegment(long base, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Segment(base, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        }
+    }
+
+    private static int checksum(byte[] data, long timestamp) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(8).putLong(0, timestamp).array());
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    static class Record {
+        final long end;
+        final long timestamp;
+        final byte[] data;
+
+        Record(long end, long timestamp, byte[] data) {
+            this.end = end;
+            this.timestamp = timestamp;
+            this.data = data;
+        }
+    }
+
+    private static class Segment {
+        private final long base;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+
+        Segment(long base, Path path, MappedByteBuffer buffer) {
+            this.base = base;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.github.wpik.httpsource.spool;
+
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.RejectionCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Durable local spool of messages which couldn't be sent to Kafka. A message is spooled when its send fails with
+ * a retriable failure, is rejected or is not acknowledged in time, and the request succeeds once the message is
+ * synced to disk. Failures which would persist on retry (see {@link #isRetriable(Throwable)}) fail the request as
+ * they would without spool. While the spool is not empty, new messages are spooled too, so that messages reach Kafka
+ * in the order they were accepted. Spooled messages are drained to Kafka in the background, see
+ * {@link #drain(Function)}; delivery is at-least-once.
+ * <p>
+ * Messages of asynchronous sends are spooled by the spool executor, so that neither Kafka producer threads, which
+ * complete the sends, nor event loop threads wait for the disk.
+ */
+@Slf4j
+public class Spool implements Closeable {
+
+    public static final String SPOOL_SIZE = "http.source.spool.size";
+
+    public static final String SPOOL_RECORDS = "http.source.spool.records";
+
+    private static final int DRAIN_BATCH_SIZE = 256;
+
+    private static final RejectedRequestException SPOOL_FULL =
+            new RejectedRequestException(HttpStatus.SERVICE_UNAVAILABLE, RejectionCause.SPOOL_FULL, "Spool is full");
+
+    private final SegmentLog segmentLog;
+
+    private final long maxAgeMillis;
+
+    private final Consumer<Message<?>> release;
+
+    private final ExecutorService executor;
+
+    private final Counter spooled;
+
+    private final Counter drained;
+
+    private final Counter expired;
+
+    private final Counter dropped;
+
+    private volatile boolean closed;
+
+    /**
+     * @param release  called with each message spooled after a failed send, to forget its idempotency id
+     * @param executor spools messages of asynchronous sends, shut down when the spool is closed
+     */
+    Spool(SegmentLog segmentLog, Duration maxAge, Consumer<Message<?>> release, ExecutorService executor,
+          MeterRegistry registry) {
+        this.segmentLog = segmentLog;
+        this.maxAgeMillis = maxAge.toMillis();
+        this.release = release;
+        this.executor = executor;
+        Gauge.builder(SPOOL_SIZE, segmentLog, SegmentLog::size)
+                .description("Size of messages awaiting in the spool")
+                .baseUnit("bytes")
+                .register(registry);
+        this.spooled = records(registry, "spooled");
+        this.drained = records(registry, "drained");
+        this.expired = records(registry, "expired");
+        this.dropped = records(registry, "dropped");
+    }
+
+    /**
+     * Sends message using the sender which returns once Kafka acknowledges it, or spools the message.
+     *
+     * @throws RuntimeException thrown by the sender, when the message couldn't be spooled
+     */
+    public void send(Message<?> message, Consumer<Message<?>> sender) {
+        if (!segmentLog.isEmpty()) {
+            spool(message, null);
+            return;
+        }
+        try {
+            sender.accept(message);
+        } catch (RuntimeException e) {
+            if (!isRetriable(e)) {
+                throw e;
+            }
+            spool(message, e);
+        }
+    }
+
+    /**
+     * Sends message using the sender which returns future completed once Kafka acknowledges it, or spools
+     * the message.
+     *
+     * @return future completed when the message is acknowledged or spooled, or completed exceptionally with the send
+     * failure, when the message couldn't be spooled
+     */
+    public CompletableFuture<Object> sendAsync(Message<?> message,
+                                               Function<Message<?>, CompletableFuture<Object>> sender) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        if (!segmentLog.isEmpty()) {
+            spoolAsync(message, null, result);
+            return result;
+        }
+        CompletableFuture<Object> sent;
+        try {
+            sent = sender.apply(message);
+        } catch (RuntimeException e) {
+            sent = new CompletableFuture<>();
+            sent.completeExceptionally(e);
+        }
+        sent.whenComplete((metadata, error) -> {
+            if (error == null) {
+                result.complete(metadata);
+            } else if (!isRetriable(error)) {
+                result.completeExceptionally(error);
+            } else {
+                spoolAsync(message, error, result);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Sends spooled messages in order, using the sender, until the spool is empty or a send fails with a retriable
+     * failure. Messages older than max age are dropped, as well as messages which can't be decoded or sent (e.g. too
+     * large), so that they don't block the following ones; corrupted records are skipped with the rest of their
+     * segment.
+     */
+    public void drain(Function<Message<?>, CompletableFuture<?>> sender) {
+        while (!closed) {
+            List<SegmentLog.Record> records;
+            try {
+                records = segmentLog.read(DRAIN_BATCH_SIZE);
+            } catch (IllegalStateException e) {
+                long skipped = segmentLog.skipCorrupted();
+                dropped.increment();
+                log.error("Skipped {} bytes of spooled messages after corrupted record", skipped, e);
+                continue;
+            }
+            if (records.isEmpty()) {
+                return;
+            }
+            long expiredBefore = System.currentTimeMillis() - maxAgeMillis;
+            List<CompletableFuture<?>> sends = new ArrayList<>(records.size());
+            for (SegmentLog.Record record : records) {
+                if (record.timestamp < expiredBefore) {
+                    sends.add(CompletableFuture.completedFuture(null));
+                    continue;
+                }
+                CompletableFuture<?> send;
+                try {
+                    send = sender.apply(decode(record));
+                } catch (RuntimeException e) {
+                    CompletableFuture<?> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(e);
+                    send = failed;
+                }
+                sends.add(send);
+                if (send.isCompletedExceptionally() && isRetriable(failure(send))) {
+                    break;
+                }
+            }
+
+            long position = -1;
+            int expiredCount = 0;
+            for (int i = 0; i < sends.size(); i++) {
+                SegmentLog.Record record = records.get(i);
+                try {
+                    sends.get(i).join();
+                } catch (CompletionException e) {
+                    if (isRetriable(e.getCause())) {
+                        log.warn("Draining spool stopped, sending to Kafka failed: {}", e.getCause().toString());
+                        break;
+                    }
+                    log.error("Dropped spooled message which can't be sent to Kafka", e.getCause());
+                    dropped.increment();
+                    position = record.end;
+                    continue;
+                }
+                if (record.timestamp < expiredBefore) {
+                    expiredCount++;
+                } else {
+                    drained.increment();
+                }
+                position = record.end;
+            }
+            if (expiredCount > 0) {
+                expired.increment(expiredCount);
+                log.warn("Dropped {} spooled messages older than {} ms", expiredCount, maxAgeMillis);
+            }
+            if (position >= 0) {
+                segmentLog.commit(position);
+            }
+            if (position != records.get(records.size() - 1).end) {
+                return;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return segmentLog.isEmpty();
+    }
+
+    /**
+     * Failures of Kafka which persist on retry (e.g. record too large, serialization failure, invalid topic), failures
+     * of message conversion, rejections caused by the client (e.g. duplicate of a request being sent) and undecodable
+     * spooled messages are not retriable. Other failures, e.g. timeouts, unavailable brokers and messages not
+     * acknowledged in time, are.
+     */
+    static boolean isRetriable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return true;
+            }
+            if (cause instanceof RejectedRequestException) {
+                return !((RejectedRequestException) cause).getStatus().is4xxClientError();
+            }
+            if (cause instanceof ResponseStatusException) {
+                return !((ResponseStatusException) cause).getStatus().is4xxClientError();
+            }
+            if (cause instanceof KafkaException || cause instanceof MessageConversionException
+                    || cause instanceof UndecodableMessageException) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Spooling messages didn't complete within 10 seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segmentLog.close();
+    }
+
+    /**
+     * Spools the message by the executor and completes the result once it is spooled.
+     */
+    private void spoolAsync(Message<?> message, Throwable sendFailure, CompletableFuture<Object> result) {
+        try {
+            executor.execute(() -> {
+                try {
+                    spool(message, sendFailure);
+                    result.complete(null);
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(sendFailure != null ? sendFailure : e);
+        }
+    }
+
+    private void spool(Message<?> message, Throwable sendFailure) {
+        long position;
+        try {
+            position = segmentLog.append(MessageCodec.encode(message), System.currentTimeMillis());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (position < 0) {
+            if (sendFailure != null) {
+                throw sendFailure instanceof RuntimeException
+                        ? (RuntimeException) sendFailure : new IllegalStateException(sendFailure);
+            }
+            throw SPOOL_FULL;
+        }
+        segmentLog.sync(position);
+        if (sendFailure != null) {
+            release.accept(message);
+        }
+        spooled.increment();
+    }
+
+    private static Message<?> decode(SegmentLog.Record record) {
+        try {
+            return MessageCodec.decode(record.data);
+        } catch (RuntimeException e) {
+            throw new UndecodableMessageException(e);
+        }
+    }
+
+    private static Throwable failure(CompletableFuture<?> failed) {
+        try {
+            failed.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause();
+        }
+    }
+
+    private static Counter records(MeterRegistry registry, String event) {
+        return Counter.builder(SPOOL_RECORDS)
+                .description("Messages spooled, drained to Kafka or dropped as too old or undeliverable")
+                .tag("event", event)
+                .register(registry);
+    }
+
+    private static final class UndecodableMessageException extends RuntimeException {
+        UndecodableMessageException(Throwable cause) {
+            super("Spooled message can't be decoded", cause);
+        }
+    }
+}
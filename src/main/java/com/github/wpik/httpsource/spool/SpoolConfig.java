@@ -0,0 +1,79 @@
+package com.github.wpik.httpsource.spool;
+
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.HttpSourceSpoolProperties;
+import com.github.wpik.httpsource.dedup.DuplicateSuppressor;
+import com.github.wpik.httpsource.metrics.PipelineMetrics;
+import com.github.wpik.httpsource.producer.Outputs;
+import com.github.wpik.httpsource.producer.ProducerAcknowledgements;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Local spool of messages which couldn't be sent to Kafka, drained periodically by the task scheduler. Spooled
+ * messages are sent the same way as new ones: waiting for asynchronous acknowledgement when it is enabled,
+ * synchronously otherwise. Messages of asynchronous sends are spooled by a dedicated pool of
+ * {@code http.spool.sync-threads} threads.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(HttpSourceSpoolProperties.HTTP_SPOOL_DIRECTORY)
+public class SpoolConfig {
+
+    @Bean(destroyMethod = "close")
+    Spool spool(HttpSourceProperties httpSourceProperties,
+                MeterRegistry meterRegistry,
+                PipelineMetrics metrics,
+                Outputs outputs,
+                ObjectProvider<ProducerAcknowledgements> acknowledgementsProvider,
+                ObjectProvider<DuplicateSuppressor> duplicateSuppressorProvider,
+                @Qualifier(IntegrationContextUtils.TASK_SCHEDULER_BEAN_NAME) TaskScheduler taskScheduler)
+            throws IOException {
+        HttpSourceSpoolProperties properties = httpSourceProperties.getSpool();
+        long segmentSize = properties.getSegmentSize().toBytes();
+        if (segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Spool segment size must be smaller than 2GB");
+        }
+        SegmentLog segmentLog = SegmentLog.open(Paths.get(properties.getDirectory()), (int) segmentSize,
+                properties.getMaxSize().toBytes());
+
+        DuplicateSuppressor duplicateSuppressor = duplicateSuppressorProvider.getIfAvailable();
+        Consumer<Message<?>> release = duplicateSuppressor == null ? message -> { } : duplicateSuppressor::release;
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getSyncThreads(),
+                new CustomizableThreadFactory("spool-"));
+        Spool spool = new Spool(segmentLog, properties.getMaxAge(), release, executor, meterRegistry);
+
+        ProducerAcknowledgements acknowledgements = acknowledgementsProvider.getIfAvailable();
+        Function<Message<?>, CompletableFuture<?>> sender = acknowledgements != null
+                ? acknowledgements::send
+                : message -> {
+                    metrics.send(outputs.channel(message), message);
+                    return CompletableFuture.completedFuture(null);
+                };
+        taskScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                spool.drain(sender);
+            } catch (RuntimeException e) {
+                log.error("Draining spool failed", e);
+            }
+        }, properties.getDrainInterval().toMillis());
+        return spool;
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.wpik.httpsource.web;
+
+import com.github.wpik.httpsource.HttpSourceAdmissionProperties;
+import com.github.wpik.httpsource.HttpSourceProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.WebFilter;
+
+/**
+ * Adaptive admission control of requests to the source paths (including batch path), see
+ * {@link AdmissionController}. Other endpoints, e.g. actuator, are not limited.
+ */
+@Configuration
+@ConditionalOnProperty(HttpSourceAdmissionProperties.HTTP_ADMISSION_ENABLED)
+public class AdmissionConfig {
+
+    @Bean
+    AdmissionController admissionController(HttpSourceProperties httpSourceProperties, MeterRegistry meterRegistry) {
+        HttpSourceAdmissionProperties properties = httpSourceProperties.getAdmission();
+        GradientLimit limit = new GradientLimit(properties.getInitialLimit(), properties.getMinLimit(),
+                properties.getMaxLimit(), properties.getLatencyTolerance());
+        return new AdmissionController(limit, properties.getPriorities(), meterRegistry);
+    }
+
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @Bean
+    FilterRegistrationBean<AdmissionFilter> admissionFilter(HttpSourceProperties httpSourceProperties,
+                                                            AdmissionController admissionController) {
+        HttpSourceAdmissionProperties properties = httpSourceProperties.getAdmission();
+        FilterRegistrationBean<AdmissionFilter> registration = new FilterRegistrationBean<>(new AdmissionFilter(
+                admissionController, SourcePaths.of(httpSourceProperties), properties.getPriorityHeader(),
+                retryAfterSeconds(properties)));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    @Bean
+    WebFilter reactiveAdmissionFilter(HttpSourceProperties httpSourceProperties,
+                                      AdmissionController admissionController) {
+        HttpSourceAdmissionProperties properties = httpSourceProperties.getAdmission();
+        return new ReactiveAdmissionFilter(admissionController, SourcePaths.of(httpSourceProperties),
+                properties.getPriorityHeader(), retryAfterSeconds(properties));
+    }
+
+    private static long retryAfterSeconds(HttpSourceAdmissionProperties properties) {
+        long millis = properties.getRetryAfter().toMillis();
+        return Math.max(1, (millis + 999) / 1000);
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.wpik.httpsource.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits requests while the number of requests in flight is below the {@link GradientLimit adaptive limit}.
+ * Requests of a priority class with a share of the limit are admitted only below that share of the limit.
+ * Excess requests are rejected at once: with HTTP 503 when the limit is used, with HTTP 429 when only
+ * the share of their class is.
+ */
+class AdmissionController {
+
+    static final String LIMIT = "http.source.admission.limit";
+
+    static final String IN_FLIGHT = "http.source.admission.in-flight";
+
+    static final String REJECTIONS = "http.source.admission.rejections";
+
+    private final GradientLimit limit;
+
+    private final Map<String, Double> shares;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Counter limitRejections;
+
+    private final Counter shareRejections;
+
+    AdmissionController(GradientLimit limit, Map<String, Double> shares, MeterRegistry registry) {
+        this.limit = limit;
+        this.shares = shares;
+        Gauge.builder(LIMIT, limit, GradientLimit::get)
+                .description("Concurrency limit of HTTP requests")
+                .register(registry);
+        Gauge.builder(IN_FLIGHT, inFlight, AtomicInteger::get)
+                .description("HTTP requests in flight")
+                .register(registry);
+        this.limitRejections = rejections(registry, HttpStatus.SERVICE_UNAVAILABLE);
+        this.shareRejections = rejections(registry, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    /**
+     * @param priorityClass priority class of the request, or null
+     * @return null when the request is admitted and has to be {@link #release(long, boolean) released} once
+     * completed, otherwise status to reject it with
+     */
+    HttpStatus admit(String priorityClass) {
+        double share = priorityClass == null ? 1.0 : shares.getOrDefault(priorityClass, 1.0);
+        while (true) {
+            int current = inFlight.get();
+            int currentLimit = limit.get();
+            if (current >= currentLimit) {
+                limitRejections.increment();
+                return HttpStatus.SERVICE_UNAVAILABLE;
+            }
+            if (current >= currentLimit * share) {
+                shareRejections.increment();
+                return HttpStatus.TOO_MANY_REQUESTS;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @param start {@link System#nanoTime()} when the request was admitted
+     * @param failed whether the request failed with server error
+     */
+    void release(long start, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        limit.onSample(System.nanoTime() - start, current, failed);
+    }
+
+    private static Counter rejections(MeterRegistry registry, HttpStatus status) {
+        return Counter.builder(REJECTIONS)
+                .description("HTTP requests rejected by admission control")
+                .tag("status", String.valueOf(status.value()))
+                .register(registry);
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.wpik.httpsource.web;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Passes requests of the source through {@link AdmissionController}. Requests completed asynchronously (deferred
+ * until Kafka acknowledges the message) are released when the response is completed.
+ */
+class AdmissionFilter extends OncePerRequestFilter {
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    private final AdmissionController controller;
+
+    private final Predicate<String> sourcePath;
+
+    private final String priorityHeader;
+
+    private final String retryAfter;
+
+    AdmissionFilter(AdmissionController controller, Predicate<String> sourcePath, String priorityHeader,
+                    long retryAfterSeconds) {
+        this.controller = controller;
+        this.sourcePath = sourcePath;
+        this.priorityHeader = priorityHeader;
+        this.retryAfter = String.valueOf(retryAfterSeconds);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !sourcePath.test(urlPathHelper.getPathWithinApplication(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HttpStatus rejection = controller.admit(priorityHeader == null ? null : request.getHeader(priorityHeader));
+        if (rejection != null) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.sendError(rejection.value(), "Too many requests in flight");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(start));
+            } else {
+                controller.release(start, failed || response.getStatus() >= 500);
+            }
+        }
+    }
+
+    private class ReleasingListener implements AsyncListener {
+
+        private final long start;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleasingListener(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(event, false);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(event, true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(event, true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void release(AsyncEvent event, boolean failed) {
+            if (released.compareAndSet(false, true)) {
+                int status = ((HttpServletResponse) event.getSuppliedResponse()).getStatus();
+                controller.release(start, failed || status >= 500);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.wpik.httpsource.web;
+
+import com.github.wpik.httpsource.HttpSourceProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.WebFilter;
+
+@Configuration
+@ConditionalOnProperty(HttpSourceProperties.HTTP_MAX_BODY_SIZE)
+public class BodySizeLimitConfig {
+
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @Bean
+    FilterRegistrationBean<BodySizeLimitFilter> bodySizeLimitFilter(HttpSourceProperties httpSourceProperties) {
+        FilterRegistrationBean<BodySizeLimitFilter> registration = new FilterRegistrationBean<>(
+                new BodySizeLimitFilter(httpSourceProperties.getMaxBodySize().toBytes()));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    @Bean
+    WebFilter reactiveBodySizeLimitFilter(HttpSourceProperties httpSourceProperties) {
+        return new ReactiveBodySizeLimitFilter(httpSourceProperties.getMaxBodySize().toBytes());
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.wpik.httpsource.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Rejects requests with body larger than the limit with HTTP 413, before the body is buffered. Requests declaring
+ * Content-Length are rejected upfront, chunked requests once the limit is exceeded while reading.
+ */
+class BodySizeLimitFilter extends OncePerRequestFilter {
+
+    private final long maxBodySize;
+
+    BodySizeLimitFilter(long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > maxBodySize) {
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), tooLargeMessage());
+            return;
+        }
+        chain.doFilter(contentLength >= 0 ? request : new LimitedRequest(request), response);
+    }
+
+    private String tooLargeMessage() {
+        return String.format("Request body exceeds %d bytes", maxBodySize);
+    }
+
+    private class LimitedRequest extends HttpServletRequestWrapper {
+
+        private ServletInputStream inputStream;
+
+        LimitedRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new LimitedInputStream(super.getInputStream());
+            }
+            return inputStream;
+        }
+    }
+
+    private class LimitedInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+
+        private long read;
+
+        LimitedInputStream(ServletInputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = delegate.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            read += n;
+            if (read > maxBodySize) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, tooLargeMessage());
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.wpik.httpsource.web;
+
+/**
+ * Concurrency limit adjusted by the gradient of latency: ratio of the long-term average latency (times tolerance) to
+ * the recent one. While recent latency stays within tolerance, the limit grows by its square root per sample; once
+ * latency rises above it, the limit shrinks proportionally, by at most half per sample. Failed requests shrink
+ * the limit by 10%. Samples taken while less than half of the limit is used don't change it, as they say nothing about
+ * the capacity.
+ */
+class GradientLimit {
+
+    private static final double SHORT_WINDOW = 10;
+
+    private static final double LONG_WINDOW = 600;
+
+    private static final double SMOOTHING = 0.2;
+
+    private static final double FAILURE_BACKOFF = 0.9;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    private double limit;
+
+    private double shortLatency;
+
+    private double longLatency;
+
+    private volatile int currentLimit;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        update(initialLimit);
+    }
+
+    int get() {
+        return currentLimit;
+    }
+
+    synchronized void onSample(long latencyNanos, int inFlight, boolean failed) {
+        if (failed) {
+            update(limit * FAILURE_BACKOFF);
+            return;
+        }
+        if (longLatency == 0) {
+            shortLatency = longLatency = latencyNanos;
+            return;
+        }
+        shortLatency += (latencyNanos - shortLatency) / SHORT_WINDOW;
+        longLatency += (latencyNanos - longLatency) / LONG_WINDOW;
+        if (longLatency > 2 * shortLatency) {
+            // latency dropped for good (e.g. after recovery), let the average catch up faster
+            longLatency *= 0.95;
+        }
+        if (inFlight < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longLatency / shortLatency));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        update(limit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+    }
+
+    private void update(double value) {
+        limit = Math.max(minLimit, Math.min(maxLimit, value));
+        currentLimit = (int) limit;
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.wpik.httpsource.web;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.function.Predicate;
+
+/**
+ * Reactive counterpart of {@link AdmissionFilter}.
+ */
+class ReactiveAdmissionFilter implements WebFilter {
+
+    private final AdmissionController controller;
+
+    private final Predicate<String> sourcePath;
+
+    private final String priorityHeader;
+
+    private final String retryAfter;
+
+    ReactiveAdmissionFilter(AdmissionController controller, Predicate<String> sourcePath, String priorityHeader,
+                            long retryAfterSeconds) {
+        this.controller = controller;
+        this.sourcePath = sourcePath;
+        this.priorityHeader = priorityHeader;
+        this.retryAfter = String.valueOf(retryAfterSeconds);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!sourcePath.test(exchange.getRequest().getPath().pathWithinApplication().value())) {
+            return chain.filter(exchange);
+        }
+        HttpStatus rejection = controller.admit(
+                priorityHeader == null ? null : exchange.getRequest().getHeaders().getFirst(priorityHeader));
+        if (rejection != null) {
+            exchange.getResponse().setStatusCode(rejection);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+            return exchange.getResponse().setComplete();
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    HttpStatus status = exchange.getResponse().getStatusCode();
+                    controller.release(start, signal == SignalType.ON_ERROR
+                            || status != null && status.is5xxServerError());
+                });
+    }
+}
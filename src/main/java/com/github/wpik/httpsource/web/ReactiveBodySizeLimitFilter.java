@@ -0,0 +1,53 @@
+package com.github.wpik.httpsource.web;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reactive counterpart of {@link BodySizeLimitFilter}.
+ */
+class ReactiveBodySizeLimitFilter implements WebFilter {
+
+    private final long maxBodySize;
+
+    ReactiveBodySizeLimitFilter(long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        long contentLength = exchange.getRequest().getHeaders().getContentLength();
+        if (contentLength > maxBodySize) {
+            exchange.getResponse().setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
+            return exchange.getResponse().setComplete();
+        }
+        if (contentLength >= 0) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest limited = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                AtomicLong read = new AtomicLong();
+                return super.getBody().doOnNext(buffer -> {
+                    if (read.addAndGet(buffer.readableByteCount()) > maxBodySize) {
+                        DataBufferUtils.release(buffer);
+                        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                String.format("Request body exceeds %d bytes", maxBodySize));
+                    }
+                });
+            }
+        };
+        return chain.filter(exchange.mutate().request(limited).build());
+    }
+}
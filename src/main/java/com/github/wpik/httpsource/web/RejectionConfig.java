@@ -0,0 +1,20 @@
+package com.github.wpik.httpsource.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Rendering of rejected requests in servlet mode. Reactive mode renders them in the error flow of the inbound
+ * endpoint, see {@link com.github.wpik.httpsource.reactive.ReactiveHttpSourceConfig}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RejectionConfig {
+
+    @Bean
+    RejectionResolver rejectionResolver(ObjectMapper objectMapper) {
+        return new RejectionResolver(objectMapper);
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.wpik.httpsource.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wpik.httpsource.RejectedRequestException;
+import com.github.wpik.httpsource.ResponseStatusExceptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Renders {@link RejectedRequestException} directly with its status and reason, instead of sending error and
+ * forwarding the request to the error controller. Rejections are logged at most once per {@link #LOG_INTERVAL},
+ * together with the number of rejections since the previous entry; each one is logged at debug level.
+ */
+@Slf4j
+class RejectionResolver implements HandlerExceptionResolver, Ordered {
+
+    static final Duration LOG_INTERVAL = Duration.ofSeconds(10);
+
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong nextLogTime = new AtomicLong(System.nanoTime());
+
+    private final LongAdder notLogged = new LongAdder();
+
+    RejectionResolver(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                         Exception ex) {
+        RejectedRequestException statusException = ResponseStatusExceptions.findRejection(ex);
+        if (statusException == null || response.isCommitted()) {
+            return null;
+        }
+        HttpStatus status = statusException.getStatus();
+        log(request, status, statusException.getReason());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", statusException.getReason());
+        body.put("path", request.getRequestURI());
+        try {
+            response.setStatus(status.value());
+            statusException.getHeaders().forEach(response::setHeader);
+            response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), body);
+        } catch (IOException e) {
+            log.debug("Couldn't render rejection of request to {}", request.getRequestURI(), e);
+        }
+        return new ModelAndView();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private void log(HttpServletRequest request, HttpStatus status, String reason) {
+        log.debug("Rejected request to {} with {}: {}", request.getRequestURI(), status, reason);
+        long now = System.nanoTime();
+        long next = nextLogTime.get();
+        if (now - next < 0 || !nextLogTime.compareAndSet(next, now + LOG_INTERVAL.toNanos())) {
+            notLogged.increment();
+            return;
+        }
+        long skipped = notLogged.sumThenReset();
+        log.info("Rejected request to {} with {}: {} ({} more rejections since previous entry)",
+                request.getRequestURI(), status, reason, skipped);
+    }
+}
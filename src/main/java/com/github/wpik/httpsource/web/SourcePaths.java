@@ -0,0 +1,41 @@
+package com.github.wpik.httpsource.web;
+
+import com.github.wpik.httpsource.HttpSourceProperties;
+import com.github.wpik.httpsource.HttpSourceRouteProperties;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+public final class SourcePaths {
+
+    private SourcePaths() {
+    }
+
+    /**
+     * @return predicate matching paths of the source: {@code http.uri-path}, {@code http.batch.uri-path} and
+     * {@code http.routes.*.uri-path}
+     */
+    public static Predicate<String> of(HttpSourceProperties properties) {
+        PathMatcher matcher = new AntPathMatcher();
+        List<String> uriPaths = new ArrayList<>();
+        uriPaths.add(properties.getUriPath());
+        if (properties.getBatch().getUriPath() != null) {
+            uriPaths.add(properties.getBatch().getUriPath());
+        }
+        for (HttpSourceRouteProperties route : properties.getRoutes().values()) {
+            uriPaths.add(route.getUriPath());
+        }
+        String[] patterns = uriPaths.toArray(new String[0]);
+        return path -> {
+            for (String pattern : patterns) {
+                if (matcher.match(pattern, path)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.wpik.httpsource;
+
+import org.junit.Test;
+import org.springframework.http.*;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public abstract class AdmissionTests {
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.admission.enabled=true",
+            "http.admission.priority-header=X-Priority",
+            "http.admission.priorities.bulk=0",
+            "http.admission.retry-after=5s"
+    })
+    public static class PriorityClassTests extends BaseTests {
+        @Test
+        public void testClassWithoutShareIsRejected() throws IOException, URISyntaxException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+
+            ResponseEntity<String> rejected = post(json, "bulk");
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+            assertEquals("5", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+            assertEquals(HttpStatus.ACCEPTED, post(json, "interactive").getStatusCode());
+            assertEquals(HttpStatus.ACCEPTED, post(json, null).getStatusCode());
+
+            assertNotNull(messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS));
+            assertNotNull(messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS));
+            assertNull(messageCollector.forChannel(channels.output()).poll(100, TimeUnit.MILLISECONDS));
+        }
+
+        private ResponseEntity<String> post(String json, String priority) throws URISyntaxException {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            if (priority != null) {
+                headers.set("X-Priority", priority);
+            }
+            return restTemplate.exchange(new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo")),
+                    String.class);
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.routes.person.uri-path=/person",
+            "http.admission.enabled=true",
+            "http.admission.priority-header=X-Priority",
+            "http.admission.priorities.bulk=0",
+            "http.admission.retry-after=5s"
+    })
+    public static class RouteTests extends BaseTests {
+        @Test
+        public void testRouteRequestsAreAdmitted() throws IOException, URISyntaxException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+
+            ResponseEntity<String> rejected = post(json, "bulk");
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+            assertEquals("5", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            assertEquals(HttpStatus.ACCEPTED, post(json, "interactive").getStatusCode());
+        }
+
+        private ResponseEntity<String> post(String json, String priority) throws URISyntaxException {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("X-Priority", priority);
+            return restTemplate.exchange(new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/person")),
+                    String.class);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.wpik.httpsource;
+
+import com.github.wpik.httpsource.producer.ProducerAckConfig;
+import com.github.wpik.httpsource.producer.ProducerAcknowledgements;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public abstract class AsyncProducerAckTests {
+
+    /**
+     * Completes sends the way Kafka binder does: record metadata channel on success, error channel on failure.
+     */
+    abstract static class AcknowledgingTests extends BaseTests {
+        @Autowired
+        @Qualifier(ProducerAckConfig.RECORD_METADATA_CHANNEL_BEAN_NAME)
+        protected MessageChannel recordMetadata;
+
+        @Autowired
+        @Qualifier(IntegrationContextUtils.ERROR_CHANNEL_BEAN_NAME)
+        protected MessageChannel errorChannel;
+
+        @Autowired
+        protected ProducerAcknowledgements acknowledgements;
+
+        @SuppressWarnings("rawtypes")
+        protected CompletableFuture<ResponseEntity<Map>> postAsync(String json) {
+            return CompletableFuture.supplyAsync(() -> restTemplate.postForEntity("/foo", json, Map.class));
+        }
+
+        protected Message<?> pollSent() throws InterruptedException {
+            Message<?> message = messageCollector.forChannel(channels.output()).poll(2, TimeUnit.SECONDS);
+            assertNotNull(message);
+            return message;
+        }
+
+        protected void acknowledge(Message<?> sent) {
+            recordMetadata.send(sent);
+        }
+
+        protected void failSend(Message<?> sent) {
+            errorChannel.send(new ErrorMessage(new MessageDeliveryException(sent, "Kafka is down")));
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.async-producer-ack=true",
+            "http.producer-ack-timeout=300ms"
+    })
+    public static class DeferredResponseTests extends AcknowledgingTests {
+        @Test
+        @SuppressWarnings("rawtypes")
+        public void testResponseIsDeferredUntilKafkaAcknowledges() throws IOException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            CompletableFuture<ResponseEntity<Map>> response = postAsync(json);
+
+            Message<?> sent = pollSent();
+            assertEquals(json, sent.getPayload());
+            TimeUnit.MILLISECONDS.sleep(100);
+            assertFalse(response.isDone());
+            assertEquals(1, acknowledgements.inFlight());
+
+            acknowledge(sent);
+            assertEquals(HttpStatus.ACCEPTED, response.join().getStatusCode());
+            assertEquals(0, acknowledgements.inFlight());
+        }
+
+        @Test
+        @SuppressWarnings("rawtypes")
+        public void testFailedSendIsRendered() throws IOException, InterruptedException {
+            CompletableFuture<ResponseEntity<Map>> response =
+                    postAsync(readTestFileAsString("/testdata/validPerson.json"));
+
+            failSend(pollSent());
+            assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.join().getStatusCode());
+            assertEquals(500, response.join().getBody().get("status"));
+            assertEquals(0, acknowledgements.inFlight());
+        }
+
+        @Test
+        @SuppressWarnings("rawtypes")
+        public void testUnacknowledgedSendExpires() throws IOException, InterruptedException {
+            CompletableFuture<ResponseEntity<Map>> response =
+                    postAsync(readTestFileAsString("/testdata/validPerson.json"));
+
+            pollSent();
+            ResponseEntity<Map> expired = response.join();
+            assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, expired.getStatusCode());
+            assertEquals("Message was not acknowledged by Kafka in time", expired.getBody().get("message"));
+            assertEquals(0, acknowledgements.inFlight());
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.async-producer-ack=true",
+            "http.max-in-flight=1"
+    })
+    public static class MaxInFlightTests extends AcknowledgingTests {
+        @Test
+        @SuppressWarnings("rawtypes")
+        public void testRequestIsRejectedWhenTooManyAwaitAcknowledgement() throws IOException,
+                InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            CompletableFuture<ResponseEntity<Map>> first = postAsync(json);
+            Message<?> sent = pollSent();
+
+            ResponseEntity<Map> rejected = restTemplate.postForEntity("/foo", json, Map.class);
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+            assertEquals("Too many requests in flight", rejected.getBody().get("message"));
+            assertNull(messageCollector.forChannel(channels.output()).poll(100, TimeUnit.MILLISECONDS));
+
+            acknowledge(sent);
+            assertEquals(HttpStatus.ACCEPTED, first.join().getStatusCode());
+            CompletableFuture<ResponseEntity<Map>> next = postAsync(json);
+            acknowledge(pollSent());
+            assertEquals(HttpStatus.ACCEPTED, next.join().getStatusCode());
+        }
+    }
+}
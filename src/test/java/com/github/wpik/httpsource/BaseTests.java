@@ -8,11 +8,13 @@ import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.cloud.stream.messaging.Source;
 import org.springframework.cloud.stream.test.binder.MessageCollector;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.messaging.Message;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 @RunWith(SpringRunner.class)
@@ -35,4 +37,9 @@ public abstract class BaseTests {
             return IOUtils.toString(stream, Charset.defaultCharset());
         }
     }
+
+    protected String payloadAsString(Message<?> message) {
+        Object payload = message.getPayload();
+        return payload instanceof byte[] ? new String((byte[]) payload, StandardCharsets.UTF_8) : (String) payload;
+    }
 }
@@ -0,0 +1,162 @@
+package com.github.wpik.httpsource;
+
+import com.github.wpik.httpsource.producer.ProducerAckConfig;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.*;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public abstract class BatchTests {
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.batch.uri-path=/foo/batch",
+            "http.json.schema-location=/schema/person-schema.json",
+            "http.json.key-expression=$.address.city"
+    })
+    public static class JsonArrayBatchTests extends BaseTests {
+        @Test
+        @SuppressWarnings("unchecked")
+        public void testEachElementIsValidatedAndPublished() throws IOException, URISyntaxException,
+                InterruptedException {
+            String valid = readTestFileAsString("/testdata/validPerson.json");
+            String invalid = readTestFileAsString("/testdata/invalidPerson-age.json");
+            String json = "[" + valid + "," + invalid + "," + valid + "]";
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo/batch"));
+            ResponseEntity<Map> response = restTemplate.exchange(request, Map.class);
+            assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+            assertEquals(2, ((Number) response.getBody().get("accepted")).intValue());
+            assertEquals(1, ((Number) response.getBody().get("rejected")).intValue());
+            List<Map<String, Object>> elements = (List<Map<String, Object>>) response.getBody().get("elements");
+            assertEquals(202, elements.get(0).get("status"));
+            assertEquals(400, elements.get(1).get("status"));
+            assertTrue(elements.get(1).get("message").toString().contains("age"));
+            assertEquals(202, elements.get(2).get("status"));
+
+            for (int i = 0; i < 2; i++) {
+                Message<?> message = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+                assertEquals(valid, message.getPayload());
+                assertArrayEquals("warsaw".getBytes(), message.getHeaders().get(Headers.KEY_BYTES, byte[].class));
+            }
+            assertNull(messageCollector.forChannel(channels.output()).poll(100, TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void testBatchOfInvalidElementsIsUnprocessable() throws IOException, URISyntaxException {
+            String invalid = readTestFileAsString("/testdata/invalidPerson-age.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>("[" + invalid + "," + invalid + "]", headers,
+                    HttpMethod.POST, new URI("/foo/batch"));
+            ResponseEntity<Map> response = restTemplate.exchange(request, Map.class);
+            assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+            assertEquals(0, ((Number) response.getBody().get("accepted")).intValue());
+            List<Map<String, Object>> elements = (List<Map<String, Object>>) response.getBody().get("elements");
+            assertEquals(400, elements.get(0).get("status"));
+            assertEquals(400, elements.get(1).get("status"));
+        }
+
+        @Test
+        public void testNonArrayIsRejected() throws IOException, URISyntaxException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo/batch"));
+            ResponseEntity<Map<String, String>> response = restTemplate.exchange(request, badRequestResponseType);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.batch.uri-path=/foo/batch",
+            "http.pojo.class-name=com.github.wpik.httpsource.model.Person",
+            "http.pojo.key-expression=lastname"
+    })
+    public static class NdjsonBatchTests extends BaseTests {
+        @Test
+        public void testEachLineIsPublished() throws URISyntaxException, InterruptedException {
+            String first = "{\"firstname\":\"jan\",\"lastname\":\"kowalski\",\"age\":20,\"address\":{\"city\":\"warsaw\"}}";
+            String second = "{\"firstname\":\"anna\",\"lastname\":\"nowak\",\"age\":30,\"address\":{\"city\":\"krakow\"}}";
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.valueOf("application/x-ndjson"));
+            RequestEntity<String> request = new RequestEntity<>(first + "\n" + second + "\n", headers,
+                    HttpMethod.POST, new URI("/foo/batch"));
+            ResponseEntity<Map> response = restTemplate.exchange(request, Map.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            assertEquals(2, ((Number) response.getBody().get("accepted")).intValue());
+
+            Message<?> message = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+            assertEquals(first, message.getPayload());
+            assertArrayEquals("kowalski".getBytes(), message.getHeaders().get(Headers.KEY_BYTES, byte[].class));
+            message = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+            assertEquals(second, message.getPayload());
+            assertArrayEquals("nowak".getBytes(), message.getHeaders().get(Headers.KEY_BYTES, byte[].class));
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.batch.uri-path=/foo/batch",
+            "http.json.schema-location=/schema/person-schema.json",
+            "http.async-producer-ack=true"
+    })
+    public static class AsyncAckBatchTests extends BaseTests {
+        @Autowired
+        @Qualifier(ProducerAckConfig.RECORD_METADATA_CHANNEL_BEAN_NAME)
+        private MessageChannel recordMetadata;
+
+        @Autowired
+        @Qualifier(IntegrationContextUtils.ERROR_CHANNEL_BEAN_NAME)
+        private MessageChannel errorChannel;
+
+        @Test
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        public void testReportIsDeferredUntilEachElementIsAcknowledged() throws IOException, URISyntaxException,
+                InterruptedException {
+            String valid = readTestFileAsString("/testdata/validPerson.json");
+            String invalid = readTestFileAsString("/testdata/invalidPerson-age.json");
+            String json = "[" + valid + "," + invalid + "," + valid + "]";
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo/batch"));
+            CompletableFuture<ResponseEntity<Map>> response =
+                    CompletableFuture.supplyAsync(() -> restTemplate.exchange(request, Map.class));
+
+            Message<?> first = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+            Message<?> second = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+            recordMetadata.send(first);
+            TimeUnit.MILLISECONDS.sleep(100);
+            assertFalse(response.isDone());
+            errorChannel.send(new ErrorMessage(new MessageDeliveryException(second, "Kafka is down")));
+
+            assertEquals(HttpStatus.MULTI_STATUS, response.join().getStatusCode());
+            Map body = response.join().getBody();
+            assertEquals(1, ((Number) body.get("accepted")).intValue());
+            assertEquals(2, ((Number) body.get("rejected")).intValue());
+            List<Map<String, Object>> elements = (List<Map<String, Object>>) body.get("elements");
+            assertEquals(202, elements.get(0).get("status"));
+            assertEquals(400, elements.get(1).get("status"));
+            assertEquals(500, elements.get(2).get("status"));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.github.wpik.httpsource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.*;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public abstract class DedupTests {
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.dedup.id-source=content"
+    })
+    public static class ContentIdTests extends BaseTests {
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Test
+        public void testIdenticalBodyIsSentOnce() throws IOException, InterruptedException,
+                NoSuchAlgorithmException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            for (int i = 0; i < 2; i++) {
+                ResponseEntity<String> response = restTemplate.postForEntity("/foo", json, String.class);
+                assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            }
+
+            Message<?> message = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+            assertEquals(json, message.getPayload());
+            assertEquals(sha256Prefix(json), message.getHeaders().get(Headers.IDEMPOTENCY_ID));
+            assertNull(messageCollector.forChannel(channels.output()).poll(100, TimeUnit.MILLISECONDS));
+            assertEquals(1, meterRegistry.get("http.source.duplicates").counter().count(), 0);
+        }
+
+        /**
+         * Content id is the same in every instance of the source: first 128 bits of SHA-256 of the body.
+         */
+        private static String sha256Prefix(String json) throws NoSuchAlgorithmException {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+            StringBuilder id = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                id.append(String.format("%02x", hash[i]));
+            }
+            return id.toString();
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.batch.uri-path=/foo/batch",
+            "http.mapped-request-headers=Idempotency-Key",
+            "http.dedup.id-source=header"
+    })
+    public static class HeaderIdTests extends BaseTests {
+        @Test
+        public void testRequestWithSameHeaderIsSentOnce() throws IOException, URISyntaxException,
+                InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            assertEquals(HttpStatus.ACCEPTED, post("/foo", json, "header-1").getStatusCode());
+            assertEquals(HttpStatus.ACCEPTED, post("/foo", json, "header-1").getStatusCode());
+            assertEquals(HttpStatus.ACCEPTED, post("/foo", json, "header-2").getStatusCode());
+            assertEquals(HttpStatus.ACCEPTED, post("/foo", json, null).getStatusCode());
+            assertEquals(HttpStatus.ACCEPTED, post("/foo", json, null).getStatusCode());
+
+            assertEquals("header-1", poll().getHeaders().get(Headers.IDEMPOTENCY_ID));
+            assertEquals("header-2", poll().getHeaders().get(Headers.IDEMPOTENCY_ID));
+            assertNull(poll().getHeaders().get(Headers.IDEMPOTENCY_ID));
+            assertNull(poll().getHeaders().get(Headers.IDEMPOTENCY_ID));
+            assertNull(messageCollector.forChannel(channels.output()).poll(100, TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        public void testRetriedBatchSendsOnlyNewElements() throws IOException, URISyntaxException,
+                InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            assertEquals(HttpStatus.ACCEPTED, post("/foo/batch", "[" + json + "]", "batch-1").getStatusCode());
+            assertEquals(HttpStatus.ACCEPTED,
+                    post("/foo/batch", "[" + json + "," + json + "]", "batch-1").getStatusCode());
+
+            assertEquals("batch-1#0", poll().getHeaders().get(Headers.IDEMPOTENCY_ID));
+            assertEquals("batch-1#1", poll().getHeaders().get(Headers.IDEMPOTENCY_ID));
+            assertNull(messageCollector.forChannel(channels.output()).poll(100, TimeUnit.MILLISECONDS));
+        }
+
+        private ResponseEntity<String> post(String path, String json, String idempotencyKey)
+                throws URISyntaxException {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            if (idempotencyKey != null) {
+                headers.set("Idempotency-Key", idempotencyKey);
+            }
+            return restTemplate.exchange(new RequestEntity<>(json, headers, HttpMethod.POST, new URI(path)),
+                    String.class);
+        }
+
+        private Message<?> poll() throws InterruptedException {
+            return messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.routes.person.uri-path=/person",
+            "http.routes.person.destination=people",
+            "http.mapped-request-headers=Idempotency-Key",
+            "http.dedup.id-source=header"
+    })
+    public static class RouteDestinationTests extends BaseTests {
+        @Autowired
+        private ApplicationContext applicationContext;
+
+        @Test
+        public void testRequestToRouteWithDestinationIsSentOnce() throws IOException, URISyntaxException,
+                InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("Idempotency-Key", "person-1");
+            for (int i = 0; i < 2; i++) {
+                ResponseEntity<String> response = restTemplate.exchange(
+                        new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/person")), String.class);
+                assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            }
+
+            MessageChannel people = applicationContext.getBean("people", MessageChannel.class);
+            Message<?> message = messageCollector.forChannel(people).poll(1, TimeUnit.SECONDS);
+            assertEquals("person-1", message.getHeaders().get(Headers.IDEMPOTENCY_ID));
+            assertNull(messageCollector.forChannel(people).poll(100, TimeUnit.MILLISECONDS));
+            assertNull(messageCollector.forChannel(channels.output()).poll(100, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.async-producer-ack=true",
+            "http.mapped-request-headers=Idempotency-Key",
+            "http.dedup.id-source=header"
+    })
+    public static class InFlightTests extends AsyncProducerAckTests.AcknowledgingTests {
+        @Test
+        @SuppressWarnings("rawtypes")
+        public void testDuplicateOfUnacknowledgedRequestIsRejected() throws IOException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            CompletableFuture<ResponseEntity<Map>> original = post(json, "in-flight-1");
+            Message<?> sent = pollSent();
+
+            ResponseEntity<Map> duplicate = post(json, "in-flight-1").join();
+            assertEquals(HttpStatus.CONFLICT, duplicate.getStatusCode());
+            assertEquals("1", duplicate.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+            acknowledge(sent);
+            assertEquals(HttpStatus.ACCEPTED, original.join().getStatusCode());
+            assertEquals(HttpStatus.ACCEPTED, post(json, "in-flight-1").join().getStatusCode());
+            assertNull(messageCollector.forChannel(channels.output()).poll(100, TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        @SuppressWarnings("rawtypes")
+        public void testRetryOfFailedRequestIsSent() throws IOException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            CompletableFuture<ResponseEntity<Map>> original = post(json, "in-flight-2");
+            failSend(pollSent());
+            assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, original.join().getStatusCode());
+
+            CompletableFuture<ResponseEntity<Map>> retry = post(json, "in-flight-2");
+            Message<?> sent = pollSent();
+            assertEquals("in-flight-2", sent.getHeaders().get(Headers.IDEMPOTENCY_ID));
+            acknowledge(sent);
+            assertEquals(HttpStatus.ACCEPTED, retry.join().getStatusCode());
+        }
+
+        @SuppressWarnings("rawtypes")
+        private CompletableFuture<ResponseEntity<Map>> post(String json, String idempotencyKey) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("Idempotency-Key", idempotencyKey);
+            return CompletableFuture.supplyAsync(() -> restTemplate.exchange(
+                    new RequestEntity<>(json, headers, HttpMethod.POST, URI.create("/foo")), Map.class));
+        }
+    }
+}
@@ -57,6 +57,28 @@ public abstract class KeyExtractingTests {
         }
     }
 
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.pojo.class-name=com.github.wpik.httpsource.model.Person",
+            "http.pojo.key-expression=address.city",
+            "http.pojo.key-compiler-mode=immediate"
+    })
+    public static class PojoCompiledKeyTests extends BaseTests {
+        @Test
+        public void testKeyIsExtracted() throws IOException, URISyntaxException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            for (int i = 0; i < 3; i++) {
+                RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+                ResponseEntity<?> response = restTemplate.exchange(request, Object.class);
+                assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+                Message<?> message = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+                assertArrayEquals("warsaw".getBytes(), message.getHeaders().get(Headers.KEY_BYTES, byte[].class));
+            }
+        }
+    }
+
     @TestPropertySource(properties = {
             "http.uri-path=/foo",
             "http.json.schema-location=/schema/person-schema.json",
@@ -99,6 +121,56 @@ public abstract class KeyExtractingTests {
         }
     }
 
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.json.key-expression=$['address'].city"
+    })
+    public static class StreamingJsonKeyTests extends BaseTests {
+        @Test
+        public void testKeyIsExtracted() throws IOException, URISyntaxException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+            ResponseEntity<?> response = restTemplate.exchange(request, Object.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            Message<?> message = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+            assertEquals(json, message.getPayload());
+            assertArrayEquals("warsaw".getBytes(), message.getHeaders().get(Headers.KEY_BYTES, byte[].class));
+        }
+
+        @Test
+        public void testMalformedPayloadIsRejected() throws URISyntaxException {
+            String json = "{\"address\": {\"city\": \"warsaw\"}, \"age\": }";
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+            ResponseEntity<?> response = restTemplate.exchange(request, Object.class);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.raw-payload=true",
+            "http.json.schema-location=/schema/person-schema.json",
+            "http.json.key-expression=$.address.city"
+    })
+    public static class RawPayloadJsonKeyTests extends BaseTests {
+        @Test
+        public void testKeyIsExtracted() throws IOException, URISyntaxException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+            ResponseEntity<?> response = restTemplate.exchange(request, Object.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            Message<?> message = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+            assertEquals(json, payloadAsString(message));
+            assertArrayEquals("warsaw".getBytes(), message.getHeaders().get(Headers.KEY_BYTES, byte[].class));
+        }
+    }
+
     @TestPropertySource(properties = {
             "http.uri-path=/foo"
     })
@@ -0,0 +1,100 @@
+package com.github.wpik.httpsource;
+
+import com.github.wpik.httpsource.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.*;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public abstract class MetricsTests {
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.json.schema-location=/schema/person-schema.json"
+    })
+    public static class PipelineMetricsTests extends BaseTests {
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Test
+        public void testStagesAreTimed() throws IOException, URISyntaxException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+            ResponseEntity<?> response = restTemplate.exchange(request, Object.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            assertNotNull(messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS));
+
+            assertTrue(meterRegistry.get(PipelineMetrics.STAGE_TIMER).tag("stage", "jsonValidator").timer()
+                    .count() > 0);
+            assertTrue(meterRegistry.get(PipelineMetrics.PAYLOAD_SIZE).summary().totalAmount() >= json.length());
+            assertTrue(meterRegistry.get(PipelineMetrics.PRODUCER_SEND).tag("outcome", "success").timer()
+                    .count() > 0);
+        }
+
+        @Test
+        public void testRejectionsAreCounted() throws IOException, URISyntaxException {
+            String json = readTestFileAsString("/testdata/invalidPerson-age.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+            ResponseEntity<?> response = restTemplate.exchange(request, badRequestResponseType);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+
+            assertTrue(meterRegistry.get(PipelineMetrics.REJECTIONS)
+                    .tag("stage", "jsonValidator")
+                    .tag("reason", "schema_violation")
+                    .counter().count() > 0);
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo"
+    })
+    public static class DisabledStagesTests extends BaseTests {
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Test
+        public void testDisabledStagesAreLeftOut() throws IOException, URISyntaxException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+            ResponseEntity<?> response = restTemplate.exchange(request, Object.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            assertNotNull(messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS));
+
+            assertTrue(meterRegistry.find(PipelineMetrics.STAGE_TIMER).timers().isEmpty());
+            assertTrue(meterRegistry.get(PipelineMetrics.PAYLOAD_SIZE).summary().totalAmount() >= json.length());
+        }
+    }
+
+    public static class PayloadSizeTests {
+
+        @Test
+        public void testTextPayloadSizeIsUtf8EncodedLength() {
+            MeterRegistry meterRegistry = new SimpleMeterRegistry();
+            PipelineMetrics metrics = new PipelineMetrics(meterRegistry);
+            String json = "{\"name\": \"Za\u017C\u00F3\u0142\u0107 g\u0119\u015Bl\u0105 ja\u017A\u0144\", "
+                    + "\"city\": \"\u6771\u4EAC\", \"mood\": \"\uD83D\uDE00\"}";
+
+            metrics.payloadSize(json);
+            assertEquals(json.getBytes(StandardCharsets.UTF_8).length,
+                    meterRegistry.get(PipelineMetrics.PAYLOAD_SIZE).summary().totalAmount(), 0);
+        }
+    }
+}
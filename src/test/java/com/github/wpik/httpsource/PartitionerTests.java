@@ -0,0 +1,108 @@
+package com.github.wpik.httpsource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.*;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public abstract class PartitionerTests {
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.json.key-expression=$.lastname",
+            "http.partitioner.enabled=true",
+            "http.partitioner.partition-count=4"
+    })
+    public static class KeyedTests extends BaseTests {
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Test
+        public void testPartitionIsComputedFromKey() throws IOException, URISyntaxException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            ResponseEntity<?> response = restTemplate.exchange(request(json), Object.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            Message<?> message = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+            int expected = Utils.toPositive(Utils.murmur2("kowalski".getBytes())) % 4;
+            assertEquals(expected, message.getHeaders().get(KafkaHeaders.PARTITION_ID));
+            assertEquals(1, meterRegistry.get("http.source.partition.records")
+                    .tag("partition", String.valueOf(expected)).counter().count(), 0);
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.partitioner.enabled=true",
+            "http.partitioner.partition-count=4",
+            "http.partitioner.sticky-batch-size=2"
+    })
+    public static class KeylessTests extends BaseTests {
+        @Test
+        public void testKeylessMessagesAreSentInBatches() throws URISyntaxException, InterruptedException {
+            int[] partitions = new int[4];
+            for (int i = 0; i < partitions.length; i++) {
+                ResponseEntity<?> response = restTemplate.exchange(request("{\"a\":" + i + "}"), Object.class);
+                assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+                Message<?> message = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+                partitions[i] = message.getHeaders().get(KafkaHeaders.PARTITION_ID, Integer.class);
+            }
+            assertEquals(partitions[0], partitions[1]);
+            assertEquals(partitions[2], partitions[3]);
+            assertNotEquals(partitions[1], partitions[2]);
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.json.key-expression=$.species",
+            "http.routing.expression=$.type",
+            "http.routing.destinations.fish=fishes",
+            "http.partitioner.enabled=true",
+            "http.partitioner.partition-count=4",
+            "http.partitioner.partition-counts.fishes=2"
+    })
+    public static class RoutedTests extends BaseTests {
+        @Autowired
+        private ApplicationContext applicationContext;
+
+        @Test
+        public void testPartitionIsComputedFromCountOfDestination() throws URISyntaxException, InterruptedException {
+            ResponseEntity<?> response = restTemplate.exchange(
+                    request("{\"type\":\"fish\",\"species\":\"salmon\"}"), Object.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            MessageChannel fishes = applicationContext.getBean("fishes", MessageChannel.class);
+            Message<?> message = messageCollector.forChannel(fishes).poll(1, TimeUnit.SECONDS);
+            int expected = Utils.toPositive(Utils.murmur2("salmon".getBytes())) % 2;
+            assertEquals(expected, message.getHeaders().get(KafkaHeaders.PARTITION_ID));
+        }
+
+        @Test
+        public void testOutputKeepsItsPartitionCount() throws URISyntaxException, InterruptedException {
+            ResponseEntity<?> response = restTemplate.exchange(
+                    request("{\"type\":\"bird\",\"species\":\"robin\"}"), Object.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            Message<?> message = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+            int expected = Utils.toPositive(Utils.murmur2("robin".getBytes())) % 4;
+            assertEquals(expected, message.getHeaders().get(KafkaHeaders.PARTITION_ID));
+        }
+    }
+
+    private static RequestEntity<String> request(String json) throws URISyntaxException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+    }
+}
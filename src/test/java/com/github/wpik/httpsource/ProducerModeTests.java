@@ -0,0 +1,45 @@
+package com.github.wpik.httpsource;
+
+import com.github.wpik.httpsource.producer.ProducerAcknowledgements;
+import com.github.wpik.httpsource.producer.ProducerMetricsReporter;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.Assert.*;
+
+public abstract class ProducerModeTests {
+
+    private static final String KAFKA_OUTPUT_PRODUCER = "spring.cloud.stream.kafka.bindings.output.producer.";
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.producer.mode=throughput",
+            "http.producer.linger=20ms",
+            "spring.cloud.stream.kafka.bindings.output.producer.configuration.compression.type=gzip"
+    })
+    public static class ThroughputModeTests extends BaseTests {
+        @Autowired
+        private Environment environment;
+
+        @Autowired(required = false)
+        private ProducerAcknowledgements acknowledgements;
+
+        @Test
+        public void testProducerIsConfiguredForBatching() {
+            assertNotNull(acknowledgements);
+            assertEquals("false", environment.getProperty(KAFKA_OUTPUT_PRODUCER + "sync"));
+            assertEquals("20", environment.getProperty(KAFKA_OUTPUT_PRODUCER + "configuration.linger.ms"));
+            assertEquals(String.valueOf(256 * 1024),
+                    environment.getProperty(KAFKA_OUTPUT_PRODUCER + "configuration.batch.size"));
+            assertEquals(ProducerMetricsReporter.class.getName(),
+                    environment.getProperty(KAFKA_OUTPUT_PRODUCER + "configuration.metric.reporters"));
+        }
+
+        @Test
+        public void testExplicitProducerConfigurationIsKept() {
+            assertEquals("gzip", environment.getProperty(KAFKA_OUTPUT_PRODUCER + "configuration.compression.type"));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.wpik.httpsource;
+
+import com.github.wpik.httpsource.ratelimit.TokenBuckets;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.*;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import static org.junit.Assert.*;
+
+public abstract class RateLimitTests {
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.rate-limit.key-source=header",
+            "http.rate-limit.rate=0.01",
+            "http.rate-limit.burst=2",
+            "http.rate-limit.client-rates.vip=1000"
+    })
+    public static class HeaderKeyTests extends BaseTests {
+        @Test
+        public void testClientOverLimitIsRejected() throws IOException, URISyntaxException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            assertEquals(HttpStatus.ACCEPTED, post(json, "noisy").getStatusCode());
+            assertEquals(HttpStatus.ACCEPTED, post(json, "noisy").getStatusCode());
+            ResponseEntity<String> rejected = post(json, "noisy");
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+            assertNotNull(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+            assertEquals(HttpStatus.ACCEPTED, post(json, "quiet").getStatusCode());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(HttpStatus.ACCEPTED, post(json, "vip").getStatusCode());
+            }
+        }
+
+        private ResponseEntity<String> post(String json, String client) throws URISyntaxException {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("X-Client-Id", client);
+            return restTemplate.exchange(new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo")),
+                    String.class);
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.rate-limit.key-source=json-path",
+            "http.rate-limit.expression=$.address.city",
+            "http.rate-limit.rate=0.01",
+            "http.rate-limit.burst=1"
+    })
+    public static class JsonPathKeyTests extends BaseTests {
+        @Test
+        public void testClientOverLimitIsRejected() throws IOException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            assertEquals(HttpStatus.ACCEPTED, restTemplate.postForEntity("/foo", json, String.class).getStatusCode());
+            ResponseEntity<String> rejected = restTemplate.postForEntity("/foo", json, String.class);
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+            assertTrue(Long.parseLong(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)) > 1);
+            assertEquals(HttpStatus.ACCEPTED, restTemplate.postForEntity("/foo",
+                    json.replace("warsaw", "krakow"), String.class).getStatusCode());
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.rate-limit.key-source=header",
+            "http.rate-limit.rate=0.01",
+            "http.rate-limit.burst=1",
+            "http.rate-limit.max-clients=1"
+    })
+    public static class MaxClientsTests extends BaseTests {
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Test
+        public void testClientsAboveLimitShareBucket() throws IOException, URISyntaxException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            assertEquals(HttpStatus.ACCEPTED, post(json, "first").getStatusCode());
+            assertEquals(HttpStatus.ACCEPTED, post(json, "second").getStatusCode());
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, post(json, "third").getStatusCode());
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, post(json, "first").getStatusCode());
+            assertEquals(1, meterRegistry.get(TokenBuckets.CLIENTS).gauge().value(), 0);
+        }
+
+        private ResponseEntity<String> post(String json, String client) throws URISyntaxException {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("X-Client-Id", client);
+            return restTemplate.exchange(new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo")),
+                    String.class);
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.routes.person.uri-path=/person",
+            "http.rate-limit.key-source=header",
+            "http.rate-limit.rate=0.01",
+            "http.rate-limit.burst=1"
+    })
+    public static class RouteTests extends BaseTests {
+        @Test
+        public void testRouteRequestsAreRateLimited() throws IOException, URISyntaxException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            assertEquals(HttpStatus.ACCEPTED, post(json, "noisy").getStatusCode());
+            ResponseEntity<String> rejected = post(json, "noisy");
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+            assertNotNull(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            assertEquals(HttpStatus.ACCEPTED, post(json, "quiet").getStatusCode());
+        }
+
+        private ResponseEntity<String> post(String json, String client) throws URISyntaxException {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("X-Client-Id", client);
+            return restTemplate.exchange(new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/person")),
+                    String.class);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.wpik.httpsource;
+
+import com.github.wpik.httpsource.producer.ProducerAckConfig;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public abstract class ReactiveModeTests {
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.mode=reactive",
+            "spring.main.web-application-type=reactive",
+            "http.json.key-expression=$.address.city",
+            "http.producer-ack-timeout=300ms"
+    })
+    public static class AcknowledgementTests extends BaseTests {
+        @Autowired
+        private WebTestClient webTestClient;
+
+        @Autowired
+        @Qualifier(ProducerAckConfig.RECORD_METADATA_CHANNEL_BEAN_NAME)
+        private MessageChannel recordMetadata;
+
+        @Autowired
+        @Qualifier(IntegrationContextUtils.ERROR_CHANNEL_BEAN_NAME)
+        private MessageChannel errorChannel;
+
+        @Test
+        public void testRequestIsAcceptedWhenKafkaAcknowledges() throws IOException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            CompletableFuture<Message<?>> sent = completeSend(recordMetadata::send);
+
+            post(json).expectStatus().isAccepted();
+            assertEquals(json, payloadAsString(sent.join()));
+        }
+
+        @Test
+        public void testRequestFailsWhenKafkaSendFails() throws IOException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            CompletableFuture<Message<?>> sent = completeSend(message ->
+                    errorChannel.send(new ErrorMessage(new MessageDeliveryException(message, "Kafka is down"))));
+
+            post(json).expectStatus().is5xxServerError();
+            assertNotNull(sent.join());
+        }
+
+        @Test
+        public void testRejectionIsRenderedAsInServletMode() {
+            post("{\"firstname\": \"jan\"}")
+                    .expectStatus().isBadRequest()
+                    .expectBody()
+                    .jsonPath("$.status").isEqualTo(400)
+                    .jsonPath("$.error").isEqualTo("Bad Request")
+                    .jsonPath("$.message").value(containsString("$.address.city"))
+                    .jsonPath("$.path").isEqualTo("/foo");
+        }
+
+        @Test
+        public void testRequestTimesOutWhenKafkaDoesNotAcknowledge() throws IOException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            post(json)
+                    .expectStatus().isEqualTo(500)
+                    .expectBody()
+                    .jsonPath("$.status").isEqualTo(500)
+                    .jsonPath("$.message").isEqualTo("Message was not acknowledged by Kafka in time")
+                    .jsonPath("$.path").isEqualTo("/foo");
+            assertNotNull(messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS));
+        }
+
+        private WebTestClient.ResponseSpec post(String json) {
+            return webTestClient.post()
+                    .uri("/foo")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .syncBody(json)
+                    .exchange();
+        }
+
+        /**
+         * Completes the send of the next message, as Kafka binder does once Kafka responds.
+         */
+        private CompletableFuture<Message<?>> completeSend(Consumer<Message<?>> completion) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Message<?> message = messageCollector.forChannel(channels.output()).poll(5, TimeUnit.SECONDS);
+                    completion.accept(message);
+                    return message;
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+    }
+}
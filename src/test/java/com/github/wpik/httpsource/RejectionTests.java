@@ -0,0 +1,59 @@
+package com.github.wpik.httpsource;
+
+import org.junit.Test;
+import org.springframework.http.*;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public abstract class RejectionTests {
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.json.key-expression=$.address.city"
+    })
+    public static class KeyNotFoundTests extends BaseTests {
+        @Test
+        public void testMissingKeyIsRejectedWithoutErrorController() throws URISyntaxException {
+            ResponseEntity<Map<String, String>> response = post("{\"firstname\": \"jan\"}");
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+            assertTrue(response.getBody().get("message").contains("$.address.city"));
+            assertEquals("/foo", response.getBody().get("path"));
+            assertNull(response.getBody().get("timestamp"));
+        }
+
+        @Test
+        public void testMalformedPayloadIsRejected() throws URISyntaxException {
+            ResponseEntity<Map<String, String>> response = post("{\"address\": ");
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+            assertEquals("400", response.getBody().get("status"));
+        }
+
+        @Test
+        public void testRejectionHasNoStackTrace() {
+            RejectedRequestException rejection = new RejectedRequestException(HttpStatus.BAD_REQUEST, "Invalid");
+            assertEquals(0, rejection.getStackTrace().length);
+        }
+
+        @Test
+        public void testSharedRejectionDoesNotCollectSuppressedExceptions() {
+            RejectedRequestException rejection = new RejectedRequestException(HttpStatus.BAD_REQUEST, "Invalid");
+            rejection.addSuppressed(new IllegalStateException());
+            assertEquals(0, rejection.getSuppressed().length);
+        }
+
+        @SuppressWarnings("unchecked")
+        private ResponseEntity<Map<String, String>> post(String json) throws URISyntaxException {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+            return restTemplate.exchange(request, badRequestResponseType);
+        }
+    }
+}
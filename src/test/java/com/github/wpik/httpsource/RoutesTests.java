@@ -0,0 +1,150 @@
+package com.github.wpik.httpsource;
+
+import com.github.wpik.httpsource.producer.Outputs;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.stream.config.BindingServiceProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.*;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public abstract class RoutesTests {
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.routes.fish.uri-path=/fish",
+            "http.routes.fish.schema-location=/schema/fish-schema.json",
+            "http.routes.fish.key-expression=$.species",
+            "http.routes.person.uri-path=/person",
+            "http.routes.person.class-name=com.github.wpik.httpsource.model.Person",
+            "http.routes.person.key-expression=firstname",
+            "http.routes.person.destination=people"
+    })
+    public static class RouteTests extends BaseTests {
+        @Autowired
+        private ApplicationContext applicationContext;
+
+        @Test
+        public void testRouteWithoutDestinationSendsToOutput() throws URISyntaxException, InterruptedException {
+            ResponseEntity<?> response = restTemplate.exchange(request("/fish", "{\"species\":\"salmon\"}"),
+                    Object.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            Message<?> message = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+            assertEquals("{\"species\":\"salmon\"}", message.getPayload());
+            assertArrayEquals("salmon".getBytes(), message.getHeaders().get(Headers.KEY_BYTES, byte[].class));
+            assertNull(message.getHeaders().get(Headers.DESTINATION));
+        }
+
+        @Test
+        public void testRouteValidatesAgainstItsSchema() throws IOException, URISyntaxException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            ResponseEntity<Map<String, String>> response =
+                    restTemplate.exchange(request("/fish", json), badRequestResponseType);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        }
+
+        @Test
+        public void testRouteSendsToItsDestination() throws IOException, URISyntaxException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            ResponseEntity<?> response = restTemplate.exchange(request("/person", json), Object.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            MessageChannel people = applicationContext.getBean("people", MessageChannel.class);
+            Message<?> message = messageCollector.forChannel(people).poll(1, TimeUnit.SECONDS);
+            assertEquals(json, message.getPayload());
+            assertArrayEquals("jan".getBytes(), message.getHeaders().get(Headers.KEY_BYTES, byte[].class));
+            assertNull(messageCollector.forChannel(channels.output()).poll(100, TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        public void testRouteValidatesAgainstItsPojo() throws IOException, URISyntaxException {
+            String json = readTestFileAsString("/testdata/invalidPerson-age.json");
+            ResponseEntity<Map<String, String>> response =
+                    restTemplate.exchange(request("/person", json), badRequestResponseType);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+            assertTrue(response.getBody().get("message").contains("age"));
+        }
+
+        @Test
+        public void testMainPathIsServed() throws URISyntaxException, InterruptedException {
+            ResponseEntity<?> response = restTemplate.exchange(request("/foo", "{\"a\":1}"), Object.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            Message<?> message = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+            assertEquals("{\"a\":1}", message.getPayload());
+            assertNull(message.getHeaders().get(Headers.KEY_BYTES));
+        }
+
+        static RequestEntity<String> request(String uriPath, String json) throws URISyntaxException {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            return new RequestEntity<>(json, headers, HttpMethod.POST, new URI(uriPath));
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.routing.expression=$.type",
+            "http.routing.destinations.fish=fishes"
+    })
+    public static class ContentRoutingTests extends BaseTests {
+        @Autowired
+        private ApplicationContext applicationContext;
+
+        @Autowired
+        private Outputs outputs;
+
+        @Autowired
+        private BindingServiceProperties bindingServiceProperties;
+
+        @Test
+        public void testMappedValueIsSentToItsDestination() throws URISyntaxException, InterruptedException {
+            String json = "{\"type\":\"fish\",\"species\":\"salmon\"}";
+            ResponseEntity<?> response = restTemplate.exchange(RouteTests.request("/foo", json), Object.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            MessageChannel fishes = applicationContext.getBean("fishes", MessageChannel.class);
+            Message<?> message = messageCollector.forChannel(fishes).poll(1, TimeUnit.SECONDS);
+            assertEquals(json, message.getPayload());
+            assertEquals("fishes", message.getHeaders().get(Headers.DESTINATION));
+        }
+
+        @Test
+        public void testNotMappedValueIsSentToOutput() throws URISyntaxException, InterruptedException {
+            String json = "{\"type\":\"bird\"}";
+            ResponseEntity<?> response = restTemplate.exchange(RouteTests.request("/foo", json), Object.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            Message<?> message = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+            assertEquals(json, message.getPayload());
+            assertNull(message.getHeaders().get(Headers.DESTINATION));
+        }
+
+        @Test
+        public void testOnlyConfiguredDestinationsAreBound() {
+            assertArrayEquals(new String[]{"fishes"}, bindingServiceProperties.getDynamicDestinations());
+            Message<String> message = MessageBuilder.withPayload("{}").setHeader(Headers.DESTINATION, "birds").build();
+            try {
+                outputs.channel(message);
+                fail("Not configured destination was resolved");
+            } catch (MessageDeliveryException e) {
+                assertFalse(applicationContext.containsBean("birds"));
+            }
+        }
+
+        @Test
+        public void testRequestWithoutRoutingValueIsRejected() throws URISyntaxException {
+            ResponseEntity<Map<String, String>> response =
+                    restTemplate.exchange(RouteTests.request("/foo", "{\"a\":1}"), badRequestResponseType);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.wpik.httpsource;
+
+import com.github.wpik.httpsource.spool.Spool;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.integration.config.GlobalChannelInterceptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public abstract class SpoolTests {
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.spool.directory=target/spool-tests",
+            "http.spool.segment-size=4KB",
+            "http.spool.drain-interval=100ms"
+    })
+    public static class SpoolOnSendFailureTests extends BaseTests {
+        private static final AtomicBoolean KAFKA_DOWN = new AtomicBoolean();
+
+        @TestConfiguration
+        static class FailingOutputConfig {
+            @Bean
+            @GlobalChannelInterceptor(patterns = "output")
+            ChannelInterceptor failingOutput() {
+                return new ChannelInterceptor() {
+                    @Override
+                    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                        if (KAFKA_DOWN.get()) {
+                            throw new MessageDeliveryException(message, "Kafka is down");
+                        }
+                        return message;
+                    }
+                };
+            }
+        }
+
+        @Autowired
+        private Spool spool;
+
+        @BeforeClass
+        public static void deleteSpool() {
+            FileSystemUtils.deleteRecursively(Paths.get("target/spool-tests").toFile());
+        }
+
+        @Test
+        public void testMessagesAreSpooledAndDrainedInOrder() throws IOException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            KAFKA_DOWN.set(true);
+            try {
+                for (int i = 0; i < 20; i++) {
+                    ResponseEntity<String> response =
+                            restTemplate.postForEntity("/foo", json.replace("kowalski", "kowalski" + i), String.class);
+                    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+                }
+                assertFalse(spool.isEmpty());
+                assertNull(messageCollector.forChannel(channels.output()).poll(200, TimeUnit.MILLISECONDS));
+            } finally {
+                KAFKA_DOWN.set(false);
+            }
+
+            for (int i = 0; i < 20; i++) {
+                Message<?> message = messageCollector.forChannel(channels.output()).poll(2, TimeUnit.SECONDS);
+                assertEquals(json.replace("kowalski", "kowalski" + i), message.getPayload());
+            }
+            assertTrue(spool.isEmpty());
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.spool.directory=target/spool-poison-tests",
+            "http.spool.segment-size=4KB",
+            "http.spool.drain-interval=100ms"
+    })
+    public static class UndeliverableMessageTests extends BaseTests {
+        private static final AtomicBoolean KAFKA_DOWN = new AtomicBoolean();
+
+        @TestConfiguration
+        static class FailingOutputConfig {
+            @Bean
+            @GlobalChannelInterceptor(patterns = "output")
+            ChannelInterceptor failingOutput() {
+                return new ChannelInterceptor() {
+                    @Override
+                    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                        if (KAFKA_DOWN.get()) {
+                            throw new MessageDeliveryException(message, "Kafka is down",
+                                    new TimeoutException("Topic output not present in metadata"));
+                        }
+                        if (message.getPayload().toString().contains("poison")) {
+                            throw new MessageDeliveryException(message, "Record is too large",
+                                    new RecordTooLargeException("The message is too large"));
+                        }
+                        return message;
+                    }
+                };
+            }
+        }
+
+        @Autowired
+        private Spool spool;
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @BeforeClass
+        public static void deleteSpool() {
+            FileSystemUtils.deleteRecursively(Paths.get("target/spool-poison-tests").toFile());
+        }
+
+        @Test
+        public void testUndeliverableMessageIsNotSpooled() throws IOException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            ResponseEntity<String> response =
+                    restTemplate.postForEntity("/foo", json.replace("kowalski", "poison"), String.class);
+            assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+            assertTrue(spool.isEmpty());
+
+            assertEquals(HttpStatus.ACCEPTED, restTemplate.postForEntity("/foo", json, String.class).getStatusCode());
+            assertEquals(json, messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS).getPayload());
+        }
+
+        @Test
+        public void testUndeliverableSpooledMessageDoesNotBlockSpool() throws IOException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            KAFKA_DOWN.set(true);
+            try {
+                for (String name : new String[]{"first", "poison", "second"}) {
+                    ResponseEntity<String> response =
+                            restTemplate.postForEntity("/foo", json.replace("kowalski", name), String.class);
+                    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+                }
+                assertFalse(spool.isEmpty());
+            } finally {
+                KAFKA_DOWN.set(false);
+            }
+
+            for (String name : new String[]{"first", "second"}) {
+                Message<?> message = messageCollector.forChannel(channels.output()).poll(2, TimeUnit.SECONDS);
+                assertEquals(json.replace("kowalski", name), message.getPayload());
+            }
+            assertTrue(spool.isEmpty());
+            assertEquals(1, meterRegistry.get(Spool.SPOOL_RECORDS).tag("event", "dropped").counter().count(), 0);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.github.wpik.httpsource;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.BeforeClass;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
@@ -9,10 +12,17 @@ import org.springframework.test.context.TestPropertySource;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public abstract class ValidationTests {
@@ -144,6 +154,72 @@ public abstract class ValidationTests {
             assertTrue(response.getBody().get("message").contains("extraneous key"));
             assertTrue(response.getBody().get("message").contains("nationality"));
         }
+
+        @Test
+        public void testMalformedPayloadIsRejected() throws URISyntaxException {
+            String json = "{\"firstname\": \"jan\",";
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+            ResponseEntity<Map<String, String>> response = restTemplate.exchange(request, badRequestResponseType);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.json.schema-location=/schema/person-schema.json",
+            "http.json.fail-fast=true"
+    })
+    public static class JsonSchemaFailFastValidationTests extends BaseTests {
+        @Test
+        public void testOnlyFirstViolationIsReported() throws IOException, URISyntaxException {
+            String json = readTestFileAsString("/testdata/invalidPerson-age-address.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+            ResponseEntity<Map<String, String>> response = restTemplate.exchange(request, badRequestResponseType);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+            assertTrue(response.getBody().get("message").contains("address"));
+            assertFalse(response.getBody().get("message").contains("age"));
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.json.schema-location=file:target/reloaded-schema.json",
+            "http.json.schema-reload-interval=100ms"
+    })
+    public static class JsonSchemaReloadTests extends BaseTests {
+        private static final Path SCHEMA = Paths.get("target", "reloaded-schema.json");
+
+        @BeforeClass
+        public static void copySchema() throws IOException {
+            Files.createDirectories(SCHEMA.getParent());
+            Files.copy(Paths.get("src/test/resources/schema/fish-schema.json"), SCHEMA,
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        @Test
+        public void testSchemaIsReloaded() throws IOException, URISyntaxException, InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+            assertEquals(HttpStatus.BAD_REQUEST, restTemplate.exchange(request, badRequestResponseType).getStatusCode());
+
+            Files.copy(Paths.get("src/test/resources/schema/person-schema.json"), SCHEMA,
+                    StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(SCHEMA, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+            HttpStatus status = HttpStatus.BAD_REQUEST;
+            for (int i = 0; i < 50 && status != HttpStatus.ACCEPTED; i++) {
+                TimeUnit.MILLISECONDS.sleep(100);
+                status = restTemplate.exchange(request, badRequestResponseType).getStatusCode();
+            }
+            assertEquals(HttpStatus.ACCEPTED, status);
+            assertEquals(json, messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS).getPayload());
+        }
     }
 
     @TestPropertySource(properties = {
@@ -181,4 +257,113 @@ public abstract class ValidationTests {
             assertTrue(response.getBody().get("message").contains("firstname"));
         }
     }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.max-body-size=16B"
+    })
+    public static class BodySizeLimitTests extends BaseTests {
+        @Test
+        public void testBodyTooLarge() throws IOException, URISyntaxException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+            ResponseEntity<?> response = restTemplate.exchange(request, Object.class);
+            assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+        }
+
+        @Test
+        public void testBodyWithinLimit() throws URISyntaxException, InterruptedException {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>("{\"a\":1}", headers, HttpMethod.POST, new URI("/foo"));
+            ResponseEntity<?> response = restTemplate.exchange(request, Object.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            assertEquals("{\"a\":1}", messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS).getPayload());
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.json.schema-location=/schema/person-schema.json",
+            "http.json.key-expression=$.address.city",
+            "http.validation-cache.enabled=true"
+    })
+    public static class ValidationCacheTests extends BaseTests {
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Test
+        public void testRepeatedPayloadIsAcceptedFromCache() throws IOException, URISyntaxException,
+                InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            for (int i = 0; i < 2; i++) {
+                RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+                ResponseEntity<?> response = restTemplate.exchange(request, Object.class);
+                assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+                Message<?> message = messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS);
+                assertEquals(json, message.getPayload());
+                assertArrayEquals("warsaw".getBytes(), message.getHeaders().get(Headers.KEY_BYTES, byte[].class));
+            }
+            assertTrue(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count() > 0);
+        }
+
+        @Test
+        public void testRepeatedPayloadIsRejectedFromCache() throws IOException, URISyntaxException {
+            String json = readTestFileAsString("/testdata/invalidPerson-extra-key.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            for (int i = 0; i < 2; i++) {
+                RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+                ResponseEntity<Map<String, String>> response = restTemplate.exchange(request, badRequestResponseType);
+                assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+                assertTrue(response.getBody().get("message").contains("nationality"));
+            }
+        }
+    }
+
+    @TestPropertySource(properties = {
+            "http.uri-path=/foo",
+            "http.json.schema-location=file:target/cached-schema.json",
+            "http.json.schema-reload-interval=100ms",
+            "http.validation-cache.enabled=true"
+    })
+    public static class ValidationCacheReloadTests extends BaseTests {
+        private static final Path SCHEMA = Paths.get("target", "cached-schema.json");
+
+        @BeforeClass
+        public static void copySchema() throws IOException {
+            Files.createDirectories(SCHEMA.getParent());
+            Files.copy(Paths.get("src/test/resources/schema/fish-schema.json"), SCHEMA,
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        @Test
+        public void testCachedOutcomeIsForgottenWhenSchemaIsReloaded() throws IOException, URISyntaxException,
+                InterruptedException {
+            String json = readTestFileAsString("/testdata/validPerson.json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            RequestEntity<String> request = new RequestEntity<>(json, headers, HttpMethod.POST, new URI("/foo"));
+            for (int i = 0; i < 2; i++) {
+                assertEquals(HttpStatus.BAD_REQUEST,
+                        restTemplate.exchange(request, badRequestResponseType).getStatusCode());
+            }
+
+            Files.copy(Paths.get("src/test/resources/schema/person-schema.json"), SCHEMA,
+                    StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(SCHEMA, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+            HttpStatus status = HttpStatus.BAD_REQUEST;
+            for (int i = 0; i < 50 && status != HttpStatus.ACCEPTED; i++) {
+                TimeUnit.MILLISECONDS.sleep(100);
+                status = restTemplate.exchange(request, badRequestResponseType).getStatusCode();
+            }
+            assertEquals(HttpStatus.ACCEPTED, status);
+            assertEquals(json, messageCollector.forChannel(channels.output()).poll(1, TimeUnit.SECONDS).getPayload());
+        }
+    }
 }
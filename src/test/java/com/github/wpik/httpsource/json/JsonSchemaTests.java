@@ -0,0 +1,101 @@
+package com.github.wpik.httpsource.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public abstract class JsonSchemaTests {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static JsonNode json(String json) throws IOException {
+        return OBJECT_MAPPER.readTree(json);
+    }
+
+    /**
+     * Cases in the format of JSON-Schema-Test-Suite (https://github.com/json-schema-org/JSON-Schema-Test-Suite),
+     * taken from its draft7 directory for the keywords supported by {@link CompiledJsonSchemaValidator}, plus cases of
+     * big numbers and numbers compared by value. Each case is validated with and without fail fast.
+     */
+    @RunWith(Parameterized.class)
+    public static class TestSuiteTests {
+
+        @Parameterized.Parameter
+        public String description;
+
+        @Parameterized.Parameter(1)
+        public JsonNode schema;
+
+        @Parameterized.Parameter(2)
+        public JsonNode data;
+
+        @Parameterized.Parameter(3)
+        public boolean valid;
+
+        @Parameterized.Parameters(name = "{0}")
+        public static List<Object[]> cases() throws IOException {
+            List<Object[]> cases = new ArrayList<>();
+            Resource[] resources = new PathMatchingResourcePatternResolver()
+                    .getResources("classpath:/json-schema-test-suite/*.json");
+            for (Resource resource : resources) {
+                try (InputStream stream = resource.getInputStream()) {
+                    for (JsonNode group : OBJECT_MAPPER.readTree(stream)) {
+                        for (JsonNode test : group.get("tests")) {
+                            cases.add(new Object[]{
+                                    resource.getFilename() + ": " + group.get("description").textValue() + ": "
+                                            + test.get("description").textValue(),
+                                    group.get("schema"),
+                                    test.get("data"),
+                                    test.get("valid").booleanValue()});
+                        }
+                    }
+                }
+            }
+            return cases;
+        }
+
+        @Test
+        public void testValidation() {
+            List<String> violations = new CompiledJsonSchemaValidator(schema, false).validate(data);
+            assertEquals(violations.toString(), valid, violations.isEmpty());
+            assertEquals(valid, new CompiledJsonSchemaValidator(schema, true).validate(data).isEmpty());
+        }
+    }
+
+    public static class ReferenceTests {
+
+        @Test(expected = IllegalArgumentException.class)
+        public void testRootReferenceToItselfIsRejected() throws IOException {
+            new CompiledJsonSchemaValidator(json("{\"$ref\": \"#\"}"), false);
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void testReferenceCycleThroughApplicatorsIsRejected() throws IOException {
+            new CompiledJsonSchemaValidator(json("{\"definitions\": {"
+                    + "\"a\": {\"anyOf\": [{\"$ref\": \"#/definitions/b\"}]},"
+                    + "\"b\": {\"allOf\": [{\"type\": \"object\"}, {\"$ref\": \"#/definitions/a\"}]}},"
+                    + "\"properties\": {\"foo\": {\"$ref\": \"#/definitions/a\"}}}"), false);
+        }
+
+        @Test
+        public void testRecursionThroughPropertiesIsAllowed() throws IOException {
+            CompiledJsonSchemaValidator validator = new CompiledJsonSchemaValidator(
+                    json("{\"properties\": {\"child\": {\"$ref\": \"#\"}}, \"required\": [\"name\"]}"), false);
+            assertTrue(validator.validate(json("{\"name\": \"a\", \"child\": {\"name\": \"b\"}}")).isEmpty());
+            assertFalse(validator.validate(json("{\"name\": \"a\", \"child\": {}}")).isEmpty());
+        }
+    }
+}
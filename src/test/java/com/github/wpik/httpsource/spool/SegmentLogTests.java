@@ -0,0 +1,294 @@
+package com.github.wpik.httpsource.spool;
+
+import com.github.wpik.httpsource.RejectedRequestException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.support.GenericMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public abstract class SegmentLogTests {
+
+    private static final int RECORD_HEADER_SIZE = 16;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    SegmentLog open(int segmentSize, long maxSize) throws IOException {
+        return SegmentLog.open(folder.getRoot().toPath(), segmentSize, maxSize);
+    }
+
+    Path segment(long base) {
+        return folder.getRoot().toPath().resolve(String.format("%020d.segment", base));
+    }
+
+    static byte[] bytes(String data) {
+        return data.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static List<String> data(List<SegmentLog.Record> records) {
+        return records.stream()
+                .map(record -> new String(record.data, StandardCharsets.UTF_8))
+                .collect(Collectors.toList());
+    }
+
+    void write(Path file, int offset, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), offset);
+        }
+    }
+
+    public static class RecoveryTests extends SegmentLogTests {
+
+        @Test
+        public void testUnreadRecordsAreReadAfterReopen() throws IOException {
+            try (SegmentLog segmentLog = open(1024, 1024 * 1024)) {
+                long first = segmentLog.append(bytes("first"), 1);
+                segmentLog.append(bytes("second"), 2);
+                segmentLog.append(bytes("third"), 3);
+                segmentLog.commit(first);
+            }
+
+            try (SegmentLog segmentLog = open(1024, 1024 * 1024)) {
+                List<SegmentLog.Record> records = segmentLog.read(10);
+                assertEquals(Arrays.asList("second", "third"), data(records));
+                assertEquals(2, records.get(0).timestamp);
+                assertEquals(3, records.get(1).timestamp);
+
+                segmentLog.append(bytes("fourth"), 4);
+                assertEquals(Arrays.asList("second", "third", "fourth"), data(segmentLog.read(10)));
+            }
+        }
+
+        @Test
+        public void testTornRecordEndsLogAndIsCleared() throws IOException {
+            try (SegmentLog segmentLog = open(1024, 1024 * 1024)) {
+                segmentLog.append(bytes("first"), 1);
+                segmentLog.append(bytes("a longer second record"), 2);
+            }
+            write(segment(0), RECORD_HEADER_SIZE + 5 + RECORD_HEADER_SIZE, bytes("torn"));
+
+            try (SegmentLog segmentLog = open(1024, 1024 * 1024)) {
+                assertEquals(Arrays.asList("first"), data(segmentLog.read(10)));
+                segmentLog.append(bytes("new"), 3);
+                assertEquals(Arrays.asList("first", "new"), data(segmentLog.read(10)));
+            }
+
+            try (SegmentLog segmentLog = open(1024, 1024 * 1024)) {
+                assertEquals(Arrays.asList("first", "new"), data(segmentLog.read(10)));
+            }
+        }
+
+        @Test
+        public void testCorruptedRecordIsSkippedWithRestOfSegment() throws IOException {
+            int segmentSize = 2 * (RECORD_HEADER_SIZE + 10) + 8;
+            try (SegmentLog segmentLog = open(segmentSize, 1024 * 1024)) {
+                for (int i = 0; i < 4; i++) {
+                    segmentLog.append(bytes("record-" + i + "..."), i);
+                }
+            }
+            write(segment(0), RECORD_HEADER_SIZE + 11 + RECORD_HEADER_SIZE, bytes("xx"));
+
+            try (SegmentLog segmentLog = open(segmentSize, 1024 * 1024)) {
+                List<SegmentLog.Record> records = segmentLog.read(10);
+                assertEquals(Arrays.asList("record-0..."), data(records));
+                segmentLog.commit(records.get(0).end);
+                try {
+                    segmentLog.read(10);
+                    fail("Corrupted record must not be read");
+                } catch (IllegalStateException e) {
+                    assertTrue(segmentLog.skipCorrupted() > 0);
+                }
+                assertEquals(Arrays.asList("record-2...", "record-3..."), data(segmentLog.read(10)));
+            }
+        }
+
+        @Test
+        public void testGarbageAfterLastRecordIsCleared() throws IOException {
+            try (SegmentLog segmentLog = open(1024, 1024 * 1024)) {
+                segmentLog.append(bytes("first"), 1);
+            }
+            byte[] garbage = new byte[64];
+            Arrays.fill(garbage, (byte) 0x7f);
+            write(segment(0), RECORD_HEADER_SIZE + 5, garbage);
+
+            try (SegmentLog segmentLog = open(1024, 1024 * 1024)) {
+                assertEquals(Arrays.asList("first"), data(segmentLog.read(10)));
+                segmentLog.append(bytes("second"), 2);
+                segmentLog.append(bytes("third"), 3);
+                assertEquals(Arrays.asList("first", "second", "third"), data(segmentLog.read(10)));
+            }
+
+            try (SegmentLog segmentLog = open(1024, 1024 * 1024)) {
+                assertEquals(Arrays.asList("first", "second", "third"), data(segmentLog.read(10)));
+            }
+        }
+    }
+
+    public static class RolloverTests extends SegmentLogTests {
+
+        @Test
+        public void testRecordsAreReadAcrossSegments() throws IOException {
+            int segmentSize = 2 * (RECORD_HEADER_SIZE + 10) + 8;
+            try (SegmentLog segmentLog = open(segmentSize, 1024 * 1024)) {
+                for (int i = 0; i < 5; i++) {
+                    assertTrue(segmentLog.append(bytes("record-" + i + "..."), i) > 0);
+                }
+                assertTrue(Files.exists(segment(segmentSize)));
+                assertTrue(Files.exists(segment(2L * segmentSize)));
+                assertEquals(Arrays.asList("record-0...", "record-1...", "record-2...", "record-3...", "record-4..."),
+                        data(segmentLog.read(10)));
+            }
+
+            try (SegmentLog segmentLog = open(segmentSize, 1024 * 1024)) {
+                List<SegmentLog.Record> records = segmentLog.read(10);
+                assertEquals(5, records.size());
+                segmentLog.commit(records.get(3).end);
+                assertFalse(Files.exists(segment(0)));
+                assertTrue(Files.exists(segment(segmentSize)));
+                assertEquals(Arrays.asList("record-4..."), data(segmentLog.read(10)));
+            }
+        }
+
+        @Test
+        public void testRolloverEndsSegmentWithStaleBytes() throws IOException {
+            int segmentSize = 64;
+            try (SegmentLog segmentLog = open(segmentSize, 1024 * 1024)) {
+                segmentLog.append(bytes("first"), 1);
+            }
+            write(segment(0), RECORD_HEADER_SIZE + 5, ByteBuffer.allocate(12).putInt(8).putLong(-1).array());
+
+            try (SegmentLog segmentLog = open(segmentSize, 1024 * 1024)) {
+                segmentLog.append(bytes(new String(new char[40]).replace('\0', 'x')), 2);
+                assertTrue(Files.exists(segment(segmentSize)));
+                List<SegmentLog.Record> records = segmentLog.read(10);
+                assertEquals(2, records.size());
+                assertEquals("first", data(records).get(0));
+            }
+        }
+    }
+
+    public static class CapacityTests extends SegmentLogTests {
+
+        @Test
+        public void testAppendFailsWhenLogIsFull() throws IOException {
+            try (SegmentLog segmentLog = open(1024, 3 * (RECORD_HEADER_SIZE + 4))) {
+                long first = segmentLog.append(bytes("0001"), 1);
+                assertTrue(first > 0);
+                assertTrue(segmentLog.append(bytes("0002"), 2) > 0);
+                assertTrue(segmentLog.append(bytes("0003"), 3) > 0);
+                assertEquals(-1, segmentLog.append(bytes("0004"), 4));
+
+                segmentLog.commit(first);
+                assertTrue(segmentLog.append(bytes("0004"), 4) > 0);
+                assertEquals(Arrays.asList("0002", "0003", "0004"), data(segmentLog.read(10)));
+            }
+        }
+
+        @Test
+        public void testAppendFailsWhenRecordIsLargerThanSegment() throws IOException {
+            try (SegmentLog segmentLog = open(64, 1024 * 1024)) {
+                assertEquals(-1, segmentLog.append(new byte[64 - RECORD_HEADER_SIZE + 1], 1));
+                assertTrue(segmentLog.isEmpty());
+            }
+        }
+
+        @Test
+        public void testFullSpoolRejectsRequests() throws IOException {
+            Message<?> message = new GenericMessage<>("{\"name\": \"jan\"}");
+            int recordSize = RECORD_HEADER_SIZE + MessageCodec.encode(message).length;
+            try (Spool spool = spool(open(1024, recordSize), Duration.ofHours(1))) {
+                spool.send(message, m -> {
+                    throw new MessageDeliveryException(m, "Kafka is down");
+                });
+                assertFalse(spool.isEmpty());
+
+                try {
+                    spool.send(message, m -> fail("Message must not be sent while spool is not empty"));
+                    fail("Full spool must reject the message");
+                } catch (RejectedRequestException e) {
+                    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+                }
+            }
+        }
+    }
+
+    public static class ExpiryTests extends SegmentLogTests {
+
+        @Test
+        public void testMessagesOlderThanMaxAgeAreDropped() throws IOException, InterruptedException {
+            MeterRegistry registry = new SimpleMeterRegistry();
+            try (Spool spool = spool(open(1024, 1024 * 1024), Duration.ofMillis(1), registry)) {
+                for (int i = 0; i < 3; i++) {
+                    spool.sendAsync(new GenericMessage<>("message-" + i), m -> failed())
+                            .join();
+                }
+                TimeUnit.MILLISECONDS.sleep(10);
+
+                List<Message<?>> sent = new ArrayList<>();
+                spool.drain(m -> {
+                    sent.add(m);
+                    return CompletableFuture.completedFuture(null);
+                });
+                assertTrue(sent.isEmpty());
+                assertTrue(spool.isEmpty());
+                assertEquals(3, registry.get(Spool.SPOOL_RECORDS).tag("event", "expired").counter().count(), 0);
+            }
+        }
+
+        @Test
+        public void testMessagesYoungerThanMaxAgeAreDrainedInOrder() throws IOException {
+            try (Spool spool = spool(open(1024, 1024 * 1024), Duration.ofHours(1))) {
+                for (int i = 0; i < 3; i++) {
+                    spool.sendAsync(new GenericMessage<>("message-" + i), m -> failed())
+                            .join();
+                }
+
+                List<Object> sent = new ArrayList<>();
+                spool.drain(m -> {
+                    sent.add(m.getPayload());
+                    return CompletableFuture.completedFuture(null);
+                });
+                assertEquals(Arrays.asList("message-0", "message-1", "message-2"), sent);
+                assertTrue(spool.isEmpty());
+            }
+        }
+
+        private static CompletableFuture<Object> failed() {
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("Kafka is down"));
+            return failed;
+        }
+    }
+
+    static Spool spool(SegmentLog segmentLog, Duration maxAge) {
+        return spool(segmentLog, maxAge, new SimpleMeterRegistry());
+    }
+
+    static Spool spool(SegmentLog segmentLog, Duration maxAge, MeterRegistry registry) {
+        return new Spool(segmentLog, maxAge, message -> { }, Executors.newSingleThreadExecutor(), registry);
+    }
+
+}